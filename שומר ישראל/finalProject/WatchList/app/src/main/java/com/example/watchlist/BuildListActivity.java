@@ -1,42 +1,46 @@
 package com.example.watchlist;
 
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.os.Handler;
+import android.text.InputType;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.Button;
+import android.widget.EditText;
+import android.widget.TextView;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.viewpager2.widget.ViewPager2;
 
+import com.example.watchlist.scheduler.CandidateGenerator;
+import com.example.watchlist.scheduler.FairnessOptimizer;
+import com.example.watchlist.scheduler.GenerationHandle;
+import com.example.watchlist.scheduler.Schedule;
+import com.example.watchlist.scheduler.ScheduleCache;
+import com.example.watchlist.scheduler.ScheduleCandidate;
+import com.example.watchlist.scheduler.ScheduleProblem;
+
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class BuildListActivity extends AppCompatActivity {
     private static final String TAG = "BuildList";
     private String teamName;
     private String listName;
     private List<String> posts;
-    private List<String> soldiers;
-    private int startHour;
-    private int startMinute;
-    private int dayStartHour;
-    private int dayStartMinute;
-    private int dayEndHour;
-    private int dayEndMinute;
-    private int durationMinutes;
-    private int numPosts;
-    private int numSoldiers;
+    private ScheduleProblem problem;
     private ViewPager2 viewPager;
     private Button btnChoose;
-    private List<String[][]> schedules;
-    private List<String[][]> balancedSchedules;
     private SchedulePagerAdapter adapter;
+    private TextView textViewProgress;
+    private GenerationHandle generation;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -51,18 +55,16 @@ public class BuildListActivity extends AppCompatActivity {
 
         viewPager = findViewById(R.id.viewPager);
         btnChoose = findViewById(R.id.btnChoose);
+        textViewProgress = findViewById(R.id.textViewProgress);
 
         fetchWatchList();
 
         btnChoose.setOnClickListener(v -> {
-            int currentItem = viewPager.getCurrentItem();
-            if (currentItem < schedules.size()) {
-                String[][] selectedSchedule = schedules.get(currentItem);
-                BuildListHelper.saveScheduleToFirestore(teamName, listName, selectedSchedule, "Current Algorithm Schedule", posts, startHour, startMinute, durationMinutes, numSoldiers);
-            } else {
-                String[][] selectedSchedule = balancedSchedules.get(currentItem - schedules.size());
-                BuildListHelper.saveScheduleToFirestore(teamName, listName, selectedSchedule, "Balanced Algorithm Schedule", posts, startHour, startMinute, durationMinutes, numSoldiers);
+            if (adapter == null || adapter.getItemCount() == 0) {
+                return;
             }
+            Schedule selectedSchedule = adapter.getSchedule(viewPager.getCurrentItem());
+            BuildListHelper.saveScheduleToFirestore(teamName, listName, selectedSchedule);
 
             new Handler().postDelayed(() -> {
                 Intent intent = new Intent(BuildListActivity.this, InspectListActivity.class);
@@ -74,6 +76,32 @@ public class BuildListActivity extends AppCompatActivity {
 
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (isFinishing()) {
+            cancelGeneration();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        cancelGeneration();
+        super.onDestroy();
+    }
+
+    private void cancelGeneration() {
+        if (generation != null) {
+            generation.cancel();
+            generation = null;
+        }
+    }
+
+    private void showProgress(int completed, int total) {
+        textViewProgress.setVisibility(completed < total ? View.VISIBLE : View.GONE);
+        textViewProgress.setText("Generating schedules: " + completed + "/" + total);
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         MenuInflater inflater = getMenuInflater();
@@ -87,6 +115,9 @@ public class BuildListActivity extends AppCompatActivity {
 
         if (id == R.id.action_add) {
             return true;
+        } else if (id == R.id.action_optimize) {
+            showOptimizeDialog();
+            return true;
         } else if (id == R.id.action_delete) {
             BuildListHelper.deleteList(teamName, listName);
             Intent intent = new Intent(BuildListActivity.this, WatchListsActivity.class);
@@ -97,37 +128,145 @@ public class BuildListActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
+    private void showOptimizeDialog() {
+        if (adapter == null || adapter.getItemCount() == 0) {
+            return;
+        }
+        EditText editTextSeconds = new EditText(this);
+        editTextSeconds.setInputType(InputType.TYPE_CLASS_NUMBER);
+        editTextSeconds.setHint("Time budget in seconds");
+        editTextSeconds.setText("10");
+
+        new AlertDialog.Builder(this)
+                .setTitle("Optimize Fairness")
+                .setView(editTextSeconds)
+                .setPositiveButton("Start", (dialog, which) -> {
+                    int seconds;
+                    try {
+                        seconds = Math.max(1, Integer.parseInt(editTextSeconds.getText().toString()));
+                    } catch (NumberFormatException e) {
+                        seconds = 10;
+                    }
+                    optimizeCurrentSchedule(seconds * 1000L);
+                })
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
+                .show();
+    }
+
+    // The page is replaced with every improvement, so the planner always sees the current best.
+    private void optimizeCurrentSchedule(long timeBudgetMillis) {
+        cancelGeneration();
+        final Schedule[] shown = {adapter.getSchedule(viewPager.getCurrentItem())};
+        textViewProgress.setVisibility(View.VISIBLE);
+        generation = BuildListHelper.optimizeSchedule(shown[0], timeBudgetMillis, new FairnessOptimizer.Listener() {
+            @Override
+            public void onImproved(Schedule schedule, double objective) {
+                adapter.replaceSchedule(shown[0], schedule);
+                shown[0] = schedule;
+                textViewProgress.setText(String.format("Optimizing fairness, current score: %.2f", objective));
+            }
+
+            @Override
+            public void onComplete(Schedule best, double objective) {
+                adapter.replaceSchedule(shown[0], best);
+                shown[0] = best;
+                textViewProgress.setText(String.format("Optimized fairness score: %.2f", objective));
+            }
+        });
+    }
+
     private void fetchWatchList() {
         BuildListHelper helper = new BuildListHelper(teamName, listName);
-        helper.fetchWatchList((posts, soldiers, times, dayTimes, durationMinutes, numPosts, numSoldiers, dayTimeSoldiers, nightTimeSoldiers) -> {
+        helper.fetchWatchList((posts, problem) -> {
+            if (isDestroyed()) {
+                return;
+            }
             this.posts = posts;
-            this.soldiers = soldiers;
-            this.startHour = times[0];
-            this.startMinute = times[1];
-            this.dayStartHour = dayTimes[0];
-            this.dayStartMinute = dayTimes[1];
-            this.dayEndHour = dayTimes[2];
-            this.dayEndMinute = dayTimes[3];
-            this.durationMinutes = durationMinutes;
-            this.numPosts = numPosts;
-            this.numSoldiers = numSoldiers;
-
-            runInParallel(dayTimeSoldiers, nightTimeSoldiers);
+            this.problem = problem;
+
+            runInParallel();
+        });
+    }
+
+    // Schedules built before from the same inputs are shown straight from the cache.
+    private void runInParallel() {
+        SharedPreferences preferences = getSharedPreferences(SettingsActivity.PREFS_NAME, MODE_PRIVATE);
+        boolean candidateMode = preferences.getBoolean(SettingsActivity.CANDIDATE_MODE_KEY, false);
+        int numCandidates = preferences.getInt(SettingsActivity.CANDIDATE_COUNT_KEY, SettingsActivity.DEFAULT_CANDIDATE_COUNT);
+        int topK = preferences.getInt(SettingsActivity.CANDIDATE_TOP_KEY, SettingsActivity.DEFAULT_CANDIDATE_TOP);
+        String variant = candidateMode ? "candidates " + numCandidates + " " + topK : "current and balanced";
+        cancelGeneration();
+        BuildListHelper.checkCache(this, problem, variant, (key, cached) -> {
+            if (isDestroyed()) {
+                return;
+            }
+            if (cached != null) {
+                Log.d(TAG, "Showing " + cached.size() + " cached schedules");
+                displayScheduleChoices(new ArrayList<>(cached));
+            } else if (candidateMode) {
+                generateCandidates(numCandidates, topK, key);
+            } else {
+                generateBoth(key);
+            }
         });
     }
 
-    private void runInParallel(Map<String, Integer> dayTimeSoldiers, Map<String, Integer> nightTimeSoldiers) {
-        BuildListHelper.runInParallel(soldiers, startHour, startMinute, numSoldiers, durationMinutes, posts, numPosts, dayTimeSoldiers, nightTimeSoldiers, dayStartHour, dayStartMinute, dayEndHour, dayEndMinute, (schedules, balancedSchedules) -> {
-            this.schedules = schedules;
-            this.balancedSchedules = balancedSchedules;
-            displayScheduleChoices();
+    private void generateBoth(String cacheKey) {
+        showProgress(0, 2);
+        generation = BuildListHelper.runInParallel(this, problem, new BuildListHelper.ParallelCallback() {
+            @Override
+            public void onParallelComplete(List<Schedule> schedules, List<Schedule> balancedSchedules) {
+                List<Schedule> allSchedules = new ArrayList<>(schedules);
+                allSchedules.addAll(balancedSchedules);
+                if (cacheKey != null) {
+                    BuildListHelper.cacheSchedules(BuildListActivity.this, cacheKey, allSchedules);
+                }
+                displayScheduleChoices(allSchedules);
+            }
+
+            @Override
+            public void onProgress(int completed, int total) {
+                showProgress(completed, total);
+            }
+        });
+    }
+
+    // Candidates stream in best-first as they finish, only the top K are kept in the pager.
+    // The seed comes from the inputs, so lists with the same settings draw the same candidates.
+    private void generateCandidates(int numCandidates, int topK, String cacheKey) {
+        displayScheduleChoices(new ArrayList<>());
+        showProgress(0, numCandidates);
+        long seed = cacheKey != null ? ScheduleCache.seedOf(cacheKey) : listName.hashCode();
+        generation = BuildListHelper.generateCandidates(problem, numCandidates, topK, seed, new CandidateGenerator.Listener() {
+            @Override
+            public void onCandidateAccepted(ScheduleCandidate candidate, int rank, ScheduleCandidate evicted) {
+                adapter.insertSchedule(rank, candidate.getSchedule(), candidate.getMetrics(), candidate.getValidation());
+                if (evicted != null) {
+                    adapter.removeSchedule(evicted.getSchedule());
+                }
+            }
+
+            @Override
+            public void onProgress(int completed, int total) {
+                showProgress(completed, total);
+            }
+
+            @Override
+            public void onComplete(List<ScheduleCandidate> best) {
+                Log.d(TAG, "Generated " + numCandidates + " candidates, showing " + best.size());
+                if (cacheKey != null) {
+                    List<Schedule> schedules = new ArrayList<>();
+                    for (ScheduleCandidate candidate : best) {
+                        schedules.add(candidate.getSchedule());
+                    }
+                    BuildListHelper.cacheSchedules(BuildListActivity.this, cacheKey, schedules);
+                }
+            }
         });
     }
 
-    private void displayScheduleChoices() {
-        List<String[][]> allSchedules = new ArrayList<>(schedules);
-        allSchedules.addAll(balancedSchedules);
-        adapter = new SchedulePagerAdapter(this, allSchedules, posts, startHour, startMinute, balancedSchedules, durationMinutes, numSoldiers);
+    private void displayScheduleChoices(List<Schedule> allSchedules) {
+        adapter = new SchedulePagerAdapter(this, allSchedules, posts);
         viewPager.setAdapter(adapter);
     }
 }
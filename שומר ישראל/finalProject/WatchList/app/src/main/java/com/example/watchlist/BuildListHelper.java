@@ -1,18 +1,43 @@
 package com.example.watchlist;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
+import com.example.watchlist.scheduler.Algorithm;
+import com.example.watchlist.scheduler.CandidateGenerator;
+import com.example.watchlist.scheduler.FairnessOptimizer;
+import com.example.watchlist.scheduler.GenerationHandle;
+import com.example.watchlist.scheduler.ListSettings;
+import com.example.watchlist.scheduler.LocalScheduleEngine;
+import com.example.watchlist.scheduler.LoadLedger;
+import com.example.watchlist.scheduler.Schedule;
+import com.example.watchlist.scheduler.ScheduleCache;
+import com.example.watchlist.scheduler.ScheduleCandidate;
+import com.example.watchlist.scheduler.ScheduleEngine;
+import com.example.watchlist.scheduler.ScheduleGenerator;
+import com.example.watchlist.scheduler.ScheduleMetrics;
+import com.example.watchlist.scheduler.ScheduleProblem;
+import com.example.watchlist.scheduler.ScheduleRepair;
+import com.example.watchlist.scheduler.ScheduleValidator;
+import com.example.watchlist.scheduler.SchedulerPool;
+import com.example.watchlist.scheduler.SwapIndex;
+import com.example.watchlist.scheduler.TeamPool;
+import com.example.watchlist.scheduler.TimeSlots;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -20,6 +45,14 @@ import retrofit2.Response;
 
 public class BuildListHelper {
     private static final String TAG = "BuildListHelper";
+    private static final long OFFLOAD_MILLIS = 3000;
+    private static final String WORK_PER_MILLI_KEY = "work_per_milli";
+    private static final float SPEED_WEIGHT = 0.3f;
+    private static final int LONG_LIST_DAYS = 14;
+    private static final int WINDOW_DAYS = 7;
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final long CACHE_BYTES = 32L * 1024 * 1024;
+    private static ScheduleCache scheduleCache;
     private String teamName;
     private String listName;
 
@@ -29,34 +62,62 @@ public class BuildListHelper {
     }
 
     public interface FetchCallback {
-        void onFetchComplete(List<String> posts, List<String> soldiers, int[] times, int[] dayTimes, int durationMinutes, int numPosts, int numSoldiers, Map<String, Integer> dayTimeSoldiers, Map<String, Integer> nightTimeSoldiers);
+        void onFetchComplete(List<String> posts, ScheduleProblem problem);
+    }
+
+    public interface CacheCallback {
+        void onCacheChecked(String key, List<Schedule> schedules);
+    }
+
+    public interface ProblemCallback {
+        void onProblemLoaded(ScheduleProblem problem, Algorithm algorithm);
+    }
+
+    public interface SwapIndexCallback {
+        void onIndexReady(SwapIndex index);
+    }
+
+    private interface RowsCallback {
+        void onRowsLoaded(ScheduleProblem problem, Algorithm algorithm, List<String[]> rows);
+    }
+
+    private interface ListCallback {
+        void onListLoaded(Map<String, Object> data, List<String> posts, ScheduleProblem problem);
     }
 
     public void fetchWatchList(FetchCallback callback) {
+        fetchWatchList(Collections.<String>emptyList(), (data, posts, problem) -> callback.onFetchComplete(posts, problem));
+    }
+
+    // The list's settings as a problem, with the algorithm it was built with (null if never built).
+    public void fetchListProblem(ProblemCallback callback) {
+        fetchWatchList(Collections.<String>emptyList(), (data, posts, problem) -> {
+            keepStoredSlots(data, problem);
+            callback.onProblemLoaded(problem, algorithmOf((String) data.get("algorithm")));
+        });
+    }
+
+    // Members in excluded are left off the roster, as if they had never been selected.
+    private void fetchWatchList(List<String> excluded, ListCallback listCallback) {
         Call<Map<String, Object>> call = RetrofitClient.getApi().getWatchList(teamName, listName);
         call.enqueue(new Callback<Map<String, Object>>() {
             @Override
             public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
                 if (response.isSuccessful() && response.body() != null) {
                     Map<String, Object> data = response.body();
-                    int[] times = parseTime((String) data.get("startHour"));
-                    int[] dayTimes = parseDayTimes((String) data.get("dayStartHour"), (String) data.get("dayEndHour"));
-                    int durationMinutes = ((Number) data.get("duration")).intValue() * 60;
-                    int numPosts = ((Number) data.get("numPosts")).intValue();
-                    int numSoldiers = ((Number) data.get("numSoldiers")).intValue();
-                    List<String> soldiers = (List<String>) data.get("selectedSoldiers");
+                    ScheduleProblem problem = problemOf(data, excluded);
                     List<String> posts = new ArrayList<>();
-                    Map<String, Integer> dayTimeSoldiers = new HashMap<>();
-                    Map<String, Integer> nightTimeSoldiers = new HashMap<>();
-                    for (int i = 1; i <= numPosts; i++) {
-                        String postName = (String) data.get("post" + i + "Name");
-                        int dayTime = ((Number) data.get("post" + i + "DayTime")).intValue();
-                        int nightTime = ((Number) data.get("post" + i + "NightTime")).intValue();
-                        posts.add(postName);
-                        dayTimeSoldiers.put(postName, dayTime);
-                        nightTimeSoldiers.put(postName, nightTime);
+                    for (int j = 0; j < problem.getNumPosts(); j++) {
+                        posts.add(problem.getPost(j));
+                    }
+                    int[] times = ListSettings.parseTime((String) data.get("startHour"));
+                    long listStartMillis = parseListStart((String) data.get("startDate"), times);
+                    FetchCallback callback = (fetchedPosts, fetchedProblem) -> listCallback.onListLoaded(data, fetchedPosts, fetchedProblem);
+                    if (problem.hasQualifications()) {
+                        fetchQualifications(posts, problem, listStartMillis, callback);
+                    } else {
+                        fetchUnavailability(posts, problem, listStartMillis, callback);
                     }
-                    callback.onFetchComplete(posts, soldiers, times, dayTimes, durationMinutes, numPosts, numSoldiers, dayTimeSoldiers, nightTimeSoldiers);
                 } else {
                     Log.e(TAG, "Error fetching document. Response code: " + response.code());
                 }
@@ -69,26 +130,197 @@ public class BuildListHelper {
         });
     }
 
-    public static void saveScheduleToFirestore(String teamName, String listName, String[][] schedule, String algorithm, List<String> posts, int startHour, int startMinute, int durationMinutes, int numSoldiers) {
-        List<Map<String, String>> scheduleList = new ArrayList<>();
-        int timeSlotDuration = algorithm.equals("Balanced Algorithm Schedule") ? 60 : durationMinutes / numSoldiers;
-        for (int i = 0; i < schedule[0].length; i++) {
-            Map<String, String> row = new HashMap<>();
-            for (int j = 0; j < schedule.length; j++) {
-                String postName = posts.get(j);
-                row.put(postName, schedule[j][i]);
+    // The list as stored, or as being configured, turned into a problem. Members in excluded are left
+    // off the roster; team data such as qualifications and unavailability is added by the caller.
+    public static ScheduleProblem problemOf(Map<String, Object> data, List<String> excluded) {
+        ScheduleProblem problem = ListSettings.problemOf(data, excluded);
+        // Lists over two weeks are solved a week at a time when there are cores to share the weeks.
+        if (problem.getDurationMinutes() > LONG_LIST_DAYS * 24 * 60 && Runtime.getRuntime().availableProcessors() > 1) {
+            problem.setWindowDays(WINDOW_DAYS);
+        }
+        return problem;
+    }
+
+    // Member qualifications live on the team, so they are read fresh for every build.
+    private void fetchQualifications(List<String> posts, ScheduleProblem problem, long listStartMillis, FetchCallback callback) {
+        RetrofitClient.getApi().getQualifications(teamName).enqueue(new Callback<Map<String, Long>>() {
+            @Override
+            public void onResponse(Call<Map<String, Long>> call, Response<Map<String, Long>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    problem.setSoldierQualifications(response.body());
+                } else {
+                    Log.e(TAG, "Error fetching qualifications. Response code: " + response.code());
+                }
+                fetchUnavailability(posts, problem, listStartMillis, callback);
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, Long>> call, Throwable t) {
+                Log.e(TAG, "Error fetching qualifications.", t);
+                fetchUnavailability(posts, problem, listStartMillis, callback);
+            }
+        });
+    }
+
+    private void fetchUnavailability(List<String> posts, ScheduleProblem problem, long listStartMillis, FetchCallback callback) {
+        RetrofitClient.getApi().getUnavailability(teamName).enqueue(new Callback<Map<String, List<Unavailability>>>() {
+            @Override
+            public void onResponse(Call<Map<String, List<Unavailability>>> call, Response<Map<String, List<Unavailability>>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    problem.setUnavailability(toListMinutes(response.body(), listStartMillis, problem.getDurationMinutes()));
+                } else {
+                    Log.e(TAG, "Error fetching unavailability. Response code: " + response.code());
+                }
+                fetchLoadLedger(posts, problem, callback);
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, List<Unavailability>>> call, Throwable t) {
+                Log.e(TAG, "Error fetching unavailability.", t);
+                fetchLoadLedger(posts, problem, callback);
+            }
+        });
+    }
+
+    // The team's work on its other lists, so whoever carried the most starts last on this one.
+    private void fetchLoadLedger(List<String> posts, ScheduleProblem problem, FetchCallback callback) {
+        RetrofitClient.getApi().getLoadLedger(teamName, listName, problem.getStartEpochMinute()).enqueue(new Callback<Map<String, Map<String, Long>>>() {
+            @Override
+            public void onResponse(Call<Map<String, Map<String, Long>>> call, Response<Map<String, Map<String, Long>>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    problem.setHistory(toLedger(response.body()), problem.getStartEpochMinute());
+                } else {
+                    Log.e(TAG, "Error fetching load ledger. Response code: " + response.code());
+                }
+                callback.onFetchComplete(posts, problem);
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, Map<String, Long>>> call, Throwable t) {
+                Log.e(TAG, "Error fetching load ledger.", t);
+                callback.onFetchComplete(posts, problem);
+            }
+        });
+    }
+
+    // Replaces this list's share of the team's load with the load of the schedule now saved.
+    private static void saveLoadShare(String teamName, String listName, LoadLedger share) {
+        RetrofitClient.getApi().updateLoadLedger(teamName, listName, toLoads(share)).enqueue(new Callback<Void>() {
+            @Override
+            public void onResponse(Call<Void> call, Response<Void> response) {
+                if (!response.isSuccessful()) {
+                    Log.w(TAG, "Error updating load ledger. Response code: " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                Log.e(TAG, "Error updating load ledger.", t);
+            }
+        });
+    }
+
+    // Recounts this list's share from its stored pages, after they were edited by hand.
+    public void recordLoad() {
+        fetchStoredRows((problem, algorithm, rows) -> saveLoadShare(teamName, listName, LoadLedger.of(problem, algorithm, rows, problem.getStartEpochMinute())));
+    }
+
+    // Indexes every stored page of the list off the main thread, for suggestions while editing.
+    public void fetchSwapIndex(SwapIndexCallback callback) {
+        fetchStoredRows((problem, algorithm, rows) -> CompletableFuture
+                .supplyAsync(() -> SwapIndex.of(problem, algorithm, rows), SchedulerPool.get())
+                .whenComplete((index, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Error indexing " + listName + " for suggestions.", error);
+                    } else {
+                        mainHandler.post(() -> callback.onIndexReady(index));
+                    }
+                }));
+    }
+
+    // The list's problem with all of its stored rows; nothing is called back if it was never built.
+    private void fetchStoredRows(RowsCallback callback) {
+        fetchWatchList(Collections.<String>emptyList(), (data, posts, problem) -> {
+            Algorithm algorithm = algorithmOf((String) data.get("algorithm"));
+            List<Map<String, String>> firstPage = (List<Map<String, String>>) data.get("schedule");
+            if (algorithm == null || firstPage == null) {
+                return;
+            }
+            keepStoredSlots(data, problem);
+            Number pages = (Number) data.get("numPages");
+            List<String[]> rows = new ArrayList<>();
+            addRows(rows, firstPage, posts);
+            fetchPages(rows, posts, 1, pages != null ? pages.intValue() : 1, () -> callback.onRowsLoaded(problem, algorithm, rows));
+        });
+    }
+
+    // A built current-algorithm list keeps its slots when its roster changes. Lists saved before
+    // the slots were stored have not been repaired since, so their roster still gives the slots.
+    private static void keepStoredSlots(Map<String, Object> data, ScheduleProblem problem) {
+        Number currentSlots = (Number) data.get("currentSlots");
+        List<String> selected = (List<String>) data.get("selectedSoldiers");
+        if (currentSlots != null) {
+            problem.setCurrentSlots(currentSlots.intValue());
+        } else if (selected != null) {
+            problem.setCurrentSlots(selected.size());
+        }
+    }
+
+    static LoadLedger toLedger(Map<String, Map<String, Long>> loads) {
+        LoadLedger ledger = new LoadLedger();
+        for (Map.Entry<String, Map<String, Long>> entry : loads.entrySet()) {
+            Map<String, Long> load = entry.getValue();
+            Long lastEnd = load.get("lastEnd");
+            ledger.add(entry.getKey(), valueOf(load.get("minutes")), valueOf(load.get("nightMinutes")), lastEnd != null ? lastEnd : LoadLedger.NO_SHIFT);
+        }
+        return ledger;
+    }
+
+    static Map<String, Map<String, Long>> toLoads(LoadLedger ledger) {
+        Map<String, Map<String, Long>> loads = new HashMap<>();
+        for (String name : ledger.getNames()) {
+            Map<String, Long> load = new HashMap<>();
+            load.put("minutes", ledger.getMinutes(name));
+            load.put("nightMinutes", ledger.getNightMinutes(name));
+            load.put("lastEnd", ledger.getLastEnd(name));
+            loads.put(name, load);
+        }
+        return loads;
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0;
+    }
+
+    // Converts absolute intervals to minutes from the list start, dropping those outside the list.
+    static Map<String, List<int[]>> toListMinutes(Map<String, List<Unavailability>> unavailability, long listStartMillis, int durationMinutes) {
+        Map<String, List<int[]>> intervals = new HashMap<>();
+        long listEndMillis = listStartMillis + durationMinutes * 60000L;
+        for (Map.Entry<String, List<Unavailability>> entry : unavailability.entrySet()) {
+            List<int[]> memberIntervals = new ArrayList<>();
+            for (Unavailability interval : entry.getValue()) {
+                long from = Math.max(interval.getFrom(), listStartMillis);
+                long to = Math.min(interval.getTo(), listEndMillis);
+                if (from < to) {
+                    memberIntervals.add(new int[]{(int) ((from - listStartMillis) / 60000), (int) ((to - listStartMillis + 59999) / 60000)});
+                }
+            }
+            if (!memberIntervals.isEmpty()) {
+                intervals.put(entry.getKey(), memberIntervals);
             }
-            int[] currentTime = addMinutes(startHour, startMinute, i * timeSlotDuration);
-            int hour = currentTime[0];
-            int minute = roundUpToNearest5(currentTime[1]);
-            row.put("Time", String.format("%02d:%02d", hour, minute));
-            scheduleList.add(row);
         }
+        return intervals;
+    }
 
+    // The list document keeps the first day under "schedule" so single-day lists read as before.
+    // Every later day of a multi-day list is written as its own page, one request at a time.
+    public static void saveScheduleToFirestore(String teamName, String listName, Schedule schedule) {
         Map<String, Object> scheduleData = new HashMap<>();
-        scheduleData.put("schedule", scheduleList);
+        scheduleData.put("schedule", ListSettings.pageRows(schedule, 0));
+        scheduleData.put("numPages", schedule.getSlots().numDays());
+        scheduleData.put("currentSlots", schedule.getProblem().getCurrentSlots());
         scheduleData.put("timestamp", System.currentTimeMillis());
-        scheduleData.put("algorithm", algorithm);
+        scheduleData.put("algorithm", schedule.getAlgorithm().getLabel());
 
         Call<Void> call = RetrofitClient.getApi().saveSchedule(teamName, listName, scheduleData);
         call.enqueue(new Callback<Void>() {
@@ -96,6 +328,8 @@ public class BuildListHelper {
             public void onResponse(Call<Void> call, Response<Void> response) {
                 if (response.isSuccessful()) {
                     Log.d(TAG, "Schedule successfully saved!");
+                    saveSchedulePage(teamName, listName, schedule, 1);
+                    saveLoadShare(teamName, listName, LoadLedger.of(schedule, schedule.getProblem().getStartEpochMinute()));
                 } else {
                     Log.w(TAG, "Error saving schedule. Response code: " + response.code());
                 }
@@ -108,6 +342,163 @@ public class BuildListHelper {
         });
     }
 
+    private static void saveSchedulePage(String teamName, String listName, Schedule schedule, int page) {
+        if (page >= schedule.getSlots().numDays()) {
+            return;
+        }
+        Map<String, Object> pageData = new HashMap<>();
+        pageData.put("schedule", ListSettings.pageRows(schedule, page));
+
+        RetrofitClient.getApi().saveSchedulePage(teamName, listName, page, pageData).enqueue(new Callback<Void>() {
+            @Override
+            public void onResponse(Call<Void> call, Response<Void> response) {
+                if (response.isSuccessful()) {
+                    saveSchedulePage(teamName, listName, schedule, page + 1);
+                } else {
+                    Log.w(TAG, "Error saving schedule page " + page + ". Response code: " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                Log.e(TAG, "Error saving schedule page " + page + ".", t);
+            }
+        });
+    }
+
+    // Takes members who left the team off this list. Only the shifts they held are handed to
+    // others; the rest of the stored schedule is kept as it is and only changed days are saved.
+    // Current-algorithm lists keep the slots they were split into for the roster they were built with.
+    public void repairRoster(List<String> removedMembers) {
+        fetchWatchList(removedMembers, (data, posts, problem) -> {
+            List<String> selected = (List<String>) data.get("selectedSoldiers");
+            Algorithm algorithm = algorithmOf((String) data.get("algorithm"));
+            List<Map<String, String>> firstPage = (List<Map<String, String>>) data.get("schedule");
+            if (selected == null || selected.size() == problem.getNumSoldiers() || algorithm == null || firstPage == null) {
+                return; // Nobody on this list left, or it was never built
+            }
+            keepStoredSlots(data, problem);
+            Number pages = (Number) data.get("numPages");
+            List<String[]> rows = new ArrayList<>();
+            addRows(rows, firstPage, posts);
+            fetchPages(rows, posts, 1, pages != null ? pages.intValue() : 1, () -> CompletableFuture
+                    .supplyAsync(() -> ScheduleRepair.repair(problem, algorithm, rows), SchedulerPool.get())
+                    .whenComplete((repair, error) -> {
+                        if (error != null) {
+                            Log.w(TAG, "Schedule of " + listName + " no longer matches its settings, not repaired", error);
+                        } else {
+                            saveRepair(repair);
+                        }
+                    }));
+        });
+    }
+
+    private void fetchPages(List<String[]> rows, List<String> posts, int page, int numPages, Runnable onComplete) {
+        if (page >= numPages) {
+            onComplete.run();
+            return;
+        }
+        RetrofitClient.getApi().getSchedulePage(teamName, listName, page).enqueue(new Callback<Map<String, Object>>() {
+            @Override
+            public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    addRows(rows, (List<Map<String, String>>) response.body().get("schedule"), posts);
+                    fetchPages(rows, posts, page + 1, numPages, onComplete);
+                } else {
+                    Log.e(TAG, "Error fetching schedule page " + page + ". Response code: " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+                Log.e(TAG, "Error fetching schedule page " + page + ".", t);
+            }
+        });
+    }
+
+    private void saveRepair(ScheduleRepair repair) {
+        Schedule schedule = repair.getSchedule();
+        TimeSlots slots = schedule.getSlots();
+        Log.d(TAG, "Repaired " + repair.getChangedSlots().length + " slots of " + listName + ", " + repair.getUnfilled() + " seats left open");
+
+        // Day 0 is always written since it carries the updated roster.
+        Map<String, Object> scheduleData = new HashMap<>();
+        scheduleData.put("schedule", ListSettings.pageRows(schedule, 0));
+        scheduleData.put("selectedSoldiers", schedule.getProblem().getSoldiers().getNames());
+        scheduleData.put("numSoldiers", schedule.getProblem().getNumSoldiers());
+        scheduleData.put("currentSlots", schedule.getProblem().getCurrentSlots());
+        RetrofitClient.getApi().saveSchedule(teamName, listName, scheduleData).enqueue(new Callback<Void>() {
+            @Override
+            public void onResponse(Call<Void> call, Response<Void> response) {
+                if (response.isSuccessful()) {
+                    saveLoadShare(teamName, listName, LoadLedger.of(schedule, schedule.getProblem().getStartEpochMinute()));
+                } else {
+                    Log.w(TAG, "Error saving repaired schedule. Response code: " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                Log.e(TAG, "Error saving repaired schedule.", t);
+            }
+        });
+
+        int lastPage = 0;
+        for (int slot : repair.getChangedSlots()) {
+            int page = slots.getOffset(slot) / (24 * 60);
+            if (page > lastPage) {
+                lastPage = page;
+                Map<String, Object> pageData = new HashMap<>();
+                pageData.put("schedule", ListSettings.pageRows(schedule, page));
+                RetrofitClient.getApi().saveSchedulePage(teamName, listName, page, pageData).enqueue(new Callback<Void>() {
+                    @Override
+                    public void onResponse(Call<Void> call, Response<Void> response) {
+                        if (!response.isSuccessful()) {
+                            Log.w(TAG, "Error saving repaired page " + page + ". Response code: " + response.code());
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Call<Void> call, Throwable t) {
+                        Log.e(TAG, "Error saving repaired page " + page + ".", t);
+                    }
+                });
+            }
+        }
+    }
+
+    // Checks one day of the list, as edited by hand, against the roster and staffing of the list.
+    public static ScheduleValidator validatePage(ScheduleProblem problem, Algorithm algorithm, int page, List<Map<String, String>> pageRows) {
+        List<String> posts = new ArrayList<>();
+        for (int j = 0; j < problem.getNumPosts(); j++) {
+            posts.add(problem.getPost(j));
+        }
+        List<String[]> rows = new ArrayList<>();
+        addRows(rows, pageRows, posts);
+        int fromSlot = TimeSlots.forAlgorithm(problem, algorithm).firstSlotOfDay(page);
+        return ScheduleValidator.validate(problem, algorithm, fromSlot, rows);
+    }
+
+    private static void addRows(List<String[]> rows, List<Map<String, String>> page, List<String> posts) {
+        for (Map<String, String> row : page) {
+            String[] cells = new String[posts.size() + 1];
+            cells[0] = row.get("Time");
+            for (int j = 0; j < posts.size(); j++) {
+                cells[j + 1] = row.get(posts.get(j));
+            }
+            rows.add(cells);
+        }
+    }
+
+    private static Algorithm algorithmOf(String label) {
+        for (Algorithm algorithm : Algorithm.values()) {
+            if (algorithm.getLabel().equals(label)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
 
     public static void deleteList(String teamName, String listName) {
         Call<Void> call = RetrofitClient.getApi().deleteList(teamName, listName);
@@ -129,139 +520,498 @@ public class BuildListHelper {
     }
 
     public interface ParallelCallback {
-        void onParallelComplete(List<String[][]> schedules, List<String[][]> balancedSchedules);
-    }
-
-    public static void runInParallel(List<String> soldiers, int startHour, int startMinute, int numSoldiers, int durationMinutes, List<String> posts, int numPosts, Map<String, Integer> dayTimeSoldiers, Map<String, Integer> nightTimeSoldiers, int dayStartHour, int dayStartMinute, int dayEndHour, int dayEndMinute, ParallelCallback callback) {
-        ExecutorService executor = Executors.newFixedThreadPool(2);
-
-        Callable<String[][]> task1 = () -> distributeSoldiersCurrentAlgorithm(soldiers, startHour, startMinute, numSoldiers, durationMinutes, posts, numPosts, dayTimeSoldiers, nightTimeSoldiers, dayStartHour, dayStartMinute, dayEndHour, dayEndMinute);
-        Callable<String[][]> task2 = () -> distributeSoldiersBalancedAlgorithm(soldiers, startHour, startMinute, numSoldiers, durationMinutes, posts, numPosts, dayTimeSoldiers, nightTimeSoldiers, dayStartHour, dayStartMinute, dayEndHour, dayEndMinute);
+        void onParallelComplete(List<Schedule> schedules, List<Schedule> balancedSchedules);
 
-        try {
-            Future<String[][]> future1 = executor.submit(task1);
-            Future<String[][]> future2 = executor.submit(task2);
-
-            String[][] schedule1 = future1.get();
-            String[][] schedule2 = future2.get();
+        void onProgress(int completed, int total);
+    }
 
-            List<String[][]> schedules = new ArrayList<>();
-            List<String[][]> balancedSchedules = new ArrayList<>();
+    // Runs both algorithms on the engine chosen for the problem and reports back on the main thread.
+    public static GenerationHandle runInParallel(Context context, ScheduleProblem problem, ParallelCallback callback) {
+        GenerationHandle handle = new GenerationHandle();
+        AtomicInteger completed = new AtomicInteger();
+
+        SharedPreferences preferences = context.getApplicationContext().getSharedPreferences(SettingsActivity.PREFS_NAME, Context.MODE_PRIVATE);
+        // Weighing the problem walks its whole demand table, so the engine is chosen on the pool.
+        CompletableFuture<ScheduleEngine> engine = CompletableFuture.supplyAsync(() -> engineFor(preferences, problem), SchedulerPool.get());
+        CompletableFuture<Schedule> future1 = engine.thenCompose(e -> generateTimed(e, handle, preferences, problem, Algorithm.CURRENT));
+        CompletableFuture<Schedule> future2 = engine.thenCompose(e -> generateTimed(e, handle, preferences, problem, Algorithm.BALANCED));
+        handle.add(engine);
+        handle.add(future1);
+        handle.add(future2);
+
+        Runnable progress = () -> {
+            int done = completed.incrementAndGet();
+            postToMainThread(handle, () -> callback.onProgress(done, 2));
+        };
+        future1.thenRun(progress);
+        future2.thenRun(progress);
+
+        future1.thenAcceptBoth(future2, (schedule1, schedule2) -> {
+            List<Schedule> schedules = new ArrayList<>();
+            List<Schedule> balancedSchedules = new ArrayList<>();
             schedules.add(schedule1);
             balancedSchedules.add(schedule2);
+            postToMainThread(handle, () -> callback.onParallelComplete(schedules, balancedSchedules));
+        }).exceptionally(t -> {
+            if (!handle.isCancelled()) {
+                Log.e(TAG, "Error generating schedules.", t);
+            }
+            return null;
+        });
+        return handle;
+    }
 
-            callback.onParallelComplete(schedules, balancedSchedules);
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-        } finally {
-            executor.shutdown();
+    // Lists this phone is expected to take longer than OFFLOAD_MILLIS on go to the generation
+    // server, when one is set. The expectation comes from the speed measured on earlier lists;
+    // until there is one, lists are generated here.
+    private static ScheduleEngine engineFor(SharedPreferences preferences, ScheduleProblem problem) {
+        String server = preferences.getString(SettingsActivity.GENERATION_SERVER_KEY, "").trim();
+        float workPerMilli = preferences.getFloat(WORK_PER_MILLI_KEY, 0);
+        if (!server.isEmpty() && workPerMilli > 0
+                && LocalScheduleEngine.workOf(problem, Algorithm.BALANCED) / workPerMilli > OFFLOAD_MILLIS) {
+            try {
+                return new OffloadScheduleEngine(RetrofitClient.getApi(server));
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Bad generation server address " + server, e);
+            }
         }
+        return new LocalScheduleEngine();
     }
 
-    private static String[][] distributeSoldiersCurrentAlgorithm(List<String> soldiers, int startHour, int startMinute, int numSoldiers, int durationMinutes, List<String> posts, int numPosts, Map<String, Integer> dayTimeSoldiers, Map<String, Integer> nightTimeSoldiers, int dayStartHour, int dayStartMinute, int dayEndHour, int dayEndMinute) {
-        Queue<String> queue1 = new LinkedList<>(soldiers);
-        Queue<String> queue2 = new LinkedList<>();
+    // Schedules generated here also update the phone's measured speed, averaged over recent lists.
+    // The engine gets the handle and its own future is added to it, so cancelling also stops a
+    // generation that is already running.
+    private static CompletableFuture<Schedule> generateTimed(ScheduleEngine engine, GenerationHandle handle, SharedPreferences preferences, ScheduleProblem problem, Algorithm algorithm) {
+        CompletableFuture<Schedule> future;
+        if (engine instanceof LocalScheduleEngine) {
+            future = ((LocalScheduleEngine) engine).generate(problem, algorithm, handle, nanos -> {
+                long millis = Math.max(1, nanos / 1_000_000);
+                float measured = (float) LocalScheduleEngine.workOf(problem, algorithm) / millis;
+                float previous = preferences.getFloat(WORK_PER_MILLI_KEY, 0);
+                float average = previous > 0 ? previous + SPEED_WEIGHT * (measured - previous) : measured;
+                preferences.edit().putFloat(WORK_PER_MILLI_KEY, average).apply();
+            });
+        } else {
+            future = engine.generate(problem, algorithm, handle);
+        }
+        handle.add(future);
+        return future;
+    }
+
+    public interface PreviewCallback {
+        // schedule, metrics and validation are null when the settings do not make a list yet.
+        void onPreviewReady(Schedule schedule, ScheduleMetrics metrics, ScheduleValidator validation);
+    }
 
-        float timeSlotDuration = (float) durationMinutes / numSoldiers;
-        if (timeSlotDuration <= 0) {
-            Log.e(TAG, "Time slot duration is invalid. Check duration and numSoldiers values.");
+    // One balanced schedule of list settings that are still being edited, with the figures shown
+    // for it. Settings are read into a problem on the pool too, so the caller only copies its fields.
+    public static GenerationHandle previewSchedule(Map<String, Object> data, Map<String, Long> qualifications, PreviewCallback callback) {
+        GenerationHandle handle = new GenerationHandle();
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            ScheduleProblem problem = problemOf(data, Collections.<String>emptyList());
+            problem.setSoldierQualifications(qualifications);
+            // Settings edited again cancel this preview, which then stops at its next slot.
+            Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED, problem.getRotationOrder(), handle);
+            ScheduleMetrics metrics = ScheduleMetrics.of(schedule);
+            ScheduleValidator validation = ScheduleValidator.validate(schedule);
+            postToMainThread(handle, () -> callback.onPreviewReady(schedule, metrics, validation));
+        }, SchedulerPool.get());
+        handle.add(future);
+        future.exceptionally(t -> {
+            postToMainThread(handle, () -> callback.onPreviewReady(null, null, null));
             return null;
-        }
+        });
+        return handle;
+    }
+
+    public interface SeriesCallback {
+        // numLists is 0 when the lists could not be generated or uploaded; nothing was added then.
+        void onSeriesSaved(int numLists);
+    }
 
-        int numTimeSlots = (int) Math.ceil(durationMinutes / timeSlotDuration); // Duration in minutes
-        String[][] schedule = new String[numPosts][numTimeSlots];
+    // Lists made from a template, given in date order as ListSettings.series makes them. Team data is
+    // read once for all of them, every list is generated in one pass on the pool with the rotation
+    // carried from list to list, and the lists, their pages and their loads go up in one request.
+    public static void generateSeries(String teamName, List<Map<String, Object>> lists, Algorithm algorithm, SeriesCallback callback) {
+        FirebaseApi api = RetrofitClient.getApi();
+        fetchTeamData(api.getQualifications(teamName), "qualifications", qualifications ->
+                fetchTeamData(api.getUnavailability(teamName), "unavailability", unavailability ->
+                        fetchTeamData(api.getLoadLedger(teamName, null, earliestStart(lists)), "load ledger", loads -> CompletableFuture
+                                .supplyAsync(() -> seriesPayload(lists, algorithm, qualifications, unavailability, loads), SchedulerPool.get())
+                                .whenComplete((payload, error) -> {
+                                    if (error != null) {
+                                        Log.e(TAG, "Error generating lists from template.", error);
+                                        mainHandler.post(() -> callback.onSeriesSaved(0));
+                                    } else {
+                                        saveSeries(teamName, payload, callback);
+                                    }
+                                }))));
+    }
 
-        for (int i = 0; i < numTimeSlots; i++) {
-            int[] currentTime = addMinutes(startHour, startMinute, (int) (i * timeSlotDuration));
-            int currentHour = currentTime[0];
-            int currentMinute = roundUpToNearest5(currentTime[1]);
-            for (int j = 0; j < numPosts; j++) {
-                String postName = posts.get(j);
-                int soldiersNeeded = getSoldiersNeeded(postName, currentHour, currentMinute, dayTimeSoldiers, nightTimeSoldiers, dayStartHour, dayStartMinute, dayEndHour, dayEndMinute);
-                StringBuilder assignedSoldiers = new StringBuilder();
+    // Epoch minute at which the first of lists starts, or null when there are none. The team's load
+    // is read up to then, so lists dated later do not hold anyone's rest into these.
+    private static Long earliestStart(List<Map<String, Object>> lists) {
+        Long earliest = null;
+        for (Map<String, Object> data : lists) {
+            long start = parseListStart((String) data.get("startDate"), ListSettings.parseTime((String) data.get("startHour"))) / 60000;
+            earliest = earliest == null ? start : Math.min(earliest, start);
+        }
+        return earliest;
+    }
 
-                for (int k = 0; k < soldiersNeeded; k++) {
-                    if (queue1.isEmpty()) {
-                        Queue<String> temp = queue1;
-                        queue1 = queue2;
-                        queue2 = temp;
-                    }
-                    if (!queue1.isEmpty()) {
-                        String soldier = queue1.poll();
-                        assignedSoldiers.append(soldier).append(", ");
-                        queue2.offer(soldier);
-                    }
+    // Team data a series is built from. A failed read is logged and the series is built without it,
+    // as a single list is.
+    private static <T> void fetchTeamData(Call<T> call, String what, Consumer<T> then) {
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    then.accept(response.body());
+                } else {
+                    Log.e(TAG, "Error fetching " + what + ". Response code: " + response.code());
+                    then.accept(null);
                 }
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                Log.e(TAG, "Error fetching " + what + ".", t);
+                then.accept(null);
+            }
+        });
+    }
 
-                schedule[j][i] = assignedSoldiers.length() > 0 ? assignedSoldiers.substring(0, assignedSoldiers.length() - 2) : "";
+    // Every list of the series with its schedule, in the addLists shape.
+    private static List<Map<String, Object>> seriesPayload(List<Map<String, Object>> lists, Algorithm algorithm, Map<String, Long> qualifications,
+                                                           Map<String, List<Unavailability>> unavailability, Map<String, Map<String, Long>> loads) {
+        List<ScheduleProblem> problems = new ArrayList<>();
+        for (Map<String, Object> data : lists) {
+            ScheduleProblem problem = problemOf(data, Collections.<String>emptyList());
+            if (qualifications != null) {
+                problem.setSoldierQualifications(qualifications);
             }
+            if (unavailability != null) {
+                long listStartMillis = parseListStart((String) data.get("startDate"), ListSettings.parseTime((String) data.get("startHour")));
+                problem.setUnavailability(toListMinutes(unavailability, listStartMillis, problem.getDurationMinutes()));
+            }
+            problems.add(problem);
         }
+        List<Schedule> schedules = ScheduleGenerator.generateSeries(problems, algorithm, loads != null ? toLedger(loads) : null);
 
-        return schedule;
+        List<Map<String, Object>> payload = new ArrayList<>();
+        long timestamp = System.currentTimeMillis();
+        for (int i = 0; i < schedules.size(); i++) {
+            payload.add(listPayload(lists.get(i), schedules.get(i), timestamp));
+        }
+        return payload;
     }
 
-    private static String[][] distributeSoldiersBalancedAlgorithm(List<String> soldiers, int startHour, int startMinute, int numSoldiers, int durationMinutes, List<String> posts, int numPosts, Map<String, Integer> dayTimeSoldiers, Map<String, Integer> nightTimeSoldiers, int dayStartHour, int dayStartMinute, int dayEndHour, int dayEndMinute) {
-        Queue<String> soldierQueue = new LinkedList<>(soldiers);
+    // One list with its schedule in the addLists shape: the list document, its later days as
+    // pages, and its share of the team's load.
+    private static Map<String, Object> listPayload(Map<String, Object> data, Schedule schedule, long timestamp) {
+        Map<String, Object> listData = new HashMap<>(data);
+        listData.put("schedule", ListSettings.pageRows(schedule, 0));
+        listData.put("numPages", schedule.getSlots().numDays());
+        listData.put("currentSlots", schedule.getProblem().getCurrentSlots());
+        listData.put("timestamp", timestamp);
+        listData.put("algorithm", schedule.getAlgorithm().getLabel());
+        List<Map<String, Object>> pages = new ArrayList<>();
+        for (int page = 1; page < schedule.getSlots().numDays(); page++) {
+            Map<String, Object> pageData = new HashMap<>();
+            pageData.put("schedule", ListSettings.pageRows(schedule, page));
+            pages.add(pageData);
+        }
+        Map<String, Object> list = new HashMap<>();
+        list.put("listData", listData);
+        list.put("pages", pages);
+        list.put("loads", toLoads(LoadLedger.of(schedule, schedule.getProblem().getStartEpochMinute())));
+        return list;
+    }
 
-        int timeSlotDuration = 60; // 1 hour in minutes
+    private static void saveSeries(String teamName, List<Map<String, Object>> payload, SeriesCallback callback) {
+        RetrofitClient.getApi().addLists(teamName, payload).enqueue(new Callback<Void>() {
+            @Override
+            public void onResponse(Call<Void> call, Response<Void> response) {
+                if (response.isSuccessful()) {
+                    Log.d(TAG, payload.size() + " lists successfully added!");
+                    callback.onSeriesSaved(payload.size());
+                } else {
+                    Log.w(TAG, "Error adding lists. Response code: " + response.code());
+                    callback.onSeriesSaved(0);
+                }
+            }
 
-        int numTimeSlots = durationMinutes / timeSlotDuration;
-        String[][] schedule = new String[numPosts][numTimeSlots];
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                Log.e(TAG, "Error adding lists.", t);
+                callback.onSeriesSaved(0);
+            }
+        });
+    }
+
+    public interface PoolCallback {
+        // numLists counts the lists saved; lists of a team whose upload failed are left unbuilt.
+        void onPoolSaved(int numLists);
+    }
+
+    // What one team brings to a pooled generation. Missing data is null, as fetchTeamData gives it.
+    private static class PoolTeam {
+        final String teamName;
+        List<Map<String, Object>> lists;
+        Map<String, Long> qualifications;
+        Map<String, List<Unavailability>> unavailability;
+        Map<String, Map<String, Long>> loads;
 
-        for (int i = 0; i < numTimeSlots; i++) {
-            int[] currentTime = addMinutes(startHour, startMinute, i * timeSlotDuration);
-            int currentHour = currentTime[0];
-            int currentMinute = currentTime[1];
-            for (int j = 0; j < numPosts; j++) {
-                String postName = posts.get(j);
-                int soldiersNeeded = getSoldiersNeeded(postName, currentHour, currentMinute, dayTimeSoldiers, nightTimeSoldiers, dayStartHour, dayStartMinute, dayEndHour, dayEndMinute);
-                StringBuilder assignedSoldiers = new StringBuilder();
+        PoolTeam(String teamName) {
+            this.teamName = teamName;
+        }
+    }
 
-                for (int k = 0; k < soldiersNeeded; k++) {
-                    if (!soldierQueue.isEmpty()) {
-                        String soldier = soldierQueue.poll();
-                        assignedSoldiers.append(soldier).append(", ");
-                        soldierQueue.offer(soldier);
+    // Builds every list not built yet of teams that lend soldiers to each other, all in one pool
+    // so a soldier on several rosters is never on two shifts at once. Teams are read one after
+    // another, the lists are generated together on the scheduler pool, and each team's lists go
+    // up in one addLists request.
+    public static void generatePooled(List<String> teamNames, PoolCallback callback) {
+        fetchPoolTeams(teamNames, 0, new ArrayList<>(), teams -> CompletableFuture
+                .supplyAsync(() -> poolPayloads(teams), SchedulerPool.get())
+                .whenComplete((payloads, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Error generating pooled lists.", error);
+                        mainHandler.post(() -> callback.onPoolSaved(0));
+                    } else {
+                        savePool(payloads, callback);
                     }
+                }));
+    }
+
+    private static void fetchPoolTeams(List<String> teamNames, int index, List<PoolTeam> teams, Consumer<List<PoolTeam>> then) {
+        if (index == teamNames.size()) {
+            then.accept(teams);
+            return;
+        }
+        FirebaseApi api = RetrofitClient.getApi();
+        PoolTeam team = new PoolTeam(teamNames.get(index));
+        fetchTeamData(api.getWatchListData(team.teamName), "lists of " + team.teamName, lists -> {
+            team.lists = lists;
+            fetchTeamData(api.getQualifications(team.teamName), "qualifications", qualifications -> {
+                team.qualifications = qualifications;
+                fetchTeamData(api.getUnavailability(team.teamName), "unavailability", unavailability -> {
+                    team.unavailability = unavailability;
+                    fetchTeamData(api.getLoadLedger(team.teamName, null, lists != null ? earliestStart(unbuilt(lists)) : null), "load ledger", loads -> {
+                        team.loads = loads;
+                        teams.add(team);
+                        fetchPoolTeams(teamNames, index + 1, teams, then);
+                    });
+                });
+            });
+        });
+    }
+
+    // The generated lists by team, in the addLists shape. Every list starts its rotation and
+    // carries rest from the load of all the pooled teams, so a soldier who worked for another team
+    // counts that work here too.
+    private static Map<String, List<Map<String, Object>>> poolPayloads(List<PoolTeam> teams) {
+        LoadLedger history = new LoadLedger();
+        for (PoolTeam team : teams) {
+            if (team.loads != null) {
+                history.addAll(toLedger(team.loads));
+            }
+        }
+        TeamPool pool = new TeamPool();
+        Map<String, Map<String, Object>> listData = new HashMap<>();
+        Map<String, String> teamOf = new HashMap<>();
+        for (PoolTeam team : teams) {
+            if (team.lists == null) {
+                continue;
+            }
+            for (Map<String, Object> data : unbuilt(team.lists)) {
+                ScheduleProblem problem = problemOf(data, Collections.<String>emptyList());
+                if (team.qualifications != null) {
+                    problem.setSoldierQualifications(team.qualifications);
+                }
+                if (team.unavailability != null) {
+                    long listStartMillis = parseListStart((String) data.get("startDate"), ListSettings.parseTime((String) data.get("startHour")));
+                    problem.setUnavailability(toListMinutes(team.unavailability, listStartMillis, problem.getDurationMinutes()));
                 }
+                problem.setHistory(history, problem.getStartEpochMinute());
+                String key = team.teamName + "/" + data.get("listName");
+                pool.add(key, problem);
+                listData.put(key, data);
+                teamOf.put(key, team.teamName);
+            }
+        }
+        Log.d(TAG, "Pooling " + listData.size() + " lists of " + pool.getSoldiers().size() + " soldiers in " + pool.groups().size() + " groups");
+
+        Map<String, List<Map<String, Object>>> payloads = new HashMap<>();
+        long timestamp = System.currentTimeMillis();
+        for (Map.Entry<String, Schedule> entry : pool.generate(Algorithm.BALANCED).entrySet()) {
+            String teamName = teamOf.get(entry.getKey());
+            if (!payloads.containsKey(teamName)) {
+                payloads.put(teamName, new ArrayList<>());
+            }
+            payloads.get(teamName).add(listPayload(listData.get(entry.getKey()), entry.getValue(), timestamp));
+        }
+        return payloads;
+    }
 
-                schedule[j][i] = assignedSoldiers.length() > 0 ? assignedSoldiers.substring(0, assignedSoldiers.length() - 2) : "";
+    // Lists of a team that were saved without a schedule yet.
+    private static List<Map<String, Object>> unbuilt(List<Map<String, Object>> lists) {
+        List<Map<String, Object>> unbuilt = new ArrayList<>();
+        for (Map<String, Object> data : lists) {
+            if (data.get("schedule") == null && data.get("listName") != null) {
+                unbuilt.add(data);
             }
         }
+        return unbuilt;
+    }
+
+    private static void savePool(Map<String, List<Map<String, Object>>> payloads, PoolCallback callback) {
+        if (payloads.isEmpty()) {
+            mainHandler.post(() -> callback.onPoolSaved(0));
+            return;
+        }
+        AtomicInteger remaining = new AtomicInteger(payloads.size());
+        AtomicInteger saved = new AtomicInteger();
+        for (Map.Entry<String, List<Map<String, Object>>> entry : payloads.entrySet()) {
+            String teamName = entry.getKey();
+            List<Map<String, Object>> payload = entry.getValue();
+            saveSeries(teamName, payload, numLists -> {
+                saved.addAndGet(numLists);
+                if (remaining.decrementAndGet() == 0) {
+                    callback.onPoolSaved(saved.get());
+                }
+            });
+        }
+    }
+
+    private static synchronized ScheduleCache scheduleCache(Context context) {
+        if (scheduleCache == null) {
+            scheduleCache = new ScheduleCache(new File(context.getApplicationContext().getCacheDir(), "schedules"), CACHE_BYTES);
+        }
+        return scheduleCache;
+    }
+
+    // Hashes the problem and reads any schedules stored for it off the main thread; schedules is
+    // null on a miss, and key is null too if the cache could not be used at all.
+    public static void checkCache(Context context, ScheduleProblem problem, String variant, CacheCallback callback) {
+        ScheduleCache cache = scheduleCache(context);
+        CompletableFuture.runAsync(() -> {
+            String key = ScheduleCache.key(problem, variant);
+            List<Schedule> schedules = cache.get(key, problem);
+            mainHandler.post(() -> callback.onCacheChecked(key, schedules));
+        }, SchedulerPool.get()).exceptionally(t -> {
+            Log.e(TAG, "Error reading schedule cache.", t);
+            mainHandler.post(() -> callback.onCacheChecked(null, null));
+            return null;
+        });
+    }
+
+    public static void cacheSchedules(Context context, String key, List<Schedule> schedules) {
+        ScheduleCache cache = scheduleCache(context);
+        CompletableFuture.runAsync(() -> {
+            try {
+                cache.put(key, schedules);
+            } catch (IOException e) {
+                Log.w(TAG, "Error caching schedules.", e);
+            }
+        }, SchedulerPool.get());
+    }
 
-        return schedule;
+    public static GenerationHandle generateCandidates(ScheduleProblem problem, int numCandidates, int topK, long seed, CandidateGenerator.Listener listener) {
+        MainThreadListener mainThreadListener = new MainThreadListener(listener);
+        mainThreadListener.handle = new CandidateGenerator(problem, numCandidates, topK, seed).generate(mainThreadListener);
+        return mainThreadListener.handle;
     }
 
-    private static int getSoldiersNeeded(String postName, int currentHour, int currentMinute, Map<String, Integer> dayTimeSoldiers, Map<String, Integer> nightTimeSoldiers, int dayStartHour, int dayStartMinute, int dayEndHour, int dayEndMinute) {
-        boolean isDay = (currentHour > dayStartHour || (currentHour == dayStartHour && currentMinute >= dayStartMinute)) &&
-                (currentHour < dayEndHour || (currentHour == dayEndHour && currentMinute <= dayEndMinute));
-        return isDay ? dayTimeSoldiers.get(postName) : nightTimeSoldiers.get(postName);
+    // Improves the fairness of a schedule for up to the given time, one annealing restart per core
+    // but one, so the pool still has a worker for generating while the optimizer runs.
+    public static GenerationHandle optimizeSchedule(Schedule schedule, long timeBudgetMillis, FairnessOptimizer.Listener listener) {
+        int restarts = FairnessOptimizer.maxRestarts();
+        MainThreadOptimizerListener mainThreadListener = new MainThreadOptimizerListener(listener);
+        mainThreadListener.handle = new FairnessOptimizer(schedule, timeBudgetMillis, restarts, System.nanoTime()).optimize(mainThreadListener);
+        return mainThreadListener.handle;
     }
 
-    private static int[] parseTime(String time) {
-        String[] parts = time.split(":");
-        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    private static void postToMainThread(GenerationHandle handle, Runnable runnable) {
+        mainHandler.post(() -> {
+            if (!handle.isCancelled()) {
+                runnable.run();
+            }
+        });
     }
 
-    private static int[] parseDayTimes(String dayStart, String dayEnd) {
-        int[] dayTimes = new int[4];
-        String[] dayStartParts = dayStart.split(":");
-        String[] dayEndParts = dayEnd.split(":");
-        dayTimes[0] = Integer.parseInt(dayStartParts[0]);
-        dayTimes[1] = Integer.parseInt(dayStartParts[1]);
-        dayTimes[2] = Integer.parseInt(dayEndParts[0]);
-        dayTimes[3] = Integer.parseInt(dayEndParts[1]);
-        return dayTimes;
+    // Forwards generator callbacks from the pool threads to the main thread, dropping them once cancelled.
+    // The handle is assigned on the main thread before any posted callback can run.
+    private static class MainThreadListener implements CandidateGenerator.Listener {
+        private final CandidateGenerator.Listener listener;
+        private GenerationHandle handle;
+
+        MainThreadListener(CandidateGenerator.Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onCandidateAccepted(ScheduleCandidate candidate, int rank, ScheduleCandidate evicted) {
+            post(() -> listener.onCandidateAccepted(candidate, rank, evicted));
+        }
+
+        @Override
+        public void onProgress(int completed, int total) {
+            post(() -> listener.onProgress(completed, total));
+        }
+
+        @Override
+        public void onComplete(List<ScheduleCandidate> best) {
+            post(() -> listener.onComplete(best));
+        }
+
+        private void post(Runnable runnable) {
+            mainHandler.post(() -> {
+                if (!handle.isCancelled()) {
+                    runnable.run();
+                }
+            });
+        }
     }
 
-    private static int[] addMinutes(int hour, int minute, int minutesToAdd) {
-        int totalMinutes = hour * 60 + minute + minutesToAdd;
-        int newHour = (totalMinutes / 60) % 24;
-        int newMinute = (totalMinutes % 60);
-        return new int[]{newHour, newMinute};
+    private static class MainThreadOptimizerListener implements FairnessOptimizer.Listener {
+        private final FairnessOptimizer.Listener listener;
+        private GenerationHandle handle;
+
+        MainThreadOptimizerListener(FairnessOptimizer.Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onImproved(Schedule schedule, double objective) {
+            post(() -> listener.onImproved(schedule, objective));
+        }
+
+        @Override
+        public void onComplete(Schedule best, double objective) {
+            post(() -> listener.onComplete(best, objective));
+        }
+
+        private void post(Runnable runnable) {
+            mainHandler.post(() -> {
+                if (!handle.isCancelled()) {
+                    runnable.run();
+                }
+            });
+        }
     }
 
-    private static int roundUpToNearest5(int minute) {
-        return (int) (Math.ceil(minute / 5.0) * 5) % 60;
+    // Lists created before the start date was stored are taken to start today.
+    static long parseListStart(String startDate, int[] times) {
+        Calendar calendar = Calendar.getInstance();
+        if (startDate != null) {
+            String[] parts = startDate.split("/");
+            calendar.set(Integer.parseInt(parts[2]), Integer.parseInt(parts[1]) - 1, Integer.parseInt(parts[0]));
+        }
+        calendar.set(Calendar.HOUR_OF_DAY, times[0]);
+        calendar.set(Calendar.MINUTE, times[1]);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
     }
 }
@@ -1,10 +1,17 @@
 package com.example.watchlist;
 
+import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
 import android.text.InputFilter;
+import android.text.InputType;
 import android.text.Spanned;
+import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
@@ -14,13 +21,23 @@ import android.widget.LinearLayout;
 import android.widget.ScrollView;
 import android.widget.TextView;
 import android.widget.TimePicker;
+import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.watchlist.scheduler.GenerationHandle;
+import com.example.watchlist.scheduler.Schedule;
+import com.example.watchlist.scheduler.ScheduleMetrics;
+import com.example.watchlist.scheduler.ScheduleValidator;
+
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import retrofit2.Call;
@@ -29,6 +46,9 @@ import retrofit2.Response;
 
 public class CreateNewList extends AppCompatActivity {
     private static final String TAG = "CreateNewList";
+    // The preview waits for a pause in editing and covers at most the first day of the list.
+    private static final long PREVIEW_DELAY_MILLIS = 400;
+    private static final int PREVIEW_HOURS = 24;
     private String teamName;
 
     private EditText editTextListName;
@@ -41,6 +61,10 @@ public class CreateNewList extends AppCompatActivity {
     private TextView textViewDayEndHour;
     private TextView textViewNightTime;
     private EditText editTextDuration;
+    private TextView textViewDurationUnit;
+    private boolean durationInDays = false;
+    private EditText editTextMinRest;
+    private TextView textViewStartDate;
 
     private int numPosts = 0;
     private int numSoldiers = 0;
@@ -48,7 +72,16 @@ public class CreateNewList extends AppCompatActivity {
 
     private Map<String, String> membersMap = new HashMap<>();
     private List<String> selectedSoldiers = new ArrayList<>();
+    private List<Map<String, Object>> rules = new ArrayList<>();
+    private TextView textViewNumRules;
+    private List<Map<String, Object>> staffing = new ArrayList<>();
+    private TextView textViewNumStaffing;
     private Map<String, Object> listData = new HashMap<>();
+    private Map<String, Long> qualifications = new HashMap<>();
+    private TextView textViewPreview;
+    private final Handler previewHandler = new Handler(Looper.getMainLooper());
+    private final Runnable previewRunnable = this::runPreview;
+    private GenerationHandle preview;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -69,27 +102,70 @@ public class CreateNewList extends AppCompatActivity {
         buttonChooseSoldiers = findViewById(R.id.buttonChooseSoldiers);
         textViewNumSoldiers = findViewById(R.id.textViewNumSoldiers);
         textViewStartHour = findViewById(R.id.textViewStartHour);
+        textViewStartDate = findViewById(R.id.textViewStartDate);
+        textViewStartDate.setText(new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault()).format(new Date()));
         textViewDayStartHour = findViewById(R.id.textViewDayStartHour);
         textViewDayEndHour = findViewById(R.id.textViewDayEndHour);
         textViewNightTime = findViewById(R.id.textViewNightTime);
         editTextDuration = findViewById(R.id.editTextDuration);
+        textViewDurationUnit = findViewById(R.id.textViewDurationUnit);
+        textViewDurationUnit.setOnClickListener(v -> toggleDurationUnit());
+        editTextMinRest = findViewById(R.id.editTextMinRest);
+        textViewPreview = findViewById(R.id.textViewPreview);
+        editTextDuration.addTextChangedListener(new PreviewWatcher());
+        editTextMinRest.addTextChangedListener(new PreviewWatcher());
 
         findViewById(R.id.buttonDecreasePosts).setOnClickListener(v -> updatePosts(-1));
         findViewById(R.id.buttonIncreasePosts).setOnClickListener(v -> updatePosts(1));
 
         buttonChooseSoldiers.setOnClickListener(v -> showChooseSoldiersDialog());
+        textViewNumRules = findViewById(R.id.textViewNumRules);
+        findViewById(R.id.buttonRules).setOnClickListener(v -> showRulesDialog());
+        textViewNumStaffing = findViewById(R.id.textViewNumStaffing);
+        findViewById(R.id.buttonStaffing).setOnClickListener(v -> showStaffingDialog());
 
         findViewById(R.id.buttonApprove).setOnClickListener(v -> approveList());
+        findViewById(R.id.buttonSaveTemplate).setOnClickListener(v -> askTemplateName());
         findViewById(R.id.buttonCancel).setOnClickListener(v -> finish());
 
         textViewDayStartHour.setOnClickListener(v -> showTimePickerDialog(textViewDayStartHour));
         textViewDayEndHour.setOnClickListener(v -> showTimePickerDialog(textViewDayEndHour));
         textViewStartHour.setOnClickListener(v -> showTimePickerDialog(textViewStartHour));
+        textViewStartDate.setOnClickListener(v -> showDatePickerDialog());
 
         fetchMembersFromApi();
+        fetchQualifications();
 
         // Setup integer filter for duration input
         setupIntegerInputFilter(editTextDuration, 1, 24);
+        setupIntegerInputFilter(editTextMinRest, 0, 24);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        previewHandler.removeCallbacks(previewRunnable);
+        if (preview != null) {
+            preview.cancel();
+        }
+    }
+
+    // Qualifications only feed the preview here; the list reads them fresh when it is built.
+    private void fetchQualifications() {
+        RetrofitClient.getApi().getQualifications(teamName).enqueue(new Callback<Map<String, Long>>() {
+            @Override
+            public void onResponse(Call<Map<String, Long>> call, Response<Map<String, Long>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    qualifications = response.body();
+                    schedulePreview();
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, Long>> call, Throwable t) {
+                Log.w(TAG, "Error getting qualifications", t);
+            }
+        });
     }
 
     private void fetchMembersFromApi() {
@@ -114,6 +190,7 @@ public class CreateNewList extends AppCompatActivity {
         numPosts = Math.max(0, numPosts + change);
         textViewPosts.setText(String.valueOf(numPosts));
         updatePostsFields();
+        schedulePreview();
     }
 
     private void updatePostsFields() {
@@ -175,6 +252,17 @@ public class CreateNewList extends AppCompatActivity {
 
             postLayout.addView(nightTimeLayout);
 
+            // Required qualifications, the mask is kept in the view's tag
+            TextView textViewQualifications = new TextView(this);
+            textViewQualifications.setTag(0L);
+            textViewQualifications.setText("Requires: " + QualificationUtil.describe(0L));
+            textViewQualifications.setOnClickListener(v -> QualificationUtil.showPicker(this, "Required Qualifications", (Long) textViewQualifications.getTag(), mask -> {
+                textViewQualifications.setTag(mask);
+                textViewQualifications.setText("Requires: " + QualificationUtil.describe(mask));
+                schedulePreview();
+            }));
+            postLayout.addView(textViewQualifications);
+
             postsContainer.addView(postLayout);
         }
     }
@@ -199,6 +287,7 @@ public class CreateNewList extends AppCompatActivity {
                 }
             }
         }
+        schedulePreview();
     }
 
     private void setupIntegerInputFilter(EditText editText, int min, int max) {
@@ -223,6 +312,24 @@ public class CreateNewList extends AppCompatActivity {
         editText.setFilters(new InputFilter[]{integerFilter});
     }
 
+    // Lists run up to 24 hours, or up to 31 days when the duration is given in days.
+    private void toggleDurationUnit() {
+        durationInDays = !durationInDays;
+        textViewDurationUnit.setText(durationInDays ? "days" : "hours");
+        editTextDuration.setHint(durationInDays ? "1-31" : "1-24");
+        editTextDuration.setText("");
+        setupIntegerInputFilter(editTextDuration, 1, durationInDays ? 31 : 24);
+    }
+
+    private void showDatePickerDialog() {
+        Calendar calendar = Calendar.getInstance();
+        DatePickerDialog datePickerDialog = new DatePickerDialog(this, (view, year, month, dayOfMonth) -> {
+            textViewStartDate.setText(String.format("%02d/%02d/%04d", dayOfMonth, month + 1, year));
+            schedulePreview();
+        }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
+        datePickerDialog.show();
+    }
+
     private void showTimePickerDialog(TextView timeTextView) {
         int hour = 0;
         int minute = 0;
@@ -240,6 +347,7 @@ public class CreateNewList extends AppCompatActivity {
             if (timeTextView == textViewDayStartHour || timeTextView == textViewDayEndHour) {
                 updateNightTime();
             }
+            schedulePreview();
         }, hour, minute, true);
 
         timePickerDialog.show();
@@ -260,6 +368,207 @@ public class CreateNewList extends AppCompatActivity {
         }
     }
 
+    // Rules are stored as {type, members, limit}, type being "mustPair", "mustNotPair" or "maxPerSlot".
+    private void showRulesDialog() {
+        String[] items = new String[rules.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = describeRule(rules.get(i));
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Pairing Rules")
+                .setItems(items, (dialog, which) -> new AlertDialog.Builder(this)
+                        .setMessage("Remove \"" + items[which] + "\"?")
+                        .setPositiveButton("Yes", (d, w) -> {
+                            rules.remove(which);
+                            textViewNumRules.setText("Number of Rules: " + rules.size());
+                            schedulePreview();
+                        })
+                        .setNegativeButton("No", (d, w) -> d.dismiss())
+                        .show())
+                .setPositiveButton("Add", (dialog, which) -> showAddRuleDialog())
+                .setNegativeButton("Close", (dialog, which) -> dialog.dismiss())
+                .show();
+    }
+
+    private void showAddRuleDialog() {
+        if (selectedSoldiers.size() < 2) {
+            Toast.makeText(this, "Choose soldiers first", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String[] types = {"Must serve together", "Must not serve together", "At most N per shift"};
+        new AlertDialog.Builder(this)
+                .setTitle("Rule Type")
+                .setItems(types, (dialog, which) -> {
+                    String[] soldiers = selectedSoldiers.toArray(new String[0]);
+                    boolean[] checked = new boolean[soldiers.length];
+                    new AlertDialog.Builder(this)
+                            .setTitle(types[which])
+                            .setMultiChoiceItems(soldiers, checked, (d, index, isChecked) -> checked[index] = isChecked)
+                            .setPositiveButton("Next", (d, w) -> {
+                                List<String> members = new ArrayList<>();
+                                for (int i = 0; i < soldiers.length; i++) {
+                                    if (checked[i]) {
+                                        members.add(soldiers[i]);
+                                    }
+                                }
+                                if (members.size() < 2) {
+                                    Toast.makeText(this, "Choose at least two soldiers", Toast.LENGTH_SHORT).show();
+                                } else if (which == 2) {
+                                    askRuleLimit(members);
+                                } else {
+                                    addRule(which == 0 ? "mustPair" : "mustNotPair", members, 0);
+                                }
+                            })
+                            .setNegativeButton("Cancel", (d, w) -> d.cancel())
+                            .show();
+                })
+                .show();
+    }
+
+    private void askRuleLimit(List<String> members) {
+        EditText editTextLimit = new EditText(this);
+        editTextLimit.setInputType(InputType.TYPE_CLASS_NUMBER);
+        editTextLimit.setText("1");
+        new AlertDialog.Builder(this)
+                .setTitle("At most how many per shift?")
+                .setView(editTextLimit)
+                .setPositiveButton("Add", (dialog, which) -> {
+                    String limit = editTextLimit.getText().toString();
+                    addRule("maxPerSlot", members, limit.isEmpty() ? 1 : Integer.parseInt(limit));
+                })
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.cancel())
+                .show();
+    }
+
+    private void addRule(String type, List<String> members, int limit) {
+        Map<String, Object> rule = new HashMap<>();
+        rule.put("type", type);
+        rule.put("members", members);
+        rule.put("limit", limit);
+        rules.add(rule);
+        textViewNumRules.setText("Number of Rules: " + rules.size());
+        schedulePreview();
+    }
+
+    private static String describeRule(Map<String, Object> rule) {
+        String members = TextUtils.join(", ", (List<?>) rule.get("members"));
+        switch ((String) rule.get("type")) {
+            case "mustPair":
+                return "Together: " + members;
+            case "mustNotPair":
+                return "Apart: " + members;
+            default:
+                return "At most " + rule.get("limit") + " of: " + members;
+        }
+    }
+
+    // Staffing rules override a post's day/night count: by hours on every day, on weekdays or on
+    // the weekend, or for whole days in a date range.
+    private void showStaffingDialog() {
+        String[] items = new String[staffing.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = describeStaffing(staffing.get(i));
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Staffing Rules")
+                .setItems(items, (dialog, which) -> new AlertDialog.Builder(this)
+                        .setMessage("Remove \"" + items[which] + "\"?")
+                        .setPositiveButton("Yes", (d, w) -> {
+                            staffing.remove(which);
+                            textViewNumStaffing.setText("Number of Staffing Rules: " + staffing.size());
+                            schedulePreview();
+                        })
+                        .setNegativeButton("No", (d, w) -> d.dismiss())
+                        .show())
+                .setPositiveButton("Add", (dialog, which) -> showAddStaffingDialog())
+                .setNegativeButton("Close", (dialog, which) -> dialog.dismiss())
+                .show();
+    }
+
+    private void showAddStaffingDialog() {
+        String[] postNames = new String[numPosts + 1];
+        postNames[0] = "All posts";
+        for (int i = 0; i < numPosts; i++) {
+            postNames[i + 1] = postName(i);
+        }
+        String[] whenOptions = {"Every day", "Sunday to Thursday", "Friday and Saturday", "Date range"};
+        String[] dayValues = {"all", "weekdays", "weekend", "dates"};
+        new AlertDialog.Builder(this)
+                .setTitle("Post")
+                .setItems(postNames, (dialog, postChoice) -> new AlertDialog.Builder(this)
+                        .setTitle("When")
+                        .setItems(whenOptions, (d, when) -> {
+                            Map<String, Object> rule = new HashMap<>();
+                            rule.put("post", postChoice - 1);
+                            rule.put("days", dayValues[when]);
+                            if (when == 3) {
+                                pickStaffingDate(rule, "fromDate", () -> pickStaffingDate(rule, "toDate", () -> askStaffingCount(rule)));
+                            } else {
+                                pickStaffingTime(rule, "from", () -> pickStaffingTime(rule, "to", () -> askStaffingCount(rule)));
+                            }
+                        })
+                        .show())
+                .show();
+    }
+
+    private void pickStaffingDate(Map<String, Object> rule, String key, Runnable next) {
+        Calendar calendar = Calendar.getInstance();
+        new DatePickerDialog(this, (view, year, month, dayOfMonth) -> {
+            rule.put(key, String.format("%02d/%02d/%04d", dayOfMonth, month + 1, year));
+            next.run();
+        }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH)).show();
+    }
+
+    private void pickStaffingTime(Map<String, Object> rule, String key, Runnable next) {
+        new TimePickerDialog(this, (view, hourOfDay, minuteOfHour) -> {
+            rule.put(key, String.format("%02d:%02d", hourOfDay, minuteOfHour));
+            next.run();
+        }, 0, 0, true).show();
+    }
+
+    private void askStaffingCount(Map<String, Object> rule) {
+        EditText editTextCount = new EditText(this);
+        editTextCount.setInputType(InputType.TYPE_CLASS_NUMBER);
+        editTextCount.setText("1");
+        new AlertDialog.Builder(this)
+                .setTitle("Soldiers needed")
+                .setView(editTextCount)
+                .setPositiveButton("Add", (dialog, which) -> {
+                    String count = editTextCount.getText().toString();
+                    rule.put("count", count.isEmpty() ? 0 : Integer.parseInt(count));
+                    staffing.add(rule);
+                    textViewNumStaffing.setText("Number of Staffing Rules: " + staffing.size());
+                    schedulePreview();
+                })
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.cancel())
+                .show();
+    }
+
+    private String describeStaffing(Map<String, Object> rule) {
+        int post = (Integer) rule.get("post");
+        String where = post < 0 ? "All posts" : post < numPosts ? postName(post) : "Post " + (post + 1);
+        String when;
+        switch ((String) rule.get("days")) {
+            case "dates":
+                when = rule.get("fromDate") + " to " + rule.get("toDate");
+                break;
+            case "weekdays":
+                when = "Sun-Thu " + rule.get("from") + "-" + rule.get("to");
+                break;
+            case "weekend":
+                when = "Fri-Sat " + rule.get("from") + "-" + rule.get("to");
+                break;
+            default:
+                when = rule.get("from") + "-" + rule.get("to");
+        }
+        return where + ", " + when + ": " + rule.get("count");
+    }
+
+    private String postName(int post) {
+        LinearLayout postLayout = (LinearLayout) postsContainer.getChildAt(post);
+        return ((EditText) postLayout.getChildAt(0)).getText().toString();
+    }
+
     private void showChooseSoldiersDialog() {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Choose Soldiers");
@@ -296,6 +605,7 @@ public class CreateNewList extends AppCompatActivity {
                 }
             }
             textViewNumSoldiers.setText("Number of Soldiers: " + selectedSoldiers.size());
+            schedulePreview();
         });
         builder.setNegativeButton("Cancel", (dialog, which) -> dialog.cancel());
 
@@ -303,16 +613,23 @@ public class CreateNewList extends AppCompatActivity {
     }
 
 
-    private void approveList() {
-        String listName = editTextListName.getText().toString();
-        listData.put("listName", listName);
+    // The list settings as they are stored. Throws NumberFormatException while the duration is empty.
+    private Map<String, Object> collectListData() {
+        Map<String, Object> listData = new HashMap<>();
         listData.put("numPosts", numPosts);
         listData.put("numSoldiers", selectedSoldiers.size());
-        listData.put("duration", Integer.parseInt(editTextDuration.getText().toString()));
+        // Duration is always stored in hours so the list reads the same whatever unit it was entered in.
+        int entered = Integer.parseInt(editTextDuration.getText().toString());
+        listData.put("duration", durationInDays ? entered * 24 : entered);
+        String minRest = editTextMinRest.getText().toString();
+        listData.put("minRestHours", minRest.isEmpty() ? 0 : Integer.parseInt(minRest));
+        listData.put("startDate", textViewStartDate.getText().toString());
         listData.put("startHour", textViewStartHour.getText().toString());
         listData.put("dayStartHour", textViewDayStartHour.getText().toString());
         listData.put("dayEndHour", textViewDayEndHour.getText().toString());
         listData.put("selectedSoldiers", selectedSoldiers);
+        listData.put("rules", rules);
+        listData.put("staffing", staffing);
 
         for (int i = 0; i < numPosts; i++) {
             LinearLayout postLayout = (LinearLayout) postsContainer.getChildAt(i);
@@ -322,11 +639,134 @@ public class CreateNewList extends AppCompatActivity {
 
             TextView textViewDayTime = (TextView) ((LinearLayout) postLayout.getChildAt(1)).getChildAt(2);
             TextView textViewNightTime = (TextView) ((LinearLayout) postLayout.getChildAt(2)).getChildAt(2);
+            TextView textViewQualifications = (TextView) postLayout.getChildAt(3);
 
             listData.put("post" + (i + 1) + "Name", postName);
             listData.put("post" + (i + 1) + "DayTime", Integer.parseInt(textViewDayTime.getText().toString()));
             listData.put("post" + (i + 1) + "NightTime", Integer.parseInt(textViewNightTime.getText().toString()));
+            listData.put("post" + (i + 1) + "Qualifications", (Long) textViewQualifications.getTag());
+        }
+        return listData;
+    }
+
+    // Restarts the wait for a pause in editing; a preview still running is dropped.
+    private void schedulePreview() {
+        previewHandler.removeCallbacks(previewRunnable);
+        if (preview != null) {
+            preview.cancel();
+            preview = null;
+        }
+        previewHandler.postDelayed(previewRunnable, PREVIEW_DELAY_MILLIS);
+    }
+
+    private void runPreview() {
+        if (numPosts == 0 || selectedSoldiers.isEmpty()) {
+            textViewPreview.setText("Preview: choose posts and soldiers");
+            return;
+        }
+        Map<String, Object> data;
+        try {
+            data = collectListData();
+        } catch (NumberFormatException e) {
+            textViewPreview.setText("Preview: enter a duration");
+            return;
+        }
+        // The preview reads these on the pool, so it gets copies the dialogs cannot change under it.
+        data.put("selectedSoldiers", new ArrayList<>(selectedSoldiers));
+        data.put("rules", new ArrayList<>(rules));
+        data.put("staffing", new ArrayList<>(staffing));
+        for (int i = 1; i <= numPosts; i++) {
+            if (TextUtils.isEmpty((String) data.get("post" + i + "Name"))) {
+                data.put("post" + i + "Name", "Post " + i);
+            }
         }
+        boolean firstDayOnly = (Integer) data.get("duration") > PREVIEW_HOURS;
+        data.put("duration", Math.min((Integer) data.get("duration"), PREVIEW_HOURS));
+        textViewPreview.setText("Preview: generating...");
+        preview = BuildListHelper.previewSchedule(data, qualifications, (schedule, metrics, validation) -> showPreview(schedule, metrics, validation, firstDayOnly));
+    }
+
+    private void showPreview(Schedule schedule, ScheduleMetrics metrics, ScheduleValidator validation, boolean firstDayOnly) {
+        preview = null;
+        if (schedule == null) {
+            textViewPreview.setText("Preview: set the start and day hours");
+            return;
+        }
+        StringBuilder text = new StringBuilder(firstDayOnly ? "Preview of the first day: " : "Preview: ");
+        text.append(validation.getUnfilledSeats() == 0 ? "every seat filled" : validation.getUnfilledSeats() + " seats unfilled");
+        text.append(", ").append(formatHours(metrics.getMinTotalMinutes())).append("-").append(formatHours(metrics.getMaxTotalMinutes())).append(" per soldier");
+        text.append(", longest streak ").append(formatHours(metrics.getMaxStreakMinutes()));
+        if (metrics.getMinRestGapMinutes() != ScheduleMetrics.NO_GAP) {
+            text.append(", shortest rest ").append(formatHours(metrics.getMinRestGapMinutes()));
+        }
+        textViewPreview.setText(text);
+    }
+
+    private static String formatHours(long minutes) {
+        return minutes % 60 == 0 ? (minutes / 60) + "h" : String.format("%.1fh", minutes / 60.0);
+    }
+
+    private class PreviewWatcher implements TextWatcher {
+        @Override
+        public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+        }
+
+        @Override
+        public void onTextChanged(CharSequence s, int start, int before, int count) {
+        }
+
+        @Override
+        public void afterTextChanged(Editable s) {
+            schedulePreview();
+        }
+    }
+
+    // Keeps these settings under a name so a run of lists can be generated from them later.
+    private void askTemplateName() {
+        Map<String, Object> template;
+        try {
+            template = collectListData();
+        } catch (NumberFormatException e) {
+            Toast.makeText(this, "Enter a duration first", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        EditText editTextName = new EditText(this);
+        editTextName.setText(editTextListName.getText().toString());
+        new AlertDialog.Builder(this)
+                .setTitle("Template name")
+                .setView(editTextName)
+                .setPositiveButton("Save", (dialog, which) -> {
+                    String templateName = editTextName.getText().toString().trim();
+                    if (!templateName.isEmpty()) {
+                        saveTemplate(templateName, template);
+                    }
+                })
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.cancel())
+                .show();
+    }
+
+    private void saveTemplate(String templateName, Map<String, Object> template) {
+        RetrofitClient.getApi().saveTemplate(teamName, templateName, template).enqueue(new Callback<Void>() {
+            @Override
+            public void onResponse(Call<Void> call, Response<Void> response) {
+                if (response.isSuccessful()) {
+                    Toast.makeText(CreateNewList.this, "Template saved", Toast.LENGTH_SHORT).show();
+                } else {
+                    Log.w(TAG, "Error saving template. Response code: " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                Log.w(TAG, "Error saving template", t);
+            }
+        });
+    }
+
+    private void approveList() {
+        String listName = editTextListName.getText().toString();
+        listData = collectListData();
+        listData.put("listName", listName);
 
         RetrofitClient.getApi().addList(teamName, new ListData(listData)).enqueue(new Callback<Void>() {
             @Override
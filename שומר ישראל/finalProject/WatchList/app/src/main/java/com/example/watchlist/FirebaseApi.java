@@ -3,6 +3,9 @@ package com.example.watchlist;
 import java.util.List;
 import java.util.Map;
 import com.google.firebase.Timestamp;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.GET;
@@ -34,12 +37,38 @@ public interface FirebaseApi {
     @GET("getMembers")
     Call<Map<String, String>> getMembers(@Query("teamName") String teamName);
 
+    @GET("getQualifications")
+    Call<Map<String, Long>> getQualifications(@Query("teamName") String teamName);
+
+    @PUT("updateQualifications")
+    Call<Void> updateQualifications(@Query("teamName") String teamName, @Body Map<String, Long> qualifications);
+
+    @GET("getUnavailability")
+    Call<Map<String, List<Unavailability>>> getUnavailability(@Query("teamName") String teamName);
+
+    @PUT("updateUnavailability")
+    Call<Void> updateUnavailability(@Query("teamName") String teamName, @Body Map<String, List<Unavailability>> unavailability);
+
+    // before, in epoch minutes, keeps only shifts ending by then; null keeps every shift.
+    @GET("getLoadLedger")
+    Call<Map<String, Map<String, Long>>> getLoadLedger(@Query("teamName") String teamName, @Query("listName") String listName, @Query("before") Long before);
+
+    @GET("getLoadShare")
+    Call<Map<String, Map<String, Long>>> getLoadShare(@Query("teamName") String teamName, @Query("listName") String listName);
+
+    @POST("updateLoadLedger")
+    Call<Void> updateLoadLedger(@Query("teamName") String teamName, @Query("listName") String listName, @Body Map<String, Map<String, Long>> share);
+
     @PUT("changeTeamName")
     Call<Void> changeTeamName(@Query("oldTeamName") String oldTeamName, @Query("newTeamName") String newTeamName);
 
     @GET("getWatchLists")
     Call<List<WatchList>> getWatchLists(@Query("teamName") String teamName);
 
+    // The same lists with every field of their documents.
+    @GET("getWatchLists")
+    Call<List<Map<String, Object>>> getWatchListData(@Query("teamName") String teamName);
+
     @POST("createWatchList")
     Call<Void> createWatchList(@Body WatchList watchList);
 
@@ -52,12 +81,34 @@ public interface FirebaseApi {
     @POST("saveSchedule")
     Call<Void> saveSchedule(@Query("teamName") String teamName, @Query("listName") String listName, @Body Map<String, Object> scheduleData);
 
+    @GET("getSchedulePage")
+    Call<Map<String, Object>> getSchedulePage(@Query("teamName") String teamName, @Query("listName") String listName, @Query("page") int page);
+
+    @POST("saveSchedulePage")
+    Call<Void> saveSchedulePage(@Query("teamName") String teamName, @Query("listName") String listName, @Query("page") int page, @Body Map<String, Object> pageData);
+
     @DELETE("deleteList")
     Call<Void> deleteList(@Query("teamName") String teamName, @Query("listName") String listName);
 
     @POST("addList")
     Call<Void> addList(@Query("teamName") String teamName, @Body ListData listData);
 
+    @POST("extendList")
+    Call<Void> extendList(@Query("teamName") String teamName, @Query("listName") String listName, @Query("page") int page, @Body Map<String, Object> extension);
+
+    @POST("addLists")
+    Call<Void> addLists(@Query("teamName") String teamName, @Body List<Map<String, Object>> lists);
+
+    @POST("saveTemplate")
+    Call<Void> saveTemplate(@Query("teamName") String teamName, @Query("templateName") String templateName, @Body Map<String, Object> template);
+
+    @GET("getTemplates")
+    Call<List<Map<String, Object>>> getTemplates(@Query("teamName") String teamName);
+
+    // Body and reply are ScheduleCodec bytes: one problem in, its schedule for the algorithm out.
+    @POST("generateSchedule")
+    Call<ResponseBody> generateSchedule(@Query("algorithm") String algorithm, @Body RequestBody problem);
+
 
 }
 
@@ -79,6 +130,43 @@ class Team {
 }
 
 
+class Unavailability {
+    private long from;
+    private long to;
+    private String reason;
+
+    public Unavailability(long from, long to, String reason) {
+        this.from = from;
+        this.to = to;
+        this.reason = reason;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public void setFrom(long from) {
+        this.from = from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public void setTo(long to) {
+        this.to = to;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
+
+
 class ListData {
     private Map<String, Object> listData;
 
@@ -28,6 +28,12 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import com.example.watchlist.scheduler.Algorithm;
+import com.example.watchlist.scheduler.ScheduleProblem;
+import com.example.watchlist.scheduler.ScheduleValidator;
+import com.example.watchlist.scheduler.SwapIndex;
+import com.example.watchlist.scheduler.TimeSlots;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -45,10 +51,25 @@ public class InspectListActivity extends AppCompatActivity {
     private GridLayout scheduleLayout;
     private List<String> posts = new ArrayList<>();
     private List<Map<String, String>> scheduleList;
+    // Multi-day lists are shown one day at a time; day 0 lives in the list document itself.
+    private List<Map<String, String>> firstPage;
+    private int numPages = 1;
+    private int currentPage = 0;
+    private LinearLayout pageLayout;
+    private TextView textViewPage;
     private Button btnSave, btnCancel, btnMonitor, btnStopMonitor;
     private boolean isEditing = false;
     private LinearLayout buttonLayout;
     private boolean monitoring = false; // New boolean to manage monitoring state
+    // The list's roster and staffing, to check hand edits against; null until loaded or if never built.
+    private ScheduleProblem problem;
+    private Algorithm algorithm;
+    // Every stored page indexed for replacement suggestions, built when editing starts.
+    private SwapIndex swapIndex;
+    private static final int SUGGESTIONS = 5;
+    // Rolling lists get the next day added in the background before they run out.
+    private boolean rolling = false;
+    private boolean canRoll = false;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -68,6 +89,10 @@ public class InspectListActivity extends AppCompatActivity {
         }
 
         scheduleLayout = findViewById(R.id.scheduleLayout);
+        pageLayout = findViewById(R.id.pageLayout);
+        textViewPage = findViewById(R.id.textViewPage);
+        findViewById(R.id.btnPrevPage).setOnClickListener(v -> loadPage(currentPage - 1));
+        findViewById(R.id.btnNextPage).setOnClickListener(v -> loadPage(currentPage + 1));
         btnMonitor = findViewById(R.id.btnMonitor);
         btnMonitor.setOnClickListener(v -> checkNotificationPermission());
 
@@ -154,6 +179,12 @@ public class InspectListActivity extends AppCompatActivity {
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        menu.findItem(R.id.action_rolling).setChecked(rolling);
+        return super.onPrepareOptionsMenu(menu);
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
@@ -164,10 +195,45 @@ public class InspectListActivity extends AppCompatActivity {
         } else if (id == R.id.action_edit) {
             showEditMenu(findViewById(R.id.action_edit));
             return true;
+        } else if (id == R.id.action_rolling) {
+            setRolling(!rolling);
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
+    // The flag is kept on the list so the job stops by itself once it is cleared on any device.
+    private void setRolling(boolean enabled) {
+        if (enabled && !canRoll) {
+            Toast.makeText(this, "Only balanced lists of whole days can be extended", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Map<String, Object> update = new HashMap<>();
+        update.put("rolling", enabled);
+        RetrofitClient.getApi().saveSchedule(teamName, listName, update).enqueue(new Callback<Void>() {
+            @Override
+            public void onResponse(Call<Void> call, Response<Void> response) {
+                if (response.isSuccessful()) {
+                    rolling = enabled;
+                    invalidateOptionsMenu();
+                    if (enabled) {
+                        RollingListWorker.start(InspectListActivity.this, teamName, listName);
+                        Toast.makeText(InspectListActivity.this, "The next day will be added automatically", Toast.LENGTH_SHORT).show();
+                    } else {
+                        RollingListWorker.stop(InspectListActivity.this, teamName, listName);
+                    }
+                } else {
+                    Log.w(TAG, "Error updating rolling mode. Response code: " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                Log.e(TAG, "Error updating rolling mode.", t);
+            }
+        });
+    }
+
     private void confirmDeleteList() {
         new AlertDialog.Builder(this)
                 .setTitle("Confirm Deletion")
@@ -214,6 +280,9 @@ public class InspectListActivity extends AppCompatActivity {
 
     private void enterManualEditMode() {
         isEditing = true;
+        if (swapIndex == null) {
+            new BuildListHelper(teamName, listName).fetchSwapIndex(index -> swapIndex = index);
+        }
         scheduleLayout.removeAllViews(); // Clear existing views
 
         // Add the toolbar again
@@ -242,7 +311,7 @@ public class InspectListActivity extends AppCompatActivity {
     }
 
     private void saveChanges() {
-        scheduleList.clear();
+        List<Map<String, String>> edited = new ArrayList<>();
         int rowCount = scheduleLayout.getChildCount() / (posts.size() + 1); // Number of rows
         int columnCount = scheduleLayout.getColumnCount();
 
@@ -260,13 +329,63 @@ public class InspectListActivity extends AppCompatActivity {
                     row.put(posts.get(j - 1), postEditText.getText().toString());
                 }
             }
-            scheduleList.add(row);
+            edited.add(row);
         }
 
+        if (problem == null || algorithm == null) {
+            commitChanges(edited);
+            return;
+        }
+        ScheduleValidator validation = BuildListHelper.validatePage(problem, algorithm, currentPage, edited);
+        if (validation.isValid()) {
+            if (validation.getUnfilledSeats() > 0) {
+                Toast.makeText(this, validation.getUnfilledSeats() + " seats left unfilled", Toast.LENGTH_SHORT).show();
+            }
+            commitChanges(edited);
+            return;
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Schedule has conflicts")
+                .setMessage(describeIssues(validation, edited))
+                .setPositiveButton("Save Anyway", (dialog, which) -> commitChanges(edited))
+                .setNegativeButton("Keep Editing", (dialog, which) -> dialog.dismiss())
+                .show();
+    }
+
+    private void commitChanges(List<Map<String, String>> edited) {
+        scheduleList.clear();
+        scheduleList.addAll(edited);
+        swapIndex = null; // Typed edits are not in the index, so it is rebuilt on the next edit
         saveScheduleToFirestore();
         exitEditMode();
     }
 
+    private String describeIssues(ScheduleValidator validation, List<Map<String, String>> edited) {
+        int firstSlot = TimeSlots.forAlgorithm(problem, algorithm).firstSlotOfDay(currentPage);
+        StringBuilder message = new StringBuilder();
+        int shown = 0;
+        for (ScheduleValidator.Issue issue : validation.getIssues()) {
+            if (issue.getType() == ScheduleValidator.IssueType.UNFILLED) {
+                continue;
+            }
+            if (shown++ == 10) {
+                message.append("...\n");
+                break;
+            }
+            String time = edited.get(issue.getSlot() - firstSlot).get("Time");
+            String post = problem.getPost(issue.getPost());
+            if (issue.getType() == ScheduleValidator.IssueType.DOUBLE_BOOKED) {
+                message.append(issue.getName()).append(" is assigned twice at ").append(time).append(" (").append(post).append(")\n");
+            } else {
+                message.append(issue.getName()).append(" at ").append(time).append(" (").append(post).append(") is not on this list\n");
+            }
+        }
+        if (validation.getUnfilledSeats() > 0) {
+            message.append(validation.getUnfilledSeats()).append(" seats left unfilled\n");
+        }
+        return message.toString().trim();
+    }
+
     private void exitEditMode() {
         isEditing = false;
         displaySchedule(scheduleList); // Refresh to display read-only mode
@@ -287,6 +406,20 @@ public class InspectListActivity extends AppCompatActivity {
                 if (response.isSuccessful() && response.body() != null) {
                     Map<String, Object> data = response.body();
                     scheduleList = (List<Map<String, String>>) data.get("schedule");
+                    firstPage = scheduleList;
+                    Number pages = (Number) data.get("numPages");
+                    numPages = pages != null ? pages.intValue() : 1;
+                    showPageLabel();
+                    rolling = Boolean.TRUE.equals(data.get("rolling"));
+                    canRoll = RollingListWorker.canRoll(data);
+                    if (rolling && canRoll) {
+                        RollingListWorker.start(InspectListActivity.this, teamName, listName);
+                    }
+                    invalidateOptionsMenu();
+                    new BuildListHelper(teamName, listName).fetchListProblem((listProblem, listAlgorithm) -> {
+                        problem = listProblem;
+                        algorithm = listAlgorithm;
+                    });
                     if (scheduleList != null && !scheduleList.isEmpty()) {
                         Map<String, String> firstRow = scheduleList.get(0);
                         for (String key : firstRow.keySet()) {
@@ -310,6 +443,48 @@ public class InspectListActivity extends AppCompatActivity {
         });
     }
 
+    private void loadPage(int page) {
+        if (isEditing || page < 0 || page >= numPages || page == currentPage) {
+            return;
+        }
+        if (page == 0) {
+            showPage(0, firstPage);
+            return;
+        }
+        Call<Map<String, Object>> call = RetrofitClient.getApi().getSchedulePage(teamName, listName, page);
+        call.enqueue(new Callback<Map<String, Object>>() {
+            @Override
+            public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    showPage(page, (List<Map<String, String>>) response.body().get("schedule"));
+                } else {
+                    Log.e(TAG, "Error getting schedule page. Response code: " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, Object>> call, Throwable t) {
+                Log.e(TAG, "Error getting schedule page.", t);
+            }
+        });
+    }
+
+    private void showPage(int page, List<Map<String, String>> rows) {
+        if (rows == null) {
+            Log.e(TAG, "Schedule page " + page + " is empty");
+            return;
+        }
+        currentPage = page;
+        scheduleList = rows;
+        showPageLabel();
+        displaySchedule(scheduleList);
+    }
+
+    private void showPageLabel() {
+        pageLayout.setVisibility(numPages > 1 ? View.VISIBLE : View.GONE);
+        textViewPage.setText("Day " + (currentPage + 1) + " of " + numPages);
+    }
+
     private void displaySchedule(List<Map<String, String>> scheduleList) {
         scheduleLayout.removeAllViews();
         scheduleLayout.setColumnCount(posts.size() + 1);
@@ -361,31 +536,141 @@ public class InspectListActivity extends AppCompatActivity {
         }
 
         // Add schedule data
-        for (Map<String, String> row : scheduleList) {
+        for (int i = 0; i < scheduleList.size(); i++) {
+            Map<String, String> row = scheduleList.get(i);
             EditText timeEditText = new EditText(this);
             timeEditText.setText(row.get("Time"));
             timeEditText.setPadding(8, 8, 8, 8);
             scheduleLayout.addView(timeEditText);
 
-            for (String post : posts) {
+            for (int j = 0; j < posts.size(); j++) {
                 EditText postEditText = new EditText(this);
-                postEditText.setText(row.get(post));
+                postEditText.setText(row.get(posts.get(j)));
                 postEditText.setPadding(8, 8, 8, 8);
+                int rowIndex = i;
+                int column = j;
+                postEditText.setOnLongClickListener(v -> showSuggestions(rowIndex, column));
                 scheduleLayout.addView(postEditText);
             }
         }
     }
 
+    // Long-pressing a cell lists who could replace each soldier in it, or trade shifts with them on
+    // this page, least loaded and best rested first.
+    private boolean showSuggestions(int rowIndex, int column) {
+        if (swapIndex == null || problem == null || algorithm == null) {
+            Toast.makeText(this, "Suggestions are still loading", Toast.LENGTH_SHORT).show();
+            return true;
+        }
+        int post = postIndex(posts.get(column));
+        if (post < 0) {
+            return false;
+        }
+        int firstSlot = TimeSlots.forAlgorithm(problem, algorithm).firstSlotOfDay(currentPage);
+        int slot = firstSlot + rowIndex;
+        List<SwapIndex.Suggestion> suggestions = new ArrayList<>();
+        List<String> names = namesIn(cellAt(rowIndex, column).getText().toString());
+        for (String name : names) {
+            suggestions.addAll(swapIndex.replacements(slot, post, name, SUGGESTIONS));
+            suggestions.addAll(swapIndex.swaps(slot, post, name, firstSlot, firstSlot + scheduleList.size(), SUGGESTIONS));
+        }
+        if (names.isEmpty()) {
+            suggestions.addAll(swapIndex.replacements(slot, post, null, SUGGESTIONS));
+        }
+        if (suggestions.isEmpty()) {
+            Toast.makeText(this, "Nobody else can take this shift", Toast.LENGTH_SHORT).show();
+            return true;
+        }
+        String[] labels = new String[suggestions.size()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = describeSuggestion(suggestions.get(i), firstSlot);
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(scheduleList.get(rowIndex).get("Time") + " " + posts.get(column))
+                .setItems(labels, (dialog, which) -> applySuggestion(suggestions.get(which), rowIndex, column, firstSlot))
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
+                .show();
+        return true;
+    }
+
+    private String describeSuggestion(SwapIndex.Suggestion suggestion, int firstSlot) {
+        String rest = suggestion.getRestMinutes() == SwapIndex.NO_LIMIT ? "" : ", rests " + formatHours(suggestion.getRestMinutes());
+        if (suggestion.getKind() == SwapIndex.Kind.SWAP) {
+            String time = scheduleList.get(suggestion.getOtherSlot() - firstSlot).get("Time");
+            return "Swap " + suggestion.getOccupant() + " with " + suggestion.getSoldier() + " at " + time
+                    + " (" + problem.getPost(suggestion.getOtherPost()) + ")" + rest;
+        }
+        String load = formatHours(swapIndex.getLoadMinutes(suggestion.getSoldier())) + " so far";
+        if (suggestion.getOccupant() == null) {
+            return "Add " + suggestion.getSoldier() + " (" + load + rest + ")";
+        }
+        return "Replace " + suggestion.getOccupant() + " with " + suggestion.getSoldier() + " (" + load + rest + ")";
+    }
+
+    private void applySuggestion(SwapIndex.Suggestion suggestion, int rowIndex, int column, int firstSlot) {
+        EditText cell = cellAt(rowIndex, column);
+        cell.setText(replaceName(cell.getText().toString(), suggestion.getOccupant(), suggestion.getSoldier()));
+        if (suggestion.getKind() == SwapIndex.Kind.SWAP) {
+            EditText other = cellAt(suggestion.getOtherSlot() - firstSlot, posts.indexOf(problem.getPost(suggestion.getOtherPost())));
+            other.setText(replaceName(other.getText().toString(), suggestion.getSoldier(), suggestion.getOccupant()));
+        }
+        swapIndex.apply(suggestion);
+    }
+
+    // Cells of the editable grid, after the header row.
+    private EditText cellAt(int rowIndex, int column) {
+        return (EditText) scheduleLayout.getChildAt((rowIndex + 1) * (posts.size() + 1) + column + 1);
+    }
+
+    // Posts here are in the order of the stored row, which need not be the list's own order.
+    private int postIndex(String name) {
+        for (int j = 0; j < problem.getNumPosts(); j++) {
+            if (problem.getPost(j).equals(name)) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    private static List<String> namesIn(String text) {
+        List<String> names = new ArrayList<>();
+        for (String part : text.split(",")) {
+            if (!part.trim().isEmpty()) {
+                names.add(part.trim());
+            }
+        }
+        return names;
+    }
+
+    // Swaps one name in a cell's text for another, or adds it when from is null.
+    private static String replaceName(String text, String from, String to) {
+        List<String> names = namesIn(text);
+        int i = from != null ? names.indexOf(from) : -1;
+        if (i >= 0) {
+            names.set(i, to);
+        } else {
+            names.add(to);
+        }
+        return String.join(", ", names);
+    }
+
+    private static String formatHours(long minutes) {
+        return minutes % 60 == 0 ? (minutes / 60) + "h" : String.format("%.1fh", minutes / 60.0);
+    }
+
     private void saveScheduleToFirestore() {
         Map<String, Object> scheduleData = new HashMap<>();
         scheduleData.put("schedule", scheduleList);
 
-        Call<Void> call = RetrofitClient.getApi().saveSchedule(teamName, listName, scheduleData);
+        Call<Void> call = currentPage == 0
+                ? RetrofitClient.getApi().saveSchedule(teamName, listName, scheduleData)
+                : RetrofitClient.getApi().saveSchedulePage(teamName, listName, currentPage, scheduleData);
         call.enqueue(new Callback<Void>() {
             @Override
             public void onResponse(Call<Void> call, Response<Void> response) {
                 if (response.isSuccessful()) {
                     Log.d(TAG, "Schedule successfully saved!");
+                    new BuildListHelper(teamName, listName).recordLoad();
                 } else {
                     Log.w(TAG, "Error saving schedule. Response code: " + response.code());
                 }
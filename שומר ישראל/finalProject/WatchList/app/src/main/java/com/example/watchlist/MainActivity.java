@@ -18,6 +18,7 @@ import android.widget.Button;
 import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
@@ -25,6 +26,8 @@ import androidx.appcompat.app.AppCompatDelegate;
 import com.example.watchlist.databinding.ActivityMainBinding;
 import com.google.android.material.snackbar.Snackbar;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -195,6 +198,9 @@ public class MainActivity extends AppCompatActivity {
             showAboutDialog();
             return true;
 
+        } else if (id == R.id.action_generate_together) {
+            showGenerateTogetherDialog();
+            return true;
         } else if (id == R.id.action_settings) {
             Intent intent = new Intent(MainActivity.this, SettingsActivity.class);
             startActivity(intent);
@@ -207,6 +213,46 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    // Teams that lend soldiers to each other have their unbuilt lists generated in one pool, so
+    // nobody lent between them is put on two shifts at once.
+    private void showGenerateTogetherDialog() {
+        List<String> teamNames = new ArrayList<>(sharedPreferences.getStringSet(TEAMS_KEY, new HashSet<>()));
+        Collections.sort(teamNames);
+        if (teamNames.size() < 2) {
+            Toast.makeText(this, "Add at least two teams first", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        boolean[] checked = new boolean[teamNames.size()];
+        new AlertDialog.Builder(this)
+                .setTitle("Teams sharing soldiers")
+                .setMultiChoiceItems(teamNames.toArray(new String[0]), checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("Generate", (dialog, which) -> {
+                    List<String> chosen = new ArrayList<>();
+                    for (int i = 0; i < checked.length; i++) {
+                        if (checked[i]) {
+                            chosen.add(teamNames.get(i));
+                        }
+                    }
+                    generateTogether(chosen);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void generateTogether(List<String> teamNames) {
+        if (teamNames.isEmpty()) {
+            return;
+        }
+        Toast.makeText(this, "Generating the lists of " + teamNames.size() + " teams...", Toast.LENGTH_SHORT).show();
+        BuildListHelper.generatePooled(teamNames, numLists -> {
+            if (numLists > 0) {
+                Toast.makeText(this, numLists + " lists generated", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "No lists were generated", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     private void showAboutDialog() {
         String appName = getString(R.string.app_name);
         String appVersion = "1.0";
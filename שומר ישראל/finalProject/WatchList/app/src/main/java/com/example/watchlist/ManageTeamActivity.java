@@ -2,6 +2,7 @@ package com.example.watchlist;
 
 import android.Manifest;
 import android.app.AlertDialog;
+import android.app.DatePickerDialog;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
@@ -26,10 +27,16 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -44,6 +51,8 @@ public class ManageTeamActivity extends AppCompatActivity implements MemberAdapt
     private String teamName;
     private List<View> memberViews = new ArrayList<>();
     private Map<String, String> membersMap = new HashMap<>();
+    private Map<String, Long> qualificationsMap = new HashMap<>();
+    private Map<String, List<Unavailability>> unavailabilityMap = new HashMap<>();
     private MemberAdapter adapter;
     private List<Map.Entry<String, String>> memberList = new ArrayList<>();
     private boolean isDeleteMode = false;
@@ -69,6 +78,8 @@ public class ManageTeamActivity extends AppCompatActivity implements MemberAdapt
 
         // Fetch existing members from API
         fetchMembersFromApi();
+        fetchQualificationsFromApi();
+        fetchUnavailabilityFromApi();
 
         // Hide floating icons on touch outside
         findViewById(R.id.manage_team_layout).setOnTouchListener((v, event) -> {
@@ -135,6 +146,78 @@ public class ManageTeamActivity extends AppCompatActivity implements MemberAdapt
         });
     }
 
+    private void fetchQualificationsFromApi() {
+        RetrofitClient.getApi().getQualifications(teamName).enqueue(new Callback<Map<String, Long>>() {
+            @Override
+            public void onResponse(Call<Map<String, Long>> call, Response<Map<String, Long>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    qualificationsMap = new HashMap<>(response.body());
+                } else {
+                    Log.w(TAG, "Error getting qualifications");
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, Long>> call, Throwable t) {
+                Log.e(TAG, "Error: " + t.getMessage());
+            }
+        });
+    }
+
+    private void saveQualifications() {
+        RetrofitClient.getApi().updateQualifications(teamName, qualificationsMap).enqueue(new Callback<Void>() {
+            @Override
+            public void onResponse(Call<Void> call, Response<Void> response) {
+                if (response.isSuccessful()) {
+                    Log.d(TAG, "Qualifications successfully updated!");
+                } else {
+                    Log.w(TAG, "Error updating qualifications");
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                Log.e(TAG, "Error: " + t.getMessage());
+            }
+        });
+    }
+
+    private void fetchUnavailabilityFromApi() {
+        RetrofitClient.getApi().getUnavailability(teamName).enqueue(new Callback<Map<String, List<Unavailability>>>() {
+            @Override
+            public void onResponse(Call<Map<String, List<Unavailability>>> call, Response<Map<String, List<Unavailability>>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    unavailabilityMap = new HashMap<>(response.body());
+                } else {
+                    Log.w(TAG, "Error getting unavailability");
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Map<String, List<Unavailability>>> call, Throwable t) {
+                Log.e(TAG, "Error: " + t.getMessage());
+            }
+        });
+    }
+
+    private void saveUnavailability() {
+        RetrofitClient.getApi().updateUnavailability(teamName, unavailabilityMap).enqueue(new Callback<Void>() {
+            @Override
+            public void onResponse(Call<Void> call, Response<Void> response) {
+                if (response.isSuccessful()) {
+                    Log.d(TAG, "Unavailability successfully updated!");
+                } else {
+                    Log.w(TAG, "Error updating unavailability");
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                Log.e(TAG, "Error: " + t.getMessage());
+            }
+        });
+    }
+
     private void displayMembers() {
         memberList.clear();
         memberList.addAll(membersMap.entrySet());
@@ -370,25 +453,160 @@ public class ManageTeamActivity extends AppCompatActivity implements MemberAdapt
 
     @Override
     public void onDeleteMember(String memberName) {
+        deleteMember(memberName, deleted -> {
+            if (deleted) {
+                repairLists(Collections.singletonList(memberName));
+            }
+        });
+    }
+
+    private interface DeleteCallback {
+        void onDeleteComplete(boolean deleted);
+    }
+
+    private void deleteMember(String memberName, DeleteCallback callback) {
         RetrofitClient.getApi().deleteMember(teamName, memberName).enqueue(new Callback<Void>() {
             @Override
             public void onResponse(Call<Void> call, Response<Void> response) {
                 if (response.isSuccessful()) {
                     membersMap.remove(memberName);
+                    qualificationsMap.remove(memberName);
+                    unavailabilityMap.remove(memberName);
                     displayMembers();
                     Log.d(TAG, "Member successfully deleted!");
                 } else {
                     Log.w(TAG, "Error deleting member");
                 }
+                callback.onDeleteComplete(response.isSuccessful());
             }
 
             @Override
             public void onFailure(Call<Void> call, Throwable t) {
                 Log.e(TAG, "Error: " + t.getMessage());
+                callback.onDeleteComplete(false);
+            }
+        });
+    }
+
+    // Hands the shifts of members who left to others in every list of the team.
+    private void repairLists(List<String> removedMembers) {
+        RetrofitClient.getApi().getWatchLists(teamName).enqueue(new Callback<List<WatchList>>() {
+            @Override
+            public void onResponse(Call<List<WatchList>> call, Response<List<WatchList>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    for (WatchList watchList : response.body()) {
+                        new BuildListHelper(teamName, watchList.getListName()).repairRoster(removedMembers);
+                    }
+                } else {
+                    Log.w(TAG, "Error getting lists to repair");
+                }
+            }
+
+            @Override
+            public void onFailure(Call<List<WatchList>> call, Throwable t) {
+                Log.e(TAG, "Error: " + t.getMessage());
             }
         });
     }
 
+    private void showMemberDetailsDialog(String memberName) {
+        String[] options = {"Qualifications", "Unavailability"};
+        new AlertDialog.Builder(this)
+                .setTitle(memberName)
+                .setItems(options, (dialog, which) -> {
+                    if (which == 0) {
+                        showQualificationsDialog(memberName);
+                    } else {
+                        showUnavailabilityDialog(memberName);
+                    }
+                })
+                .show();
+    }
+
+    // Lists the member's leave, courses and medical days. Tapping an entry removes it.
+    private void showUnavailabilityDialog(String memberName) {
+        List<Unavailability> intervals = unavailabilityMap.get(memberName);
+        List<Unavailability> current = intervals != null ? intervals : new ArrayList<>();
+        SimpleDateFormat format = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
+        String[] items = new String[current.size()];
+        for (int i = 0; i < items.length; i++) {
+            Unavailability interval = current.get(i);
+            // Intervals end at midnight after their last day.
+            items[i] = interval.getReason() + ": " + format.format(new Date(interval.getFrom())) + " - " + format.format(new Date(interval.getTo() - 1));
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle("Unavailability of " + memberName)
+                .setItems(items, (dialog, which) -> new AlertDialog.Builder(this)
+                        .setMessage("Remove " + items[which] + "?")
+                        .setPositiveButton("Yes", (d, w) -> {
+                            current.remove(which);
+                            if (current.isEmpty()) {
+                                unavailabilityMap.remove(memberName);
+                            }
+                            saveUnavailability();
+                        })
+                        .setNegativeButton("No", (d, w) -> d.dismiss())
+                        .show())
+                .setPositiveButton("Add", (dialog, which) -> showAddUnavailabilityDialog(memberName))
+                .setNegativeButton("Close", (dialog, which) -> dialog.dismiss())
+                .show();
+    }
+
+    private void showAddUnavailabilityDialog(String memberName) {
+        String[] reasons = {"Leave", "Course", "Medical"};
+        new AlertDialog.Builder(this)
+                .setTitle("Reason")
+                .setItems(reasons, (dialog, which) -> pickDate("From", null, from ->
+                        pickDate("Until (inclusive)", from, until -> {
+                            Calendar end = Calendar.getInstance();
+                            end.setTimeInMillis(until);
+                            end.add(Calendar.DAY_OF_MONTH, 1);
+                            List<Unavailability> intervals = unavailabilityMap.get(memberName);
+                            if (intervals == null) {
+                                intervals = new ArrayList<>();
+                                unavailabilityMap.put(memberName, intervals);
+                            }
+                            intervals.add(new Unavailability(from, end.getTimeInMillis(), reasons[which]));
+                            saveUnavailability();
+                        })))
+                .show();
+    }
+
+    private interface DateCallback {
+        void onDatePicked(long startOfDayMillis);
+    }
+
+    private void pickDate(String title, Long minDate, DateCallback callback) {
+        Calendar calendar = Calendar.getInstance();
+        if (minDate != null) {
+            calendar.setTimeInMillis(minDate);
+        }
+        DatePickerDialog dialog = new DatePickerDialog(this, (view, year, month, dayOfMonth) -> {
+            Calendar picked = Calendar.getInstance();
+            picked.clear();
+            picked.set(year, month, dayOfMonth);
+            callback.onDatePicked(picked.getTimeInMillis());
+        }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
+        dialog.setTitle(title);
+        if (minDate != null) {
+            dialog.getDatePicker().setMinDate(minDate);
+        }
+        dialog.show();
+    }
+
+    private void showQualificationsDialog(String memberName) {
+        Long mask = qualificationsMap.get(memberName);
+        QualificationUtil.showPicker(this, "Qualifications of " + memberName, mask != null ? mask : 0L, chosen -> {
+            if (chosen == 0) {
+                qualificationsMap.remove(memberName);
+            } else {
+                qualificationsMap.put(memberName, chosen);
+            }
+            saveQualifications();
+        });
+    }
+
     private void showEditMemberDialog(String memberName) {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Edit Member");
@@ -408,6 +626,16 @@ public class ManageTeamActivity extends AppCompatActivity implements MemberAdapt
             if (!newName.isEmpty() && !newName.equals(memberName)) {
                 membersMap.remove(memberName);
                 membersMap.put(newName, newPhone.isEmpty() ? "" : PhoneNumberUtils.formatPhoneNumber(newPhone));
+                Long mask = qualificationsMap.remove(memberName);
+                if (mask != null) {
+                    qualificationsMap.put(newName, mask);
+                    saveQualifications();
+                }
+                List<Unavailability> intervals = unavailabilityMap.remove(memberName);
+                if (intervals != null) {
+                    unavailabilityMap.put(newName, intervals);
+                    saveUnavailability();
+                }
             } else {
                 membersMap.put(memberName, newPhone.isEmpty() ? "" : PhoneNumberUtils.formatPhoneNumber(newPhone));
             }
@@ -415,6 +643,7 @@ public class ManageTeamActivity extends AppCompatActivity implements MemberAdapt
             displayMembers();
         });
         builder.setNegativeButton("Cancel", (dialog, which) -> dialog.cancel());
+        builder.setNeutralButton("More", (dialog, which) -> showMemberDetailsDialog(memberName));
 
         builder.show();
     }
@@ -450,10 +679,20 @@ public class ManageTeamActivity extends AppCompatActivity implements MemberAdapt
             return;
         }
 
+        // Lists are repaired once for the whole selection, after every deletion has answered.
+        List<String> deletedMembers = new ArrayList<>();
+        AtomicInteger pending = new AtomicInteger(selectedItems.size());
         for (int i = selectedItems.size() - 1; i >= 0; i--) {
             int position = selectedItems.keyAt(i);
             String memberName = memberList.get(position).getKey();
-            onDeleteMember(memberName);
+            deleteMember(memberName, deleted -> {
+                if (deleted) {
+                    deletedMembers.add(memberName);
+                }
+                if (pending.decrementAndGet() == 0 && !deletedMembers.isEmpty()) {
+                    repairLists(deletedMembers);
+                }
+            });
         }
 
         displayMembers();
@@ -26,6 +26,8 @@ public class MonitorService extends Service {
     private static final String TAG = "MonitorService";
     private Queue<String> timeQueue;
     private SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
+    // Slots of multi-day lists are labelled with their date as well
+    private SimpleDateFormat dateTimeFormat = new SimpleDateFormat("dd/MM HH:mm", Locale.getDefault());
     private Handler handler;
     private Runnable timeCheckRunnable;
 
@@ -56,13 +58,14 @@ public class MonitorService extends Service {
             for (Map<String, String> schedule : scheduleList) {
                 String timeStr = schedule.get("Time");
                 if (timeStr != null) {
+                    SimpleDateFormat format = timeStr.contains("/") ? dateTimeFormat : timeFormat;
                     try {
-                        Date time = timeFormat.parse(timeStr);
+                        Date time = format.parse(timeStr);
                         if (time != null) {
                             // Deduct 10 minutes
                             Date notificationTime = new Date(time.getTime() - TimeUnit.MINUTES.toMillis(10));
-                            timeQueue.add(timeFormat.format(notificationTime));
-                            Log.d(TAG, "Scheduled notification for: " + timeFormat.format(notificationTime));
+                            timeQueue.add(format.format(notificationTime));
+                            Log.d(TAG, "Scheduled notification for: " + format.format(notificationTime));
                         }
                     } catch (ParseException e) {
                         Log.e(TAG, "Error parsing time: " + e.getMessage());
@@ -98,12 +101,13 @@ public class MonitorService extends Service {
     }
 
     private void checkSchedule() {
-        String currentTime = timeFormat.format(new Date());
+        Date now = new Date();
+        String currentTime = timeFormat.format(now);
         Log.d(TAG, "Current time: " + currentTime);
 
         if (!timeQueue.isEmpty()) {
             String nextScheduledTime = timeQueue.peek();
-            if (currentTime.equals(nextScheduledTime)) {
+            if (currentTime.equals(nextScheduledTime) || dateTimeFormat.format(now).equals(nextScheduledTime)) {
                 Log.d(TAG, "Triggering notification for time: " + nextScheduledTime);
                 sendNotification(this, "Next Shift", "Next shift starts in 10 minutes.");
                 timeQueue.poll(); // Remove the triggered time
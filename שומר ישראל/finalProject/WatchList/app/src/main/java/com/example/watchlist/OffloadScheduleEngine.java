@@ -0,0 +1,112 @@
+package com.example.watchlist;
+
+import android.util.Log;
+
+import com.example.watchlist.scheduler.Algorithm;
+import com.example.watchlist.scheduler.GenerationHandle;
+import com.example.watchlist.scheduler.LocalScheduleEngine;
+import com.example.watchlist.scheduler.Schedule;
+import com.example.watchlist.scheduler.ScheduleCodec;
+import com.example.watchlist.scheduler.ScheduleEngine;
+import com.example.watchlist.scheduler.ScheduleProblem;
+import com.example.watchlist.scheduler.SchedulerPool;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+// Generates on a server through the generateSchedule endpoint. The problem goes up in the codec's
+// canonical form, so the server builds exactly the schedule this phone would. Any failure, from
+// the network, the server or a reply that does not fit the problem, falls back to generating here.
+public class OffloadScheduleEngine implements ScheduleEngine {
+    private static final String TAG = "OffloadScheduleEngine";
+    private static final MediaType CODEC = MediaType.parse("application/octet-stream");
+
+    private final FirebaseApi api;
+    private final ScheduleEngine fallback = new LocalScheduleEngine();
+
+    public OffloadScheduleEngine(FirebaseApi api) {
+        this.api = api;
+    }
+
+    @Override
+    public CompletableFuture<Schedule> generate(ScheduleProblem problem, Algorithm algorithm, GenerationHandle handle) {
+        CompletableFuture<Schedule> result = new CompletableFuture<>();
+        // Encoding a large problem is kept off the calling thread, which is usually the main thread.
+        SchedulerPool.get().execute(() -> {
+            if (result.isDone()) {
+                return; // Cancelled meanwhile
+            }
+            Call<ResponseBody> call = api.generateSchedule(algorithm.name(), RequestBody.create(CODEC, ScheduleCodec.encodeProblem(problem)));
+            result.whenComplete((schedule, t) -> {
+                if (result.isCancelled()) {
+                    call.cancel();
+                }
+            });
+            call.enqueue(new Callback<ResponseBody>() {
+                @Override
+                public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                    if (!response.isSuccessful() || response.body() == null) {
+                        Log.w(TAG, "Error generating on the server. Response code: " + response.code());
+                        generateLocally(problem, algorithm, handle, result);
+                        return;
+                    }
+                    byte[] bytes;
+                    try {
+                        bytes = response.body().bytes();
+                    } catch (IOException e) {
+                        Log.w(TAG, "Error reading the server's schedule.", e);
+                        generateLocally(problem, algorithm, handle, result);
+                        return;
+                    }
+                    // Rebuilding the schedule is kept off the main thread, where this is called.
+                    SchedulerPool.get().execute(() -> {
+                        List<Schedule> schedules;
+                        try {
+                            schedules = ScheduleCodec.decodeSchedules(bytes, problem);
+                        } catch (IOException e) {
+                            Log.w(TAG, "The server's schedule does not fit the list.", e);
+                            generateLocally(problem, algorithm, handle, result);
+                            return;
+                        }
+                        if (schedules.size() != 1 || schedules.get(0).getAlgorithm() != algorithm) {
+                            Log.w(TAG, "The server's schedule does not fit the list.");
+                            generateLocally(problem, algorithm, handle, result);
+                        } else {
+                            result.complete(schedules.get(0));
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailure(Call<ResponseBody> call, Throwable t) {
+                    if (!call.isCanceled()) {
+                        Log.w(TAG, "Error generating on the server.", t);
+                        generateLocally(problem, algorithm, handle, result);
+                    }
+                }
+            });
+        });
+        return result;
+    }
+
+    private void generateLocally(ScheduleProblem problem, Algorithm algorithm, GenerationHandle handle, CompletableFuture<Schedule> result) {
+        if (result.isDone()) {
+            return; // Cancelled meanwhile
+        }
+        fallback.generate(problem, algorithm, handle).whenComplete((schedule, t) -> {
+            if (t != null) {
+                result.completeExceptionally(t);
+            } else {
+                result.complete(schedule);
+            }
+        });
+    }
+}
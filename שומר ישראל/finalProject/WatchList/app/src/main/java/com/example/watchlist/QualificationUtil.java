@@ -0,0 +1,48 @@
+package com.example.watchlist;
+
+import android.app.AlertDialog;
+import android.content.Context;
+
+public class QualificationUtil {
+
+    // Bit i of a qualification mask stands for NAMES[i], so only ever append to this list.
+    public static final String[] NAMES = {"Driver", "Medic", "Commander", "Radio Operator"};
+
+    public interface MaskCallback {
+        void onMaskChosen(long mask);
+    }
+
+    public static String describe(long mask) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++) {
+            if ((mask & (1L << i)) != 0) {
+                if (text.length() > 0) {
+                    text.append(", ");
+                }
+                text.append(NAMES[i]);
+            }
+        }
+        return text.length() > 0 ? text.toString() : "None";
+    }
+
+    public static void showPicker(Context context, String title, long mask, MaskCallback callback) {
+        boolean[] checked = new boolean[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            checked[i] = (mask & (1L << i)) != 0;
+        }
+        new AlertDialog.Builder(context)
+                .setTitle(title)
+                .setMultiChoiceItems(NAMES, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("Save", (dialog, which) -> {
+                    long chosen = 0;
+                    for (int i = 0; i < NAMES.length; i++) {
+                        if (checked[i]) {
+                            chosen |= 1L << i;
+                        }
+                    }
+                    callback.onMaskChosen(chosen);
+                })
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.cancel())
+                .show();
+    }
+}
@@ -6,6 +6,7 @@ import retrofit2.converter.gson.GsonConverterFactory;
 public class RetrofitClient {
 
     private static Retrofit retrofit = null;
+    private static Retrofit serverRetrofit = null;
 
     public static FirebaseApi getApi() {
         if (retrofit == null) {
@@ -16,4 +17,18 @@ public class RetrofitClient {
         }
         return retrofit.create(FirebaseApi.class);
     }
+
+    // The same calls against another server, such as the generation server set in the settings.
+    public static synchronized FirebaseApi getApi(String baseUrl) {
+        if (!baseUrl.endsWith("/")) {
+            baseUrl += "/";
+        }
+        if (serverRetrofit == null || !serverRetrofit.baseUrl().toString().equals(baseUrl)) {
+            serverRetrofit = new Retrofit.Builder()
+                    .baseUrl(baseUrl)
+                    .addConverterFactory(GsonConverterFactory.create())
+                    .build();
+        }
+        return serverRetrofit.create(FirebaseApi.class);
+    }
 }
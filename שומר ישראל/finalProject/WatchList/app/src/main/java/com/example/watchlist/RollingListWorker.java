@@ -0,0 +1,178 @@
+package com.example.watchlist;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.watchlist.scheduler.Algorithm;
+import com.example.watchlist.scheduler.ListSettings;
+import com.example.watchlist.scheduler.LoadLedger;
+import com.example.watchlist.scheduler.Schedule;
+import com.example.watchlist.scheduler.ScheduleGenerator;
+import com.example.watchlist.scheduler.ScheduleProblem;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Response;
+
+// Keeps a rolling list built ahead of time. Each run reads the list document and stops there
+// unless the list ends within LOOKAHEAD_HOURS. Then the next day is generated on its own, seeded
+// with the list's stored share of the load so the rotation and everyone's rest carry on from the
+// last day, and only that day's page is uploaded. The job waits for a network and a battery that
+// is not low; Doze only delays it, and the lookahead covers the delay.
+public class RollingListWorker extends Worker {
+    private static final String TAG = "RollingListWorker";
+    private static final String KEY_TEAM_NAME = "team_name";
+    private static final String KEY_LIST_NAME = "list_name";
+    private static final int BLOCK_HOURS = 24;
+    private static final int LOOKAHEAD_HOURS = 48;
+    private static final long PERIOD_HOURS = 6;
+    // Catching up after the phone was off for days is spread over runs.
+    private static final int MAX_BLOCKS_PER_RUN = 7;
+    // The server's MAX_ROLLING_PAGES: every page is read back to edit or repair a list.
+    private static final int MAX_DAYS = 90;
+
+    public RollingListWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // Only balanced lists of whole days roll: their hourly slots and daily pages line up with
+    // every day added, while the slots of the other algorithm depend on the list's length.
+    public static boolean canRoll(Map<String, Object> data) {
+        Number duration = (Number) data.get("duration");
+        return Algorithm.BALANCED.getLabel().equals(data.get("algorithm"))
+                && data.get("startDate") != null
+                && duration != null && duration.intValue() % BLOCK_HOURS == 0;
+    }
+
+    // Keeps an already scheduled job as it is, so every device showing the list may call this.
+    public static void start(Context context, String teamName, String listName) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        Data input = new Data.Builder()
+                .putString(KEY_TEAM_NAME, teamName)
+                .putString(KEY_LIST_NAME, listName)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(RollingListWorker.class, PERIOD_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .setInputData(input)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(workName(teamName, listName), ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    public static void stop(Context context, String teamName, String listName) {
+        WorkManager.getInstance(context).cancelUniqueWork(workName(teamName, listName));
+    }
+
+    private static String workName(String teamName, String listName) {
+        return "rolling/" + teamName + "/" + listName;
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String teamName = getInputData().getString(KEY_TEAM_NAME);
+        String listName = getInputData().getString(KEY_LIST_NAME);
+        try {
+            for (int i = 0; i < MAX_BLOCKS_PER_RUN; i++) {
+                Response<Map<String, Object>> response = RetrofitClient.getApi().getWatchList(teamName, listName).execute();
+                if (response.code() == 404) {
+                    stop(getApplicationContext(), teamName, listName); // The list was deleted
+                    return Result.success();
+                }
+                if (!response.isSuccessful() || response.body() == null) {
+                    Log.w(TAG, "Error fetching " + listName + ". Response code: " + response.code());
+                    return Result.retry();
+                }
+                Map<String, Object> data = response.body();
+                if (!Boolean.TRUE.equals(data.get("rolling")) || !canRoll(data)) {
+                    stop(getApplicationContext(), teamName, listName);
+                    return Result.success();
+                }
+                if (((Number) data.get("duration")).intValue() >= MAX_DAYS * BLOCK_HOURS) {
+                    Log.d(TAG, listName + " is " + MAX_DAYS + " days long and stops rolling");
+                    stop(getApplicationContext(), teamName, listName);
+                    return Result.success();
+                }
+                if (!endsWithinLookahead(data)) {
+                    return Result.success();
+                }
+                if (!extend(teamName, listName, data)) {
+                    return Result.retry();
+                }
+            }
+            return Result.success();
+        } catch (IOException e) {
+            Log.w(TAG, "Error extending " + listName + ".", e);
+            return Result.retry();
+        }
+    }
+
+    private static boolean endsWithinLookahead(Map<String, Object> data) {
+        long listStart = BuildListHelper.parseListStart((String) data.get("startDate"), ListSettings.parseTime((String) data.get("startHour")));
+        long listEnd = listStart + TimeUnit.HOURS.toMillis(((Number) data.get("duration")).longValue());
+        return listEnd - System.currentTimeMillis() < TimeUnit.HOURS.toMillis(LOOKAHEAD_HOURS);
+    }
+
+    // Generates and uploads the day after the list. False when it should be tried again later;
+    // true also when another device added the same day first.
+    private static boolean extend(String teamName, String listName, Map<String, Object> data) throws IOException {
+        FirebaseApi api = RetrofitClient.getApi();
+        Response<Map<String, Map<String, Long>>> share = api.getLoadShare(teamName, listName).execute();
+        if (!share.isSuccessful() || share.body() == null) {
+            Log.w(TAG, "Error fetching load of " + listName + ". Response code: " + share.code());
+            return false;
+        }
+        Map<String, Object> blockData = ListSettings.nextBlock(data, BLOCK_HOURS);
+        ScheduleProblem problem = BuildListHelper.problemOf(blockData, Collections.<String>emptyList());
+        if (problem.hasQualifications()) {
+            Response<Map<String, Long>> qualifications = api.getQualifications(teamName).execute();
+            if (qualifications.isSuccessful() && qualifications.body() != null) {
+                problem.setSoldierQualifications(qualifications.body());
+            }
+        }
+        Response<Map<String, List<Unavailability>>> unavailability = api.getUnavailability(teamName).execute();
+        if (unavailability.isSuccessful() && unavailability.body() != null) {
+            long blockStartMillis = BuildListHelper.parseListStart((String) blockData.get("startDate"), ListSettings.parseTime((String) blockData.get("startHour")));
+            problem.setUnavailability(BuildListHelper.toListMinutes(unavailability.body(), blockStartMillis, problem.getDurationMinutes()));
+        }
+        LoadLedger ledger = BuildListHelper.toLedger(share.body());
+        problem.setHistory(ledger, problem.getStartEpochMinute());
+        Schedule block = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        ledger.addAll(LoadLedger.of(block, problem.getStartEpochMinute()));
+
+        int duration = ((Number) data.get("duration")).intValue();
+        int page = duration / BLOCK_HOURS;
+        Map<String, Object> pageData = new HashMap<>();
+        pageData.put("schedule", ListSettings.blockRows(block));
+        Map<String, Object> extension = new HashMap<>();
+        extension.put("pageData", pageData);
+        extension.put("duration", duration + BLOCK_HOURS);
+        extension.put("numPages", page + 1);
+        extension.put("loads", BuildListHelper.toLoads(ledger));
+        Response<Void> response = api.extendList(teamName, listName, page, extension).execute();
+        if (response.isSuccessful()) {
+            Log.d(TAG, "Added day " + (page + 1) + " to " + listName);
+        } else if (response.code() != 409) {
+            Log.w(TAG, "Error extending " + listName + ". Response code: " + response.code());
+            return false;
+        }
+        return true;
+    }
+}
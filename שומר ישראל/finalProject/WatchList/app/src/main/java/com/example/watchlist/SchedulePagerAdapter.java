@@ -1,35 +1,43 @@
 package com.example.watchlist;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.GridLayout;
+import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.watchlist.scheduler.Schedule;
+import com.example.watchlist.scheduler.ScheduleMetrics;
+import com.example.watchlist.scheduler.ScheduleValidator;
+import com.example.watchlist.scheduler.SchedulerPool;
+
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class SchedulePagerAdapter extends RecyclerView.Adapter<SchedulePagerAdapter.ViewHolder> {
-    private List<String[][]> schedules;
+    private static final Object METRICS_PAYLOAD = new Object();
+
+    private List<Schedule> schedules;
     private List<String> posts;
-    private int startHour, startMinute;
-    private List<String[][]> balancedSchedules;
     private Context context;
-    private int durationMinutes;
-    private int numSoldiers;
+    // Metrics and checks per shown schedule, null while they are still being computed.
+    private final Map<Schedule, ScheduleMetrics> metrics = new IdentityHashMap<>();
+    private final Map<Schedule, ScheduleValidator> validations = new IdentityHashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    public SchedulePagerAdapter(Context context, List<String[][]> schedules, List<String> posts, int startHour, int startMinute, List<String[][]> balancedSchedules, int durationMinutes, int numSoldiers) {
+    public SchedulePagerAdapter(Context context, List<Schedule> schedules, List<String> posts) {
         this.context = context;
         this.schedules = schedules;
         this.posts = posts;
-        this.startHour = startHour;
-        this.startMinute = startMinute;
-        this.balancedSchedules = balancedSchedules;
-        this.durationMinutes = durationMinutes;
-        this.numSoldiers = numSoldiers;
     }
 
     @NonNull
@@ -41,10 +49,76 @@ public class SchedulePagerAdapter extends RecyclerView.Adapter<SchedulePagerAdap
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        String[][] schedule = schedules.get(position);
-        boolean isBalancedAlgorithm = position >= schedules.size() - balancedSchedules.size();
-        float currentTimeSlotDuration = isBalancedAlgorithm ? 60 : (float) durationMinutes / numSoldiers;
-        holder.bind(schedule, posts, startHour, startMinute, currentTimeSlotDuration);
+        Schedule schedule = schedules.get(position);
+        holder.bind(schedule, posts);
+        holder.showMetrics(metricsFor(schedule), validations.get(schedule));
+    }
+
+    // Metrics arriving later only refresh the summary, so the page keeps its scroll position.
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(METRICS_PAYLOAD)) {
+            Schedule schedule = schedules.get(position);
+            holder.showMetrics(metrics.get(schedule), validations.get(schedule));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
+    }
+
+    // Schedules shown without metrics are scored and checked on the scheduler pool, the page is drawn first.
+    private ScheduleMetrics metricsFor(Schedule schedule) {
+        if (metrics.containsKey(schedule)) {
+            return metrics.get(schedule);
+        }
+        metrics.put(schedule, null);
+        CompletableFuture.runAsync(() -> {
+            ScheduleMetrics result = ScheduleMetrics.of(schedule);
+            ScheduleValidator validation = ScheduleValidator.validate(schedule);
+            mainHandler.post(() -> {
+                int position = schedules.indexOf(schedule);
+                if (position >= 0) {
+                    metrics.put(schedule, result);
+                    validations.put(schedule, validation);
+                    notifyItemChanged(position, METRICS_PAYLOAD);
+                }
+            });
+        }, SchedulerPool.get());
+        return null;
+    }
+
+    public Schedule getSchedule(int position) {
+        return schedules.get(position);
+    }
+
+    public void insertSchedule(int position, Schedule schedule) {
+        schedules.add(position, schedule);
+        notifyItemInserted(position);
+    }
+
+    public void insertSchedule(int position, Schedule schedule, ScheduleMetrics scheduleMetrics, ScheduleValidator validation) {
+        metrics.put(schedule, scheduleMetrics);
+        validations.put(schedule, validation);
+        insertSchedule(position, schedule);
+    }
+
+    public void replaceSchedule(Schedule oldSchedule, Schedule newSchedule) {
+        int position = schedules.indexOf(oldSchedule);
+        if (position >= 0) {
+            metrics.remove(oldSchedule);
+            validations.remove(oldSchedule);
+            schedules.set(position, newSchedule);
+            notifyItemChanged(position);
+        }
+    }
+
+    public void removeSchedule(Schedule schedule) {
+        int position = schedules.indexOf(schedule);
+        if (position >= 0) {
+            metrics.remove(schedule);
+            validations.remove(schedule);
+            schedules.remove(position);
+            notifyItemRemoved(position);
+        }
     }
 
     @Override
@@ -53,52 +127,49 @@ public class SchedulePagerAdapter extends RecyclerView.Adapter<SchedulePagerAdap
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
-        private GridLayout gridLayout;
+        private TextView summaryView;
+        private LinearLayout headerLayout;
+        private RecyclerView rowsView;
 
         public ViewHolder(@NonNull View itemView) {
             super(itemView);
-            gridLayout = itemView.findViewById(R.id.gridLayoutSchedule);
+            summaryView = itemView.findViewById(R.id.textViewScheduleSummary);
+            headerLayout = itemView.findViewById(R.id.layoutScheduleHeader);
+            rowsView = itemView.findViewById(R.id.recyclerViewScheduleRows);
+            rowsView.setLayoutManager(new LinearLayoutManager(itemView.getContext()));
         }
 
-        public void bind(String[][] schedule, List<String> posts, int startHour, int startMinute, float timeSlotDuration) {
-            gridLayout.removeAllViews();
-            gridLayout.setColumnCount(posts.size() + 1);
-
-            // Add header row
+        public void bind(Schedule schedule, List<String> posts) {
+            headerLayout.removeAllViews();
             for (String post : posts) {
-                gridLayout.addView(createTextView(post));
+                headerLayout.addView(ScheduleRowAdapter.createCell(itemView.getContext(), post));
             }
-            gridLayout.addView(createTextView("Time"));
+            headerLayout.addView(ScheduleRowAdapter.createCell(itemView.getContext(), "Time"));
 
-            // Add schedule data
-            for (int i = 0; i < schedule[0].length; i++) {
-                for (int j = 0; j < schedule.length; j++) {
-                    gridLayout.addView(createTextView(schedule[j][i]));
-                }
-                int[] currentTime = addMinutes(startHour, startMinute, (int) (i * timeSlotDuration));
-                int hour = currentTime[0];
-                int minute = currentTime[1];
-                minute=roundUpToNearest5(minute);
-                gridLayout.addView(createTextView(String.format("%02d:%02d", hour, minute)));
-            }
+            rowsView.setAdapter(new ScheduleRowAdapter(schedule));
         }
-        private int roundUpToNearest5(int minute) {
-            return (int) (Math.ceil(minute / 5.0) * 5) % 60;
-        }
-
 
-        private TextView createTextView(String text) {
-            TextView textView = new TextView(itemView.getContext());
-            textView.setText(text);
-            textView.setPadding(8, 8, 8, 8);
-            return textView;
+        public void showMetrics(ScheduleMetrics metrics, ScheduleValidator validation) {
+            if (metrics == null) {
+                summaryView.setText("Scoring...");
+                return;
+            }
+            String minRest = metrics.getMinRestGapMinutes() == ScheduleMetrics.NO_GAP
+                    ? "-" : formatHours(metrics.getMinRestGapMinutes());
+            String summary = String.format("Score %.1f · Hours %s-%s · Longest streak %s · Min rest %s · Post rotation %d%%",
+                    metrics.getScore(), formatHours(metrics.getMinTotalMinutes()), formatHours(metrics.getMaxTotalMinutes()),
+                    formatHours(metrics.getMaxStreakMinutes()), minRest, Math.round(metrics.getMeanRotationEntropy() * 100));
+            if (validation != null && validation.getDoubleBookings() > 0) {
+                summary += " · " + validation.getDoubleBookings() + " double-booked";
+            }
+            if (validation != null && validation.getUnfilledSeats() > 0) {
+                summary += " · " + validation.getUnfilledSeats() + " seats unfilled";
+            }
+            summaryView.setText(summary);
         }
 
-        private int[] addMinutes(int hour, int minute, int minutesToAdd) {
-            int totalMinutes = hour * 60 + minute + minutesToAdd;
-            int newHour = (totalMinutes / 60) % 24;
-            int newMinute = (totalMinutes % 60);
-            return new int[]{newHour, newMinute};
+        private static String formatHours(long minutes) {
+            return minutes % 60 == 0 ? (minutes / 60) + "h" : String.format("%.1fh", minutes / 60.0);
         }
     }
 }
@@ -0,0 +1,65 @@
+package com.example.watchlist;
+
+import android.content.Context;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.watchlist.scheduler.Schedule;
+
+// One row per slot, bound only while on screen, so a list of many days never builds a view per cell.
+public class ScheduleRowAdapter extends RecyclerView.Adapter<ScheduleRowAdapter.ViewHolder> {
+    static final int CELL_WIDTH_DP = 96;
+
+    private final Schedule schedule;
+
+    public ScheduleRowAdapter(Schedule schedule) {
+        this.schedule = schedule;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LinearLayout row = new LinearLayout(parent.getContext());
+        row.setOrientation(LinearLayout.HORIZONTAL);
+        for (int j = 0; j <= schedule.getNumPosts(); j++) {
+            row.addView(createCell(parent.getContext(), ""));
+        }
+        return new ViewHolder(row);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        // Names are only resolved here at display time
+        for (int j = 0; j < schedule.getNumPosts(); j++) {
+            ((TextView) holder.row.getChildAt(j)).setText(schedule.cellText(position, j));
+        }
+        ((TextView) holder.row.getChildAt(schedule.getNumPosts())).setText(schedule.getSlots().label(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return schedule.getNumSlots();
+    }
+
+    static TextView createCell(Context context, String text) {
+        TextView textView = new TextView(context);
+        textView.setText(text);
+        textView.setPadding(8, 8, 8, 8);
+        int width = (int) (CELL_WIDTH_DP * context.getResources().getDisplayMetrics().density);
+        textView.setLayoutParams(new LinearLayout.LayoutParams(width, LinearLayout.LayoutParams.WRAP_CONTENT));
+        return textView;
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        private final LinearLayout row;
+
+        public ViewHolder(@NonNull LinearLayout row) {
+            super(row);
+            this.row = row;
+        }
+    }
+}
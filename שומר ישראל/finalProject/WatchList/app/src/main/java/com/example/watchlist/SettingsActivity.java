@@ -2,6 +2,7 @@ package com.example.watchlist;
 
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.widget.EditText;
 import android.widget.Switch;
 
 import androidx.appcompat.app.AppCompatActivity;
@@ -11,10 +12,21 @@ public class SettingsActivity extends AppCompatActivity {
 
     private Switch switchDarkMode;
     private Switch switchNotifications;
+    private Switch switchCandidateMode;
+    private EditText editTextCandidateCount;
+    private EditText editTextCandidateTop;
+    private EditText editTextGenerationServer;
     private SharedPreferences sharedPreferences;
-    private static final String PREFS_NAME = "AppSettings";
+    static final String PREFS_NAME = "AppSettings";
     private static final String DARK_MODE_KEY = "dark_mode";
     private static final String NOTIFICATIONS_KEY = "notifications_enabled";
+    static final String CANDIDATE_MODE_KEY = "candidate_mode";
+    static final String CANDIDATE_COUNT_KEY = "candidate_count";
+    static final String CANDIDATE_TOP_KEY = "candidate_top";
+    // Address of a server large lists are generated on, blank to generate every list on the phone.
+    static final String GENERATION_SERVER_KEY = "generation_server";
+    static final int DEFAULT_CANDIDATE_COUNT = 16;
+    static final int DEFAULT_CANDIDATE_TOP = 5;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -23,16 +35,25 @@ public class SettingsActivity extends AppCompatActivity {
 
         switchDarkMode = findViewById(R.id.switchDarkMode);
         switchNotifications = findViewById(R.id.switchNotifications);
+        switchCandidateMode = findViewById(R.id.switchCandidateMode);
+        editTextCandidateCount = findViewById(R.id.editTextCandidateCount);
+        editTextCandidateTop = findViewById(R.id.editTextCandidateTop);
+        editTextGenerationServer = findViewById(R.id.editTextGenerationServer);
 
         sharedPreferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
 
         // Load saved preferences
         boolean isDarkMode = sharedPreferences.getBoolean(DARK_MODE_KEY, false);
         boolean notificationsEnabled = sharedPreferences.getBoolean(NOTIFICATIONS_KEY, true);
+        boolean candidateMode = sharedPreferences.getBoolean(CANDIDATE_MODE_KEY, false);
 
         // Apply saved preferences
         switchDarkMode.setChecked(isDarkMode);
         switchNotifications.setChecked(notificationsEnabled);
+        switchCandidateMode.setChecked(candidateMode);
+        editTextCandidateCount.setText(String.valueOf(sharedPreferences.getInt(CANDIDATE_COUNT_KEY, DEFAULT_CANDIDATE_COUNT)));
+        editTextCandidateTop.setText(String.valueOf(sharedPreferences.getInt(CANDIDATE_TOP_KEY, DEFAULT_CANDIDATE_TOP)));
+        editTextGenerationServer.setText(sharedPreferences.getString(GENERATION_SERVER_KEY, ""));
 
         // Set listeners for changes
         switchDarkMode.setOnCheckedChangeListener((buttonView, isChecked) -> {
@@ -43,6 +64,20 @@ public class SettingsActivity extends AppCompatActivity {
         switchNotifications.setOnCheckedChangeListener((buttonView, isChecked) -> {
             savePreferences(NOTIFICATIONS_KEY, isChecked);
         });
+
+        switchCandidateMode.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            savePreferences(CANDIDATE_MODE_KEY, isChecked);
+        });
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        saveIntPreference(CANDIDATE_COUNT_KEY, editTextCandidateCount, DEFAULT_CANDIDATE_COUNT);
+        saveIntPreference(CANDIDATE_TOP_KEY, editTextCandidateTop, DEFAULT_CANDIDATE_TOP);
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putString(GENERATION_SERVER_KEY, editTextGenerationServer.getText().toString().trim());
+        editor.apply();
     }
 
     private void setAppTheme(boolean isDarkMode) {
@@ -58,4 +93,16 @@ public class SettingsActivity extends AppCompatActivity {
         editor.putBoolean(key, value);
         editor.apply();
     }
+
+    private void saveIntPreference(String key, EditText editText, int defaultValue) {
+        int value;
+        try {
+            value = Math.max(1, Integer.parseInt(editText.getText().toString()));
+        } catch (NumberFormatException e) {
+            value = defaultValue;
+        }
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putInt(key, value);
+        editor.apply();
+    }
 }
@@ -1,21 +1,32 @@
 package com.example.watchlist;
 
+import android.app.DatePickerDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.InputType;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.TextView;
+import android.widget.Toast;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.watchlist.scheduler.Algorithm;
+import com.example.watchlist.scheduler.ListSettings;
+
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -52,8 +63,9 @@ public class WatchListsActivity extends AppCompatActivity {
             public void onResponse(Call<List<WatchList>> call, Response<List<WatchList>> response) {
                 if (response.isSuccessful()) {
                     List<WatchList> watchLists = response.body();
+                    LinearLayout layout = findViewById(R.id.watchListsLayout);
+                    layout.removeAllViews();
                     if (watchLists != null && !watchLists.isEmpty()) {
-                        LinearLayout layout = findViewById(R.id.watchListsLayout);
                         for (WatchList watchList : watchLists) {
                             String listName = watchList.getListName();
                             long timestamp = watchList.getTimestamp();
@@ -110,6 +122,9 @@ public class WatchListsActivity extends AppCompatActivity {
         if (id == R.id.action_add) {
             CreateNewList();
             return true;
+        } else if (id == R.id.action_generate_from_template) {
+            fetchTemplates();
+            return true;
         } else if (id == R.id.action_approve_delete) {
             // confirmDeleteSelectedMembers();
             return true;
@@ -120,6 +135,105 @@ public class WatchListsActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
+    private void fetchTemplates() {
+        RetrofitClient.getApi().getTemplates(teamName).enqueue(new Callback<List<Map<String, Object>>>() {
+            @Override
+            public void onResponse(Call<List<Map<String, Object>>> call, Response<List<Map<String, Object>>> response) {
+                if (response.isSuccessful() && response.body() != null && !response.body().isEmpty()) {
+                    showChooseTemplateDialog(response.body());
+                } else if (response.isSuccessful()) {
+                    Toast.makeText(WatchListsActivity.this, "No templates saved yet", Toast.LENGTH_SHORT).show();
+                } else {
+                    Log.e(TAG, "Error getting templates: " + response.message());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<List<Map<String, Object>>> call, Throwable t) {
+                Log.e(TAG, "Error getting templates: ", t);
+            }
+        });
+    }
+
+    private void showChooseTemplateDialog(List<Map<String, Object>> templates) {
+        String[] names = new String[templates.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = (String) templates.get(i).remove("templateName");
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Choose a template")
+                .setItems(names, (dialog, which) -> showSeriesDialog(names[which], templates.get(which)))
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.cancel())
+                .show();
+    }
+
+    // Lists are named "<name> 1", "<name> 2" and so on. Each starts the given number of days
+    // after the one before, shifted by the given number of hours.
+    private void showSeriesDialog(String templateName, Map<String, Object> template) {
+        LinearLayout layout = new LinearLayout(this);
+        layout.setOrientation(LinearLayout.VERTICAL);
+        EditText editTextName = addField(layout, "Name", templateName, InputType.TYPE_CLASS_TEXT);
+        TextView textViewFirstDate = new TextView(this);
+        textViewFirstDate.setText(new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault()).format(new Date()));
+        textViewFirstDate.setTextSize(18);
+        textViewFirstDate.setPadding(0, 16, 0, 16);
+        textViewFirstDate.setOnClickListener(v -> {
+            Calendar calendar = Calendar.getInstance();
+            new DatePickerDialog(this, (view, year, month, dayOfMonth) ->
+                    textViewFirstDate.setText(String.format(Locale.US, "%02d/%02d/%04d", dayOfMonth, month + 1, year)),
+                    calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH)).show();
+        });
+        layout.addView(textViewFirstDate);
+        EditText editTextCount = addField(layout, "Number of lists", "7", InputType.TYPE_CLASS_NUMBER);
+        EditText editTextEveryDays = addField(layout, "Days between lists", "1", InputType.TYPE_CLASS_NUMBER);
+        EditText editTextOffsetHours = addField(layout, "Hours to shift each start", "0", InputType.TYPE_CLASS_NUMBER);
+
+        new AlertDialog.Builder(this)
+                .setTitle("Generate from " + templateName)
+                .setView(layout)
+                .setPositiveButton("Generate", (dialog, which) -> {
+                    String baseName = editTextName.getText().toString().trim();
+                    int count = parseOr(editTextCount, 0);
+                    if (baseName.isEmpty() || count <= 0) {
+                        Toast.makeText(this, "Enter a name and a number of lists", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    LocalDate firstDate = ListSettings.parseStartDate(textViewFirstDate.getText().toString());
+                    int[] time = ListSettings.parseTime((String) template.get("startHour"));
+                    List<Map<String, Object>> lists = ListSettings.series(template, baseName, firstDate.atTime(time[0], time[1]),
+                            count, parseOr(editTextEveryDays, 1), parseOr(editTextOffsetHours, 0));
+                    generateSeries(lists);
+                })
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.cancel())
+                .show();
+    }
+
+    private void generateSeries(List<Map<String, Object>> lists) {
+        Toast.makeText(this, "Generating " + lists.size() + " lists...", Toast.LENGTH_SHORT).show();
+        BuildListHelper.generateSeries(teamName, lists, Algorithm.BALANCED, numLists -> {
+            if (numLists > 0) {
+                Toast.makeText(this, numLists + " lists added", Toast.LENGTH_SHORT).show();
+                loadWatchLists();
+            } else {
+                Toast.makeText(this, "Could not generate the lists", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private EditText addField(LinearLayout layout, String hint, String value, int inputType) {
+        EditText editText = new EditText(this);
+        editText.setHint(hint);
+        editText.setText(value);
+        editText.setInputType(inputType);
+        layout.addView(editText);
+        return editText;
+    }
+
+    private static int parseOr(EditText editText, int fallback) {
+        String text = editText.getText().toString();
+        return text.isEmpty() ? fallback : Integer.parseInt(text);
+    }
+
     private void CreateNewList() {
         Intent intent = new Intent(this, CreateNewList.class);
         intent.putExtra("TEAM_NAME", teamName);
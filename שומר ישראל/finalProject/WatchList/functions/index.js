@@ -4,6 +4,13 @@ const admin = require("firebase-admin");
 admin.initializeApp();
 const db = admin.firestore();
 
+const MAX_BATCH_WRITES = 500;
+// The largest problem OffloadServer takes.
+const MAX_PROBLEM_BYTES = 16 << 20;
+// A rolling list stops growing after this many days. Every page is read back to edit or repair
+// a list, so it cannot grow forever; a longer run goes on in a new list.
+const MAX_ROLLING_PAGES = 90;
+
 exports.getTeams = functions.https.onRequest(async (req, res) => {
     try {
         const teamsSnapshot = await db.collection("Teams").get();
@@ -83,6 +90,229 @@ exports.updateMembers = functions.https.onRequest(async (req, res) => {
     }
 });
 
+exports.getQualifications = functions.https.onRequest(async (req, res) => {
+    const teamName = req.query.teamName;
+    if (!teamName) {
+        res.status(400).send('Team name is required');
+        return;
+    }
+    try {
+        const teamDoc = await db.collection("Teams").doc(teamName).get();
+        if (teamDoc.exists) {
+            res.status(200).json(teamDoc.data().qualifications || {});
+        } else {
+            res.status(404).send('Team not found');
+        }
+    } catch (error) {
+        console.error("Error getting qualifications:", error);
+        res.status(500).send('Error getting qualifications');
+    }
+});
+
+exports.updateQualifications = functions.https.onRequest(async (req, res) => {
+    const teamName = req.query.teamName;
+    const qualifications = req.body;
+    if (!teamName || !qualifications) {
+        res.status(400).send('Team name and qualifications are required');
+        return;
+    }
+    try {
+        await db.collection("Teams").doc(teamName).update({ qualifications });
+        res.status(200).send('Qualifications updated successfully');
+    } catch (error) {
+        console.error("Error updating qualifications:", error);
+        res.status(500).send('Error updating qualifications');
+    }
+});
+
+exports.getUnavailability = functions.https.onRequest(async (req, res) => {
+    const teamName = req.query.teamName;
+    if (!teamName) {
+        res.status(400).send('Team name is required');
+        return;
+    }
+    try {
+        const teamDoc = await db.collection("Teams").doc(teamName).get();
+        if (teamDoc.exists) {
+            res.status(200).json(teamDoc.data().unavailability || {});
+        } else {
+            res.status(404).send('Team not found');
+        }
+    } catch (error) {
+        console.error("Error getting unavailability:", error);
+        res.status(500).send('Error getting unavailability');
+    }
+});
+
+// Body: { memberName: [{ from, to, reason }] } with from and to in epoch milliseconds.
+exports.updateUnavailability = functions.https.onRequest(async (req, res) => {
+    const teamName = req.query.teamName;
+    const unavailability = req.body;
+    if (!teamName || !unavailability) {
+        res.status(400).send('Team name and unavailability are required');
+        return;
+    }
+    try {
+        await db.collection("Teams").doc(teamName).update({ unavailability });
+        res.status(200).send('Unavailability updated successfully');
+    } catch (error) {
+        console.error("Error updating unavailability:", error);
+        res.status(500).send('Error updating unavailability');
+    }
+});
+
+// With listName, that list's own share is left out, so rebuilding a list does not count its old schedule.
+// With before, in epoch minutes, lastEnd is the last end at or before it among the lists' shares, so
+// lists dated later do not hold anyone's rest into a list generated before them.
+exports.getLoadLedger = functions.https.onRequest(async (req, res) => {
+    const teamName = req.query.teamName;
+    const listName = req.query.listName;
+    const before = req.query.before !== undefined ? Number(req.query.before) : undefined;
+    if (!teamName || (before !== undefined && !Number.isFinite(before))) {
+        res.status(400).send('Team name is required');
+        return;
+    }
+    try {
+        const teamRef = db.collection("Teams").doc(teamName);
+        const teamDoc = await teamRef.get();
+        if (teamDoc.exists) {
+            const ledger = teamDoc.data().loadLedger || {};
+            if (listName || before !== undefined) {
+                const shareDocs = await teamRef.collection("LoadLedger").get();
+                const lastEnds = {};
+                shareDocs.forEach(shareDoc => {
+                    for (const [name, load] of Object.entries(shareDoc.data().loads || {})) {
+                        if (shareDoc.id === listName) {
+                            if (ledger[name]) {
+                                ledger[name].minutes -= load.minutes;
+                                ledger[name].nightMinutes -= load.nightMinutes;
+                            }
+                        } else if (before === undefined || load.lastEnd <= before) {
+                            lastEnds[name] = Math.max(lastEnds[name] ?? load.lastEnd, load.lastEnd);
+                        }
+                    }
+                });
+                for (const [name, load] of Object.entries(ledger)) {
+                    if (lastEnds[name] !== undefined) {
+                        load.lastEnd = lastEnds[name];
+                    } else {
+                        delete load.lastEnd;
+                    }
+                }
+            }
+            res.status(200).json(ledger);
+        } else {
+            res.status(404).send('Team not found');
+        }
+    } catch (error) {
+        console.error("Error getting load ledger:", error);
+        res.status(500).send('Error getting load ledger');
+    }
+});
+
+// A batch holds at most 500 writes, so longer runs of writes are committed in several.
+async function commitInBatches(writes) {
+    for (let i = 0; i < writes.length; i += MAX_BATCH_WRITES) {
+        const batch = db.batch();
+        writes.slice(i, i + MAX_BATCH_WRITES).forEach(write => write(batch));
+        await batch.commit();
+    }
+}
+
+// A list and its pages. The list document goes last, so a list that fails halfway can still be found
+// and deleted again.
+async function deleteListDocuments(listRef) {
+    const pages = await listRef.collection("SchedulePages").get();
+    const writes = pages.docs.map(doc => batch => batch.delete(doc.ref));
+    writes.push(batch => batch.delete(listRef));
+    await commitInBatches(writes);
+}
+
+// Each list's share of the team's load is kept in LoadLedger/{listName} and the team document holds
+// their sum, so saving a list swaps its old share for the new one instead of re-reading every list.
+// A null share removes the list. lastEnd only moves forward.
+async function replaceLoadShare(teamName, listName, share) {
+    await replaceLoadShares(teamName, { [listName]: share });
+}
+
+// Several lists' shares in one transaction, as { listName: share or null }.
+async function replaceLoadShares(teamName, shares) {
+    const teamRef = db.collection("Teams").doc(teamName);
+    const listNames = Object.keys(shares);
+    const shareRefs = listNames.map(listName => teamRef.collection("LoadLedger").doc(listName));
+    await db.runTransaction(async (tx) => {
+        const teamDoc = await tx.get(teamRef);
+        const oldDocs = shareRefs.length > 0 ? await tx.getAll(...shareRefs) : [];
+        if (!teamDoc.exists) {
+            return;
+        }
+        const ledger = teamDoc.data().loadLedger || {};
+        oldDocs.forEach((oldDoc, i) => {
+            const oldShare = oldDoc.exists ? oldDoc.data().loads || {} : {};
+            for (const [name, load] of Object.entries(oldShare)) {
+                const total = ledger[name];
+                if (!total) {
+                    continue;
+                }
+                total.minutes -= load.minutes;
+                total.nightMinutes -= load.nightMinutes;
+                if (total.minutes <= 0 && total.nightMinutes <= 0) {
+                    delete ledger[name];
+                }
+            }
+            for (const [name, load] of Object.entries(shares[listNames[i]] || {})) {
+                const total = ledger[name] || { minutes: 0, nightMinutes: 0, lastEnd: load.lastEnd };
+                total.minutes += load.minutes;
+                total.nightMinutes += load.nightMinutes;
+                total.lastEnd = Math.max(total.lastEnd, load.lastEnd);
+                ledger[name] = total;
+            }
+        });
+        tx.update(teamRef, { loadLedger: ledger });
+        shareRefs.forEach((shareRef, i) => {
+            const share = shares[listNames[i]];
+            if (share) {
+                tx.set(shareRef, { loads: share });
+            } else {
+                tx.delete(shareRef);
+            }
+        });
+    });
+}
+
+// One list's own share of the team's load, {} if it has none yet.
+exports.getLoadShare = functions.https.onRequest(async (req, res) => {
+    const { teamName, listName } = req.query;
+    if (!teamName || !listName) {
+        res.status(400).send('Team name and list name are required');
+        return;
+    }
+    try {
+        const shareDoc = await db.collection("Teams").doc(teamName).collection("LoadLedger").doc(listName).get();
+        res.status(200).json(shareDoc.exists ? shareDoc.data().loads || {} : {});
+    } catch (error) {
+        console.error("Error getting load share:", error);
+        res.status(500).send('Error getting load share');
+    }
+});
+
+// Body: { memberName: { minutes, nightMinutes, lastEnd } } for one list, lastEnd in epoch minutes.
+exports.updateLoadLedger = functions.https.onRequest(async (req, res) => {
+    const teamName = req.query.teamName;
+    const listName = req.query.listName;
+    const share = req.body;
+    if (!teamName || !listName || !share) {
+        res.status(400).send('Team name, list name and load are required');
+        return;
+    }
+    try {
+        await replaceLoadShare(teamName, listName, share);
+        res.status(200).send('Load ledger updated successfully');
+    } catch (error) {
+        console.error("Error updating load ledger:", error);
+        res.status(500).send('Error updating load ledger');
+    }
+});
 
 exports.deleteMember = functions.https.onRequest(async (req, res) => {
     const teamName = req.query.teamName;
@@ -97,7 +327,11 @@ exports.deleteMember = functions.https.onRequest(async (req, res) => {
             const members = teamDoc.data().members;
             if (members && members.hasOwnProperty(memberName)) {
                 delete members[memberName];
-                await db.collection("Teams").doc(teamName).update({ members });
+                const qualifications = teamDoc.data().qualifications || {};
+                delete qualifications[memberName];
+                const unavailability = teamDoc.data().unavailability || {};
+                delete unavailability[memberName];
+                await db.collection("Teams").doc(teamName).update({ members, qualifications, unavailability });
                 res.status(200).send('Member deleted successfully');
             } else {
                 res.status(404).send('Member not found');
@@ -182,7 +416,9 @@ exports.deleteWatchList = functions.https.onRequest(async (req, res) => {
         return;
     }
     try {
-        await db.collection("Teams").doc(teamName).collection("Lists").doc(listName).delete();
+        const listRef = db.collection("Teams").doc(teamName).collection("Lists").doc(listName);
+        await deleteListDocuments(listRef);
+        await replaceLoadShare(teamName, listName, null);
         res.status(200).send('Watch list deleted successfully');
     } catch (error) {
         console.error("Error deleting watch list:", error);
@@ -231,6 +467,85 @@ exports.saveSchedule = functions.https.onRequest(async (req, res) => {
     }
 });
 
+// Later days of a multi-day list; day 0 stays in the list document's "schedule" field.
+exports.getSchedulePage = functions.https.onRequest(async (req, res) => {
+    const { teamName, listName, page } = req.query;
+
+    if (!teamName || !listName || page === undefined) {
+        res.status(400).send("Team name, list name, and page are required");
+        return;
+    }
+
+    try {
+        const doc = await db.collection("Teams").doc(teamName).collection("Lists").doc(listName).collection("SchedulePages").doc(String(page)).get();
+        if (doc.exists) {
+            res.status(200).json(doc.data());
+        } else {
+            res.status(404).send("Page not found");
+        }
+    } catch (error) {
+        console.error("Error fetching schedule page: ", error);
+        res.status(500).send("Error fetching schedule page: " + error.message);
+    }
+});
+
+exports.saveSchedulePage = functions.https.onRequest(async (req, res) => {
+    const { teamName, listName, page } = req.query;
+    const pageData = req.body;
+
+    if (!teamName || !listName || page === undefined || !pageData) {
+        res.status(400).send("Team name, list name, page, and page data are required");
+        return;
+    }
+
+    try {
+        await db.collection("Teams").doc(teamName).collection("Lists").doc(listName).collection("SchedulePages").doc(String(page)).set(pageData);
+        res.status(200).send("Schedule page successfully saved!");
+    } catch (error) {
+        console.error("Error saving schedule page: ", error);
+        res.status(500).send("Error saving schedule page: " + error.message);
+    }
+});
+
+// Appends one day to a rolling list. Body: { pageData, duration, numPages, loads }, where page is
+// the new day's index and loads the list's whole share with that day counted. Only the new page and
+// the length fields are written; a page that is no longer the next one was added elsewhere first.
+// A list of MAX_ROLLING_PAGES days is not extended any further.
+exports.extendList = functions.https.onRequest(async (req, res) => {
+    const { teamName, listName } = req.query;
+    const page = Number(req.query.page);
+    const { pageData, duration, numPages, loads } = req.body || {};
+    if (!teamName || !listName || !Number.isInteger(page) || !pageData) {
+        res.status(400).send('Team name, list name, page and page data are required');
+        return;
+    }
+    if (page >= MAX_ROLLING_PAGES) {
+        res.status(400).send('A rolling list is at most ' + MAX_ROLLING_PAGES + ' days long');
+        return;
+    }
+    try {
+        const listRef = db.collection("Teams").doc(teamName).collection("Lists").doc(listName);
+        const extended = await db.runTransaction(async (tx) => {
+            const listDoc = await tx.get(listRef);
+            if (!listDoc.exists || (listDoc.data().numPages || 1) !== page) {
+                return false;
+            }
+            tx.set(listRef.collection("SchedulePages").doc(String(page)), pageData);
+            tx.update(listRef, { duration, numPages });
+            return true;
+        });
+        if (!extended) {
+            res.status(409).send('List was already extended');
+            return;
+        }
+        await replaceLoadShare(teamName, listName, loads || {});
+        res.status(200).send('List extended successfully');
+    } catch (error) {
+        console.error("Error extending list:", error);
+        res.status(500).send('Error extending list');
+    }
+});
+
 exports.addList = functions.https.onRequest(async (req, res) => {
     try {
         const { teamName } = req.query;
@@ -245,6 +560,75 @@ exports.addList = functions.https.onRequest(async (req, res) => {
     }
 });
 
+// Settings of a list kept under a name, to generate lists from later.
+exports.saveTemplate = functions.https.onRequest(async (req, res) => {
+    const { teamName, templateName } = req.query;
+    const template = req.body;
+    if (!teamName || !templateName || !template) {
+        res.status(400).send('Team name, template name and template are required');
+        return;
+    }
+    try {
+        await db.collection("Teams").doc(teamName).collection("Templates").doc(templateName).set(template);
+        res.status(200).send('Template saved successfully');
+    } catch (error) {
+        console.error("Error saving template:", error);
+        res.status(500).send('Error saving template');
+    }
+});
+
+exports.getTemplates = functions.https.onRequest(async (req, res) => {
+    const teamName = req.query.teamName;
+    if (!teamName) {
+        res.status(400).send('Team name is required');
+        return;
+    }
+    try {
+        const templatesSnapshot = await db.collection("Teams").doc(teamName).collection("Templates").get();
+        const templates = [];
+        templatesSnapshot.forEach(doc => {
+            const data = doc.data();
+            data.templateName = doc.id;
+            templates.push(data);
+        });
+        res.status(200).json(templates);
+    } catch (error) {
+        console.error("Error getting templates:", error);
+        res.status(500).send('Error getting templates');
+    }
+});
+
+// Body: [{ listData, pages, loads }], lists generated together with their schedules already in
+// listData. pages holds days 1 and on, loads the list's share of the team's load. The documents
+// go in batches of at most 500 writes and the shares in one transaction.
+exports.addLists = functions.https.onRequest(async (req, res) => {
+    const teamName = req.query.teamName;
+    const lists = req.body;
+    if (!teamName || !Array.isArray(lists)) {
+        res.status(400).send('Team name and lists are required');
+        return;
+    }
+    try {
+        const listsRef = db.collection("Teams").doc(teamName).collection("Lists");
+        const writes = [];
+        const shares = {};
+        for (const { listData, pages, loads } of lists) {
+            const listRef = listsRef.doc(listData.listName);
+            writes.push(batch => batch.set(listRef, listData));
+            (pages || []).forEach((pageData, i) => {
+                writes.push(batch => batch.set(listRef.collection("SchedulePages").doc(String(i + 1)), pageData));
+            });
+            shares[listData.listName] = loads || {};
+        }
+        await commitInBatches(writes);
+        await replaceLoadShares(teamName, shares);
+        res.status(200).send('Lists added successfully');
+    } catch (error) {
+        console.error("Error adding lists:", error);
+        res.status(500).send('Error adding lists');
+    }
+});
+
 exports.deleteList = functions.https.onRequest(async (req, res) => {
     const teamName = req.query.teamName;
     const listName = req.query.listName;
@@ -255,10 +639,47 @@ exports.deleteList = functions.https.onRequest(async (req, res) => {
     }
 
     try {
-        await admin.firestore().collection("Teams").doc(teamName).collection("Lists").doc(listName).delete();
+        const listRef = admin.firestore().collection("Teams").doc(teamName).collection("Lists").doc(listName);
+        await deleteListDocuments(listRef);
+        await replaceLoadShare(teamName, listName, null);
         res.status(200).send("Document successfully deleted!");
     } catch (error) {
         console.error("Error deleting document: ", error);
         res.status(500).send("Error deleting document: " + error.message);
     }
 });
+
+// Generates a schedule for the app's generateSchedule call. The generator is the Java scheduler
+// core, so the problem is passed on as it is to the generation server set in GENERATION_SERVER_URL,
+// scheduler-cli's OffloadServer run on a JVM host, and its reply comes back unchanged. The app then
+// takes this project's functions URL as its generation server. Any failure here makes the app
+// generate the list itself.
+exports.generateSchedule = functions.runWith({ timeoutSeconds: 300 }).https.onRequest(async (req, res) => {
+    const server = process.env.GENERATION_SERVER_URL;
+    if (req.method !== "POST" || !req.rawBody) {
+        res.status(405).send('POST a problem');
+        return;
+    }
+    if (!server) {
+        res.status(503).send('No generation server is set');
+        return;
+    }
+    if (req.rawBody.length > MAX_PROBLEM_BYTES) {
+        res.status(413).send('Problem too large');
+        return;
+    }
+    try {
+        const url = new URL("generateSchedule", server.endsWith("/") ? server : server + "/");
+        url.searchParams.set("algorithm", String(req.query.algorithm || ""));
+        const reply = await fetch(url, {
+            method: "POST",
+            headers: { "Content-Type": "application/octet-stream" },
+            body: req.rawBody,
+        });
+        const bytes = Buffer.from(await reply.arrayBuffer());
+        res.status(reply.status).type(reply.headers.get("Content-Type") || "application/octet-stream").send(bytes);
+    } catch (error) {
+        console.error("Error generating schedule:", error);
+        res.status(502).send('Error generating schedule');
+    }
+});
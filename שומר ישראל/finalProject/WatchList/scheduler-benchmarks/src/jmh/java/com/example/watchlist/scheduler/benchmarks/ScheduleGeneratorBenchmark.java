@@ -0,0 +1,198 @@
+package com.example.watchlist.scheduler.benchmarks;
+
+import com.example.watchlist.scheduler.Algorithm;
+import com.example.watchlist.scheduler.CandidateGenerator;
+import com.example.watchlist.scheduler.DemandProfile;
+import com.example.watchlist.scheduler.Schedule;
+import com.example.watchlist.scheduler.ScheduleCandidate;
+import com.example.watchlist.scheduler.ScheduleGenerator;
+import com.example.watchlist.scheduler.ScheduleProblem;
+import com.example.watchlist.scheduler.SchedulerPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Run with ./gradlew :scheduler-benchmarks:jmh
+// Throughput and SampleTime (p50/p90/p99 percentiles) are reported for every point of each grid,
+// the gc profiler configured in build.gradle.kts adds the allocation rate. Every benchmark reads
+// only its own small grid, so a full run takes minutes: the scale grid covers both algorithms
+// from 10 soldiers on 1 post for a day to 20,000 soldiers on 500 posts for 30 days, the feature
+// grid turns one generation feature on at a time at a middle scale, and candidates run at two scales.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ScheduleGeneratorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Scale {
+        // soldiers:posts:days, with mixed day and night demand
+        @Param({"10:1:1", "100:10:7", "1000:100:30", "20000:500:30"})
+        public String scale;
+
+        ScheduleProblem problem;
+
+        @Setup
+        public void setUp() {
+            problem = scaled(scale, "mixed");
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Feature {
+        // At 1000 soldiers on 100 posts for 30 days. "mixed": day and night demand differ per post
+        // and nothing else is on, "windows": 7-day windows, "rest": 8 hours minimum rest,
+        // "profile": a morning peak on weekdays, a lighter weekend and a three day exercise,
+        // "some": every fourth post needs one of three qualifications, "pools": eight disjoint
+        // soldier pools, each post served by one of them
+        @Param({"mixed", "windows", "rest", "profile", "some", "pools"})
+        public String feature;
+
+        ScheduleProblem problem;
+
+        @Setup
+        public void setUp() {
+            problem = scaled("1000:100:30", feature);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Candidates {
+        @Param({"100:10:7", "1000:100:30"})
+        public String scale;
+
+        ScheduleProblem problem;
+
+        @Setup
+        public void setUp() {
+            problem = scaled(scale, "mixed");
+        }
+    }
+
+    @Benchmark
+    public Schedule current(Scale state) {
+        return ScheduleGenerator.generate(state.problem, Algorithm.CURRENT);
+    }
+
+    @Benchmark
+    public Schedule balanced(Scale state) {
+        return ScheduleGenerator.generate(state.problem, Algorithm.BALANCED);
+    }
+
+    // Same shape as BuildListHelper.runInParallel: both algorithms on the shared scheduler pool.
+    @Benchmark
+    public void runInParallel(Scale state, Blackhole blackhole) throws Exception {
+        CompletableFuture<Schedule> future1 = CompletableFuture.supplyAsync(() -> ScheduleGenerator.generate(state.problem, Algorithm.CURRENT), SchedulerPool.get());
+        CompletableFuture<Schedule> future2 = CompletableFuture.supplyAsync(() -> ScheduleGenerator.generate(state.problem, Algorithm.BALANCED), SchedulerPool.get());
+        blackhole.consume(future1.get());
+        blackhole.consume(future2.get());
+    }
+
+    @Benchmark
+    public Schedule currentWithFeature(Feature state) {
+        return ScheduleGenerator.generate(state.problem, Algorithm.CURRENT);
+    }
+
+    @Benchmark
+    public Schedule balancedWithFeature(Feature state) {
+        return ScheduleGenerator.generate(state.problem, Algorithm.BALANCED);
+    }
+
+    // Sixteen candidates on the shared pool, top five kept.
+    @Benchmark
+    public void candidates(Candidates state, Blackhole blackhole) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        new CandidateGenerator(state.problem, 16, 5, 42).generate(new CandidateGenerator.Listener() {
+            @Override
+            public void onCandidateAccepted(ScheduleCandidate candidate, int rank, ScheduleCandidate evicted) {
+            }
+
+            @Override
+            public void onProgress(int completed, int total) {
+            }
+
+            @Override
+            public void onComplete(List<ScheduleCandidate> best) {
+                blackhole.consume(best);
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+
+    // scale is soldiers:posts:days; feature is one of Feature's values.
+    private static ScheduleProblem scaled(String scale, String feature) {
+        String[] parts = scale.split(":");
+        int soldiers = Integer.parseInt(parts[0]);
+        int posts = Integer.parseInt(parts[1]);
+        int days = Integer.parseInt(parts[2]);
+        List<String> soldierNames = new ArrayList<>();
+        for (int i = 0; i < soldiers; i++) {
+            soldierNames.add("soldier" + i);
+        }
+        List<String> postNames = new ArrayList<>();
+        Map<String, Integer> dayTimeSoldiers = new HashMap<>();
+        Map<String, Integer> nightTimeSoldiers = new HashMap<>();
+        for (int j = 0; j < posts; j++) {
+            String postName = "post" + j;
+            postNames.add(postName);
+            dayTimeSoldiers.put(postName, 1 + j % 3);
+            nightTimeSoldiers.put(postName, 2 - j % 2);
+        }
+        ScheduleProblem problem = new ScheduleProblem(soldierNames, postNames, dayTimeSoldiers, nightTimeSoldiers, 20, 0, days * 24 * 60, 6, 0, 18, 0);
+        if (feature.equals("windows")) {
+            problem.setWindowDays(7);
+        } else if (feature.equals("rest")) {
+            problem.setMinRestMinutes(8 * 60);
+        } else if (feature.equals("profile")) {
+            problem.setStartDate(LocalDate.of(2024, 1, 7));
+            DemandProfile profile = problem.getDemandProfile();
+            int weekend = 1 << (DayOfWeek.FRIDAY.getValue() - 1) | 1 << (DayOfWeek.SATURDAY.getValue() - 1);
+            for (int j = 0; j < posts; j += 2) {
+                profile.addHours(j, 6 * 60, 10 * 60, DemandProfile.ALL_DAYS & ~weekend, 3);
+            }
+            profile.addHours(DemandProfile.ALL_POSTS, 0, 24 * 60, weekend, 1);
+            profile.addPeriod(0, 2 * 24 * 60, 5 * 24 * 60, 4);
+        } else if (feature.equals("some")) {
+            Map<String, Long> soldierQualifications = new HashMap<>();
+            for (int i = 0; i < soldiers; i++) {
+                soldierQualifications.put(soldierNames.get(i), (long) (i % 8));
+            }
+            problem.setSoldierQualifications(soldierQualifications);
+            for (int j = 0; j < posts; j += 4) {
+                problem.setPostQualifications(j, 1L << (j % 3));
+            }
+        } else if (feature.equals("pools")) {
+            Map<String, Long> soldierQualifications = new HashMap<>();
+            for (int i = 0; i < soldiers; i++) {
+                soldierQualifications.put(soldierNames.get(i), 1L << (i % 8));
+            }
+            problem.setSoldierQualifications(soldierQualifications);
+            for (int j = 0; j < posts; j++) {
+                problem.setPostQualifications(j, 1L << (j % 8));
+            }
+        }
+        return problem;
+    }
+}
@@ -0,0 +1,27 @@
+plugins {
+    application
+}
+
+// The tool runs on a desktop JVM, so it can use virtual threads; the core stays on Java 8 for the app.
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
+
+application {
+    mainClass.set("com.example.watchlist.scheduler.cli.BatchScheduler")
+}
+
+dependencies {
+    implementation(project(":scheduler-core"))
+    implementation(libs.gson)
+    testImplementation(libs.junit)
+}
+
+// ./gradlew :scheduler-cli:runOffloadServer --args=8080 serves generateSchedule for the app.
+tasks.register<JavaExec>("runOffloadServer") {
+    group = "application"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.watchlist.scheduler.cli.OffloadServer")
+}
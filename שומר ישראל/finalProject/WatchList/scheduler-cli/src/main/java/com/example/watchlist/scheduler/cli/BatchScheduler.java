@@ -0,0 +1,112 @@
+package com.example.watchlist.scheduler.cli;
+
+import com.example.watchlist.scheduler.Algorithm;
+import com.example.watchlist.scheduler.ListSettings;
+import com.example.watchlist.scheduler.Schedule;
+import com.example.watchlist.scheduler.ScheduleGenerator;
+import com.example.watchlist.scheduler.ScheduleProblem;
+import com.example.watchlist.scheduler.SchedulerPool;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Builds every list in a directory without the app. Each *.json file holds a list in the shape the
+// app sends to addList, optionally with the team's "qualifications" as getQualifications returns
+// them. A list is written as <file>.json in the saveSchedule shape, and each later day of a
+// multi-day list as <file>.page<N>.json in the saveSchedulePage shape.
+//
+// Files are read, parsed and written on virtual threads, one per list, so slow disks never hold a
+// core. Solving goes to the scheduler pool, which is sized to the cores.
+public class BatchScheduler {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final Type MAP = new TypeToken<Map<String, Object>>() {
+    }.getType();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchScheduler <input dir> <output dir> [CURRENT|BALANCED]");
+            System.exit(2);
+        }
+        Algorithm algorithm = args.length > 2 ? Algorithm.valueOf(args[2]) : Algorithm.BALANCED;
+        if (run(Path.of(args[0]), Path.of(args[1]), algorithm) > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Builds every list in input into output and returns how many lists failed.
+    static int run(Path input, Path output, Algorithm algorithm) throws IOException {
+        Files.createDirectories(output);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(input)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(".json")).sorted().toList();
+        }
+
+        long start = System.nanoTime();
+        AtomicInteger failed = new AtomicInteger();
+        try (ExecutorService io = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path file : files) {
+                io.submit(() -> {
+                    try {
+                        build(file, output, algorithm);
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        System.err.println(file.getFileName() + ": " + e);
+                    }
+                });
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Built " + (files.size() - failed.get()) + " of " + files.size() + " lists in " + millis + " ms");
+        return failed.get();
+    }
+
+    private static void build(Path file, Path output, Algorithm algorithm) throws IOException {
+        Map<String, Object> data;
+        try (Reader reader = Files.newBufferedReader(file)) {
+            data = GSON.fromJson(reader, MAP);
+        }
+        ScheduleProblem problem = ListSettings.problemOf(data, List.of());
+        Map<?, ?> qualifications = (Map<?, ?>) data.get("qualifications");
+        if (qualifications != null) {
+            Map<String, Long> masks = new LinkedHashMap<>();
+            qualifications.forEach((name, mask) -> masks.put((String) name, ((Number) mask).longValue()));
+            problem.setSoldierQualifications(masks);
+        }
+        // Waiting parks only this virtual thread.
+        Schedule schedule = CompletableFuture.supplyAsync(() -> ScheduleGenerator.generate(problem, algorithm), SchedulerPool.get()).join();
+
+        String name = file.getFileName().toString();
+        name = name.substring(0, name.length() - ".json".length());
+        int numPages = schedule.getSlots().numDays();
+        Map<String, Object> scheduleData = new LinkedHashMap<>();
+        scheduleData.put("schedule", ListSettings.pageRows(schedule, 0));
+        scheduleData.put("numPages", numPages);
+        scheduleData.put("timestamp", System.currentTimeMillis());
+        scheduleData.put("algorithm", algorithm.getLabel());
+        write(output.resolve(name + ".json"), scheduleData);
+        for (int page = 1; page < numPages; page++) {
+            write(output.resolve(name + ".page" + page + ".json"), Map.of("schedule", ListSettings.pageRows(schedule, page)));
+        }
+    }
+
+    private static void write(Path file, Object value) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            GSON.toJson(value, writer);
+        }
+    }
+}
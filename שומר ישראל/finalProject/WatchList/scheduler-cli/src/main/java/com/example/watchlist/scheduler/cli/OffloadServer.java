@@ -0,0 +1,106 @@
+package com.example.watchlist.scheduler.cli;
+
+import com.example.watchlist.scheduler.Algorithm;
+import com.example.watchlist.scheduler.LocalScheduleEngine;
+import com.example.watchlist.scheduler.Schedule;
+import com.example.watchlist.scheduler.ScheduleCodec;
+import com.example.watchlist.scheduler.ScheduleEngine;
+import com.example.watchlist.scheduler.ScheduleProblem;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+// Serves the app's generateSchedule endpoint from this machine, so generating on a server can be
+// tried without the network: an emulator reaches it at http://10.0.2.2:<port>/. The body is a
+// problem in ScheduleCodec form and the reply is its schedule for ?algorithm=, generated by the
+// same core the app runs. Requests are handled on virtual threads and solved on the scheduler pool.
+// Run on a JVM host, it is also the server the generateSchedule Cloud Function passes problems to.
+public class OffloadServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_PROBLEM_BYTES = 16 << 20;
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        ScheduleEngine engine = new LocalScheduleEngine();
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/generateSchedule", exchange -> {
+            try (exchange) {
+                handle(exchange, engine);
+            } catch (Exception e) {
+                System.err.println("generateSchedule: " + e);
+            }
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        System.out.println("Generating schedules on port " + port);
+    }
+
+    private static void handle(HttpExchange exchange, ScheduleEngine engine) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            reply(exchange, 405, "POST a problem");
+            return;
+        }
+        Algorithm algorithm;
+        try {
+            algorithm = Algorithm.valueOf(query(exchange, "algorithm"));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            reply(exchange, 400, "Unknown algorithm");
+            return;
+        }
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_PROBLEM_BYTES + 1);
+        }
+        if (body.length > MAX_PROBLEM_BYTES) {
+            reply(exchange, 413, "Problem too large");
+            return;
+        }
+        ScheduleProblem problem;
+        try {
+            problem = ScheduleCodec.decodeProblem(body);
+        } catch (IOException e) {
+            reply(exchange, 400, "Bad problem");
+            return;
+        }
+        long start = System.nanoTime();
+        // Waiting parks only this virtual thread.
+        Schedule schedule = engine.generate(problem, algorithm).join();
+        byte[] bytes = ScheduleCodec.encodeSchedules(List.of(schedule));
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        System.out.println(algorithm + ": " + problem.getNumSoldiers() + " soldiers in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static String query(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void reply(HttpExchange exchange, int code, String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.watchlist.scheduler.cli;
+
+import com.example.watchlist.scheduler.Algorithm;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BatchSchedulerTest {
+    private static final Type MAP = new TypeToken<Map<String, Object>>() {
+    }.getType();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void run_writesEachListAndItsPages() throws IOException {
+        Path input = folder.newFolder("lists").toPath();
+        Path output = folder.getRoot().toPath().resolve("schedules");
+        // Two days from midnight, and only "b" may stand on the tower.
+        Files.writeString(input.resolve("march.json"), "{\"startDate\": \"01/03/2026\", \"startHour\": \"00:00\","
+                + " \"dayStartHour\": \"06:00\", \"dayEndHour\": \"18:00\", \"duration\": 48, \"numPosts\": 2,"
+                + " \"selectedSoldiers\": [\"a\", \"b\", \"c\"],"
+                + " \"post1Name\": \"gate\", \"post1DayTime\": 1, \"post1NightTime\": 1,"
+                + " \"post2Name\": \"tower\", \"post2DayTime\": 1, \"post2NightTime\": 1, \"post2Qualifications\": 1,"
+                + " \"qualifications\": {\"b\": 1}}");
+        Files.writeString(input.resolve("broken.json"), "{\"startHour\": \"20:00\"}");
+        Files.writeString(input.resolve("notes.txt"), "not a list");
+
+        assertEquals(1, BatchScheduler.run(input, output, Algorithm.BALANCED));
+
+        Map<String, Object> list = read(output.resolve("march.json"));
+        assertEquals(2, ((Number) list.get("numPages")).intValue());
+        assertEquals(Algorithm.BALANCED.getLabel(), list.get("algorithm"));
+        List<?> firstDay = (List<?>) list.get("schedule");
+        assertEquals(24, firstDay.size());
+        Map<?, ?> firstRow = (Map<?, ?>) firstDay.get(0);
+        assertEquals("b", firstRow.get("tower"));
+        assertFalse(((String) firstRow.get("gate")).isEmpty());
+
+        Map<String, Object> page = read(output.resolve("march.page1.json"));
+        assertEquals(24, ((List<?>) page.get("schedule")).size());
+        assertFalse(Files.exists(output.resolve("march.page2.json")));
+        assertFalse(Files.exists(output.resolve("broken.json")));
+        assertFalse(Files.exists(output.resolve("notes.json")));
+    }
+
+    private static Map<String, Object> read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file)) {
+            return new Gson().fromJson(reader, MAP);
+        }
+    }
+}
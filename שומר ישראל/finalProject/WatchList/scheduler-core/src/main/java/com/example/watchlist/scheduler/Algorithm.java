@@ -0,0 +1,16 @@
+package com.example.watchlist.scheduler;
+
+public enum Algorithm {
+    CURRENT("Current Algorithm Schedule"),
+    BALANCED("Balanced Algorithm Schedule");
+
+    private final String label;
+
+    Algorithm(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
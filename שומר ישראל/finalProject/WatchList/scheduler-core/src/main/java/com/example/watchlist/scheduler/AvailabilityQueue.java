@@ -0,0 +1,125 @@
+package com.example.watchlist.scheduler;
+
+// Soldiers waiting for their next shift. Resting soldiers sit in a min-heap keyed by the minute they
+// may next start. Once that minute is reached they move to a ready heap keyed by when they were last
+// assigned, so poll hands out whoever has waited longest and with no rest constraint the queue
+// reproduces the plain rotation. Every operation is O(log n).
+class AvailabilityQueue {
+    private final int[] nextAvailable;
+    private final long[] lastUsed;
+    private final IntHeap resting;
+    private final IntHeap ready;
+    private long sequence;
+
+    // Order lists the soldiers taking part, which may be any subset of the roster's ids. A soldier
+    // with restedAt above zero, when given, rests until that minute but keeps their place in order.
+    AvailabilityQueue(int numSoldiers, int[] order, int[] restedAt) {
+        int n = order.length;
+        nextAvailable = new int[numSoldiers];
+        lastUsed = new long[numSoldiers];
+        resting = new IntHeap(n);
+        ready = new IntHeap(n);
+        for (int i = 0; i < n; i++) {
+            int soldier = order[i];
+            lastUsed[soldier] = i - n;
+            if (restedAt != null && restedAt[soldier] > 0) {
+                rest(soldier, restedAt[soldier]);
+            } else {
+                ready.push(soldier, lastUsed[soldier]);
+            }
+        }
+        sequence = 0;
+    }
+
+    // Removes and returns the soldier free at the given minute who has waited longest, or -1.
+    int poll(int minute) {
+        while (!resting.isEmpty() && nextAvailable[resting.peek()] <= minute) {
+            int soldier = resting.pop();
+            ready.push(soldier, lastUsed[soldier]);
+        }
+        return ready.isEmpty() ? -1 : ready.pop();
+    }
+
+    // Returns a soldier who was just assigned a shift and may start again at the given minute.
+    void offer(int soldier, int availableAt) {
+        lastUsed[soldier] = sequence++;
+        rest(soldier, availableAt);
+    }
+
+    // Puts back a soldier taken by poll who cannot serve before the given minute, keeping their
+    // place in the rotation for when they return.
+    void defer(int soldier, int availableAt) {
+        rest(soldier, availableAt);
+    }
+
+    // Puts back a soldier taken by poll without using them.
+    void restore(int soldier) {
+        ready.push(soldier, lastUsed[soldier]);
+    }
+
+    private void rest(int soldier, int availableAt) {
+        nextAvailable[soldier] = availableAt;
+        resting.push(soldier, availableAt);
+    }
+
+    // Binary min-heap of soldier ids, each pushed with its key.
+    private static class IntHeap {
+        private final int[] ids;
+        private final long[] keys;
+        private int size;
+
+        IntHeap(int capacity) {
+            ids = new int[capacity];
+            keys = new long[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int peek() {
+            return ids[0];
+        }
+
+        void push(int id, long key) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                ids[i] = ids[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            keys[i] = key;
+        }
+
+        int pop() {
+            int top = ids[0];
+            size--;
+            if (size > 0) {
+                int id = ids[size];
+                long key = keys[size];
+                int i = 0;
+                int half = size >>> 1;
+                while (i < half) {
+                    int child = 2 * i + 1;
+                    if (child + 1 < size && keys[child + 1] < keys[child]) {
+                        child++;
+                    }
+                    if (keys[child] >= key) {
+                        break;
+                    }
+                    ids[i] = ids[child];
+                    keys[i] = keys[child];
+                    i = child;
+                }
+                ids[i] = id;
+                keys[i] = key;
+            }
+            return top;
+        }
+    }
+}
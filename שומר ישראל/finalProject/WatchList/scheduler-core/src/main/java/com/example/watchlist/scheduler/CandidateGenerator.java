@@ -0,0 +1,101 @@
+package com.example.watchlist.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CandidateGenerator {
+
+    public interface Listener {
+        // Called when a finished candidate enters the current top K at the given rank,
+        // evicted is the previous last candidate it pushed out (or null).
+        void onCandidateAccepted(ScheduleCandidate candidate, int rank, ScheduleCandidate evicted);
+
+        void onProgress(int completed, int total);
+
+        void onComplete(List<ScheduleCandidate> best);
+    }
+
+    private final ScheduleProblem problem;
+    private final int numCandidates;
+    private final int topK;
+    private final long seed;
+    private final List<ScheduleCandidate> best = new ArrayList<>();
+
+    public CandidateGenerator(ScheduleProblem problem, int numCandidates, int topK, long seed) {
+        this.problem = problem;
+        this.numCandidates = Math.max(1, numCandidates);
+        this.topK = Math.max(1, topK);
+        this.seed = seed;
+    }
+
+    // Candidate 0 and 1 are the classic current and balanced schedules in the problem's rotation order,
+    // the rest alternate between both slot lengths over seeded permutations of the roster.
+    // Cancelling the handle stops the candidates being generated at their next slot.
+    public GenerationHandle generate(Listener listener) {
+        ForkJoinPool pool = SchedulerPool.get();
+        GenerationHandle handle = new GenerationHandle();
+        AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < numCandidates; i++) {
+            final int candidateIndex = i;
+            handle.add(pool.submit(() -> {
+                if (handle.isCancelled()) {
+                    return;
+                }
+                try {
+                    long candidateSeed = seed + candidateIndex;
+                    Algorithm algorithm = candidateIndex % 2 == 0 ? Algorithm.CURRENT : Algorithm.BALANCED;
+                    int[] order = candidateIndex < 2
+                            ? problem.getRotationOrder()
+                            : permutation(problem.getNumSoldiers(), candidateSeed);
+                    Schedule schedule = ScheduleGenerator.generate(problem, algorithm, order, handle);
+                    offer(new ScheduleCandidate(schedule, candidateSeed, ScheduleMetrics.of(schedule), ScheduleValidator.validate(schedule)), listener, handle);
+                } finally {
+                    int done = completed.incrementAndGet();
+                    handle.deliver(() -> listener.onProgress(done, numCandidates));
+                    if (done == numCandidates) {
+                        List<ScheduleCandidate> result;
+                        synchronized (best) {
+                            result = new ArrayList<>(best);
+                        }
+                        handle.deliver(() -> listener.onComplete(result));
+                    }
+                }
+            }));
+        }
+        return handle;
+    }
+
+    private void offer(ScheduleCandidate candidate, Listener listener, GenerationHandle handle) {
+        synchronized (best) {
+            if (handle.isCancelled()) {
+                return;
+            }
+            int position = 0;
+            while (position < best.size() && best.get(position).getScore() <= candidate.getScore()) {
+                position++;
+            }
+            if (position >= topK) {
+                return;
+            }
+            best.add(position, candidate);
+            ScheduleCandidate evicted = best.size() > topK ? best.remove(best.size() - 1) : null;
+            int rank = position;
+            handle.deliver(() -> listener.onCandidateAccepted(candidate, rank, evicted));
+        }
+    }
+
+    static int[] permutation(int n, long seed) {
+        int[] order = ScheduleGenerator.identityOrder(n);
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+        return order;
+    }
+}
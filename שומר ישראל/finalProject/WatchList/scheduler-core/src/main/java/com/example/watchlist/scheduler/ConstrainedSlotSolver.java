@@ -0,0 +1,322 @@
+package com.example.watchlist.scheduler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Fills the seats of one slot under the pairing rules by depth-first search. Seats are decided in
+// order, each either taking a candidate from its domain or staying empty. A domain is a bitset over
+// the candidates: those qualified for the post, minus anyone already placed, anyone banned from
+// the cell by a must-not-pair rule and every member of a group that reached its max-per-slot limit.
+// Candidates are tried in rotation order, so the first complete solution is also the fairest one.
+// When the node budget runs out the best feasible assignment seen so far is kept.
+class ConstrainedSlotSolver {
+    static final int NODE_BUDGET = 20000;
+
+    private final ScheduleProblem problem;
+    private final int[] posts;
+    private final ScheduleConstraints constraints;
+    private final int numPosts;
+    private final int numSeats;
+    private final int[] seatPost;
+    private final int[] cellStart;
+    private final int[] candidateOf;
+
+    private int[] candidates;
+    private int numCandidates;
+    private int words;
+    private long[][] allowed;
+    private long[][] banned;
+    private long[][] rivalMask;
+    private long[][] groupMask;
+    private long[] used;
+    private long[] groupBanned;
+    private int[] groupCount;
+    private int[] cellOf;
+    private int[] seatCandidate;
+    private long[][] savedBanned;
+    private long[][] savedGroupBanned;
+    private int[] best;
+    private int bestFilled;
+    private int upperBound;
+    private int nodes;
+
+    // demand[row + j] is the number of seats of posts[j]; seats are numbered by j.
+    ConstrainedSlotSolver(ScheduleProblem problem, int[] posts, int[] demand, int row) {
+        this.problem = problem;
+        this.posts = posts;
+        this.constraints = problem.getConstraints();
+        numPosts = posts.length;
+        cellStart = new int[numPosts + 1];
+        int total = 0;
+        for (int j = 0; j < numPosts; j++) {
+            cellStart[j] = total;
+            total += demand[row + j];
+        }
+        cellStart[numPosts] = total;
+        numSeats = total;
+        seatPost = new int[total];
+        for (int j = 0; j < numPosts; j++) {
+            for (int seat = cellStart[j]; seat < cellStart[j + 1]; seat++) {
+                seatPost[seat] = j;
+            }
+        }
+        candidateOf = new int[problem.getNumSoldiers()];
+        Arrays.fill(candidateOf, -1);
+        seatCandidate = new int[total];
+        best = new int[total];
+        savedBanned = new long[total][];
+        savedGroupBanned = new long[total][];
+    }
+
+    // Returns, per seat, the index into the given candidates of who takes it, or -1 if it stays
+    // empty. No assignment can fill more than upperBound seats, the search stops once it does.
+    int[] solve(int[] candidates, int numCandidates, int upperBound) {
+        this.candidates = candidates;
+        this.numCandidates = numCandidates;
+        this.upperBound = upperBound;
+        words = Math.max(1, (numCandidates + 63) >>> 6);
+        for (int c = 0; c < numCandidates; c++) {
+            candidateOf[candidates[c]] = c;
+        }
+
+        // Posts with the same requirements share one domain row, and every cell starts with the same
+        // empty ban row, which place copies before writing to it.
+        allowed = new long[numPosts][];
+        banned = new long[numPosts][];
+        long[] noBans = new long[words];
+        Map<Long, long[]> allowedByRequirement = new HashMap<>();
+        for (int j = 0; j < numPosts; j++) {
+            long required = problem.getPostQualifications(posts[j]);
+            long[] row = allowedByRequirement.get(required);
+            if (row == null) {
+                row = new long[words];
+                for (int c = 0; c < numCandidates; c++) {
+                    if ((required & ~problem.getSoldierQualifications(candidates[c])) == 0) {
+                        row[c >>> 6] |= 1L << c;
+                    }
+                }
+                allowedByRequirement.put(required, row);
+            }
+            allowed[j] = row;
+            banned[j] = noBans;
+        }
+        rivalMask = new long[numCandidates][];
+        for (int c = 0; c < numCandidates; c++) {
+            for (int rival : constraints.rivalsOf(candidates[c])) {
+                int r = candidateOf[rival];
+                if (r >= 0) {
+                    if (rivalMask[c] == null) {
+                        rivalMask[c] = new long[words];
+                    }
+                    rivalMask[c][r >>> 6] |= 1L << r;
+                }
+            }
+        }
+        int numGroups = constraints.numGroups();
+        groupMask = new long[numGroups][words];
+        groupCount = new int[numGroups];
+        groupBanned = new long[words];
+        for (int g = 0; g < numGroups; g++) {
+            for (int member : constraints.groupMembers(g)) {
+                int m = candidateOf[member];
+                if (m >= 0) {
+                    groupMask[g][m >>> 6] |= 1L << m;
+                }
+            }
+            if (constraints.groupLimit(g) == 0) {
+                or(groupBanned, groupMask[g]);
+            }
+        }
+        used = new long[words];
+        cellOf = new int[numCandidates];
+        Arrays.fill(cellOf, -1);
+        Arrays.fill(best, -1);
+        bestFilled = -1;
+        nodes = 0;
+
+        search(0, 0);
+
+        for (int c = 0; c < numCandidates; c++) {
+            candidateOf[candidates[c]] = -1;
+        }
+        return best;
+    }
+
+    // Returns true once the search should stop, on a solution reaching the bound or on budget.
+    private boolean search(int seat, int filled) {
+        if (++nodes > NODE_BUDGET) {
+            return true;
+        }
+        if (seat == numSeats) {
+            if (filled > bestFilled && pairsComplete()) {
+                bestFilled = filled;
+                System.arraycopy(seatCandidate, 0, best, 0, numSeats);
+            }
+            return bestFilled >= upperBound;
+        }
+        if (filled + numSeats - seat <= bestFilled) {
+            return false;
+        }
+        int post = seatPost[seat];
+        // Seats of one cell are interchangeable, so a cell is filled in increasing candidate order
+        // and once a seat stays empty so do the rest of the cell.
+        int previous = seat > cellStart[post] ? seatCandidate[seat - 1] : -2;
+        long[] pending = previous >= 0 ? pendingPartners(post, seat) : null;
+        int remaining = cellStart[post + 1] - seat;
+        int numPending = pending != null ? bitCount(pending) : 0;
+        if (numPending > remaining) {
+            return false;
+        }
+        if (previous != -1) {
+            int first = previous >= 0 ? previous + 1 : 0;
+            long[] allowedHere = allowed[post];
+            long[] bannedHere = banned[post];
+            for (int w = first >>> 6; w < words; w++) {
+                long bits = allowedHere[w] & ~used[w] & ~bannedHere[w] & ~groupBanned[w];
+                if (numPending == remaining) {
+                    bits &= pending[w];
+                }
+                if (w == first >>> 6) {
+                    bits &= -1L << (first & 63);
+                }
+                while (bits != 0) {
+                    int c = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (c >= numCandidates || !partnersFit(c, post, seat)) {
+                        continue;
+                    }
+                    place(c, seat, post);
+                    boolean stop = search(seat + 1, filled + 1);
+                    unplace(c, seat, post);
+                    if (stop) {
+                        return true;
+                    }
+                }
+            }
+        }
+        if (numPending > 0) {
+            return false;
+        }
+        seatCandidate[seat] = -1;
+        return search(seat + 1, filled);
+    }
+
+    // Partners of soldiers already in this cell who still have to join it, or null if there are none.
+    private long[] pendingPartners(int post, int seat) {
+        long[] pending = null;
+        for (int s = cellStart[post]; s < seat; s++) {
+            for (int partner : constraints.partnersOf(candidates[seatCandidate[s]])) {
+                int p = candidateOf[partner];
+                if (p >= 0 && !isUsed(p)) {
+                    if (pending == null) {
+                        pending = new long[words];
+                    }
+                    pending[p >>> 6] |= 1L << p;
+                }
+            }
+        }
+        return pending;
+    }
+
+    private static int bitCount(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // A soldier with must-pair partners can only take this seat if each partner is already in this
+    // cell or can still follow them into one of its remaining seats.
+    private boolean partnersFit(int c, int post, int seat) {
+        int[] partners = constraints.partnersOf(candidates[c]);
+        if (partners.length == 0) {
+            return true;
+        }
+        int pending = 0;
+        for (int partner : partners) {
+            int p = candidateOf[partner];
+            if (p < 0) {
+                return false;
+            }
+            if (isUsed(p)) {
+                if (cellOf[p] != post) {
+                    return false;
+                }
+                continue;
+            }
+            if (p < c || (allowed[post][p >>> 6] & 1L << p) == 0 || (banned[post][p >>> 6] & 1L << p) != 0
+                    || (groupBanned[p >>> 6] & 1L << p) != 0) {
+                return false;
+            }
+            pending++;
+        }
+        return pending <= cellStart[post + 1] - seat - 1;
+    }
+
+    private boolean pairsComplete() {
+        for (int seat = 0; seat < numSeats; seat++) {
+            int c = seatCandidate[seat];
+            if (c < 0) {
+                continue;
+            }
+            for (int partner : constraints.partnersOf(candidates[c])) {
+                int p = candidateOf[partner];
+                if (p < 0 || cellOf[p] != seatPost[seat]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void place(int c, int seat, int post) {
+        seatCandidate[seat] = c;
+        used[c >>> 6] |= 1L << c;
+        cellOf[c] = post;
+        // Bans are copied on write, so unplace only has to put the previous arrays back.
+        if (rivalMask[c] != null) {
+            savedBanned[seat] = banned[post];
+            banned[post] = banned[post].clone();
+            or(banned[post], rivalMask[c]);
+        }
+        savedGroupBanned[seat] = null;
+        for (int group : constraints.groupsOf(candidates[c])) {
+            if (++groupCount[group] == constraints.groupLimit(group)) {
+                if (savedGroupBanned[seat] == null) {
+                    savedGroupBanned[seat] = groupBanned;
+                    groupBanned = groupBanned.clone();
+                }
+                or(groupBanned, groupMask[group]);
+            }
+        }
+    }
+
+    private void unplace(int c, int seat, int post) {
+        for (int group : constraints.groupsOf(candidates[c])) {
+            groupCount[group]--;
+        }
+        if (savedGroupBanned[seat] != null) {
+            groupBanned = savedGroupBanned[seat];
+            savedGroupBanned[seat] = null;
+        }
+        if (rivalMask[c] != null) {
+            banned[post] = savedBanned[seat];
+            savedBanned[seat] = null;
+        }
+        cellOf[c] = -1;
+        used[c >>> 6] &= ~(1L << c);
+        seatCandidate[seat] = -1;
+    }
+
+    private boolean isUsed(int c) {
+        return (used[c >>> 6] & 1L << c) != 0;
+    }
+
+    private static void or(long[] target, long[] bits) {
+        for (int w = 0; w < target.length; w++) {
+            target[w] |= bits[w];
+        }
+    }
+}
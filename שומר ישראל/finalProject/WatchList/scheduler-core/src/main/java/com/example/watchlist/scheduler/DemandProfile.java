@@ -0,0 +1,125 @@
+package com.example.watchlist.scheduler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+// Staffing rules on top of a list's day/night demand, compiled once into a flat table
+// demand[slot * numPosts + post] that the generator reads directly. Hour rules set a post's
+// count for a time-of-day range on some weekdays; periods set it for a range of the list itself
+// (a holiday, an exercise). Periods win over hour rules, and a later rule wins over an earlier one.
+public class DemandProfile {
+    public static final int ALL_POSTS = -1;
+    // Bit d - 1 stands for DayOfWeek d, Monday = 1.
+    public static final int ALL_DAYS = 0x7f;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private int[] hourPost = new int[0];
+    private int[] hourFrom = new int[0];
+    private int[] hourTo = new int[0];
+    private int[] hourDays = new int[0];
+    private int[] hourCount = new int[0];
+    private int[] periodPost = new int[0];
+    private int[] periodFrom = new int[0];
+    private int[] periodTo = new int[0];
+    private int[] periodCount = new int[0];
+
+    // Slots starting in [fromMinuteOfDay, toMinuteOfDay) get count soldiers; the range may wrap
+    // past midnight. Weekday rules are skipped for lists without a start date.
+    public void addHours(int post, int fromMinuteOfDay, int toMinuteOfDay, int days, int count) {
+        int n = hourPost.length;
+        hourPost = Arrays.copyOf(hourPost, n + 1);
+        hourFrom = Arrays.copyOf(hourFrom, n + 1);
+        hourTo = Arrays.copyOf(hourTo, n + 1);
+        hourDays = Arrays.copyOf(hourDays, n + 1);
+        hourCount = Arrays.copyOf(hourCount, n + 1);
+        hourPost[n] = post;
+        hourFrom[n] = fromMinuteOfDay;
+        hourTo[n] = toMinuteOfDay;
+        hourDays[n] = days & ALL_DAYS;
+        hourCount[n] = Math.max(0, count);
+    }
+
+    // Slots starting in [fromMinute, toMinute), in minutes from the list start, get count soldiers.
+    public void addPeriod(int post, int fromMinute, int toMinute, int count) {
+        int n = periodPost.length;
+        periodPost = Arrays.copyOf(periodPost, n + 1);
+        periodFrom = Arrays.copyOf(periodFrom, n + 1);
+        periodTo = Arrays.copyOf(periodTo, n + 1);
+        periodCount = Arrays.copyOf(periodCount, n + 1);
+        periodPost[n] = post;
+        periodFrom[n] = fromMinute;
+        periodTo[n] = toMinute;
+        periodCount[n] = Math.max(0, count);
+    }
+
+    public boolean isEmpty() {
+        return hourPost.length == 0 && periodPost.length == 0;
+    }
+
+    public int[] compile(ScheduleProblem problem, TimeSlots slots) {
+        int numPosts = problem.getNumPosts();
+        int[] demand = new int[slots.size() * numPosts];
+        for (int i = 0; i < slots.size(); i++) {
+            int row = i * numPosts;
+            boolean day = slots.isDay(i);
+            for (int j = 0; j < numPosts; j++) {
+                demand[row + j] = day ? problem.getDayDemand(j) : problem.getNightDemand(j);
+            }
+            if (isEmpty()) {
+                continue;
+            }
+            int offset = slots.getOffset(i);
+            int minuteOfDay = (problem.getStartMinuteOfDay() + offset) % MINUTES_PER_DAY;
+            LocalDateTime dateTime = slots.dateTime(i);
+            int dayBit = dateTime != null ? 1 << (dateTime.getDayOfWeek().getValue() - 1) : 0;
+            for (int r = 0; r < hourPost.length; r++) {
+                if (hourDays[r] != ALL_DAYS && (hourDays[r] & dayBit) == 0) {
+                    continue;
+                }
+                boolean inRange = hourFrom[r] <= hourTo[r]
+                        ? minuteOfDay >= hourFrom[r] && minuteOfDay < hourTo[r]
+                        : minuteOfDay >= hourFrom[r] || minuteOfDay < hourTo[r];
+                if (inRange) {
+                    set(demand, row, numPosts, hourPost[r], hourCount[r]);
+                }
+            }
+            for (int r = 0; r < periodPost.length; r++) {
+                if (offset >= periodFrom[r] && offset < periodTo[r]) {
+                    set(demand, row, numPosts, periodPost[r], periodCount[r]);
+                }
+            }
+        }
+        return demand;
+    }
+
+    // Rules are written in the order they were added, since a later rule wins.
+    void writeCanonical(DataOutput out) throws IOException {
+        for (int[] column : new int[][]{hourPost, hourFrom, hourTo, hourDays, hourCount, periodPost, periodFrom, periodTo, periodCount}) {
+            ScheduleConstraints.writeList(out, column);
+        }
+    }
+
+    void readCanonical(DataInput in) throws IOException {
+        hourPost = ScheduleConstraints.readList(in);
+        hourFrom = ScheduleConstraints.readList(in);
+        hourTo = ScheduleConstraints.readList(in);
+        hourDays = ScheduleConstraints.readList(in);
+        hourCount = ScheduleConstraints.readList(in);
+        periodPost = ScheduleConstraints.readList(in);
+        periodFrom = ScheduleConstraints.readList(in);
+        periodTo = ScheduleConstraints.readList(in);
+        periodCount = ScheduleConstraints.readList(in);
+    }
+
+    private static void set(int[] demand, int row, int numPosts, int post, int count) {
+        if (post == ALL_POSTS) {
+            Arrays.fill(demand, row, row + numPosts, count);
+        } else if (post >= 0 && post < numPosts) {
+            demand[row + post] = count;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.example.watchlist.scheduler;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Simulated annealing over a generated schedule. Independent restarts run in parallel on the
+// scheduler pool and every improvement of the global best is reported while the search continues.
+// Restarts run until the time budget is spent, so at most one less than the pool's parallelism
+// run at once and a worker is always left for other generation work.
+public class FairnessOptimizer {
+    static final double NIGHT_VARIANCE_WEIGHT = 1.0;
+    static final double MAX_HOURS_WEIGHT = 1.0;
+    static final double BACK_TO_BACK_WEIGHT = 0.5;
+    private static final long PUBLISH_INTERVAL_MILLIS = 250;
+
+    public interface Listener {
+        void onImproved(Schedule schedule, double objective);
+
+        void onComplete(Schedule best, double objective);
+    }
+
+    private final Schedule schedule;
+    private final long timeBudgetMillis;
+    private final int restarts;
+    private final long seed;
+
+    private final Object bestLock = new Object();
+    private int[] bestIds;
+    private double bestObjective;
+    private long lastPublished;
+
+    public FairnessOptimizer(Schedule schedule, long timeBudgetMillis, int restarts, long seed) {
+        this.schedule = schedule;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.restarts = Math.max(1, Math.min(restarts, maxRestarts()));
+        this.seed = seed;
+    }
+
+    // The most restarts that leave a pool worker free, and at least one.
+    public static int maxRestarts() {
+        return Math.max(1, SchedulerPool.get().getParallelism() - 1);
+    }
+
+    public static double objective(Schedule schedule) {
+        return new State(schedule, schedule.getSoldierIds().clone()).objective();
+    }
+
+    public GenerationHandle optimize(Listener listener) {
+        ForkJoinPool pool = SchedulerPool.get();
+        GenerationHandle handle = new GenerationHandle();
+        bestIds = schedule.getSoldierIds();
+        bestObjective = objective(schedule);
+        listener.onImproved(schedule, bestObjective);
+
+        AtomicInteger remaining = new AtomicInteger(restarts);
+        long deadline = System.currentTimeMillis() + timeBudgetMillis;
+        for (int r = 0; r < restarts; r++) {
+            final long restartSeed = seed + r;
+            handle.add(pool.submit(() -> {
+                try {
+                    anneal(new Random(restartSeed), deadline, handle, listener);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        synchronized (bestLock) {
+                            Schedule best = toSchedule(bestIds);
+                            double objective = bestObjective;
+                            handle.deliver(() -> listener.onComplete(best, objective));
+                        }
+                    }
+                }
+            }));
+        }
+        return handle;
+    }
+
+    private void anneal(Random random, long deadline, GenerationHandle handle, Listener listener) {
+        State state = new State(schedule, schedule.getSoldierIds().clone());
+        int numAssignments = state.ids.length;
+        int numSoldiers = schedule.getProblem().getNumSoldiers();
+        if (numAssignments < 2 || numSoldiers < 2) {
+            return;
+        }
+        double current = state.objective();
+        double localBest = current;
+        double startTemperature = Math.max(1e-3, current * 0.02);
+        double endTemperature = startTemperature * 1e-3;
+        long start = System.currentTimeMillis();
+        double temperature = startTemperature;
+
+        for (long iteration = 0; ; iteration++) {
+            if ((iteration & 255) == 0) {
+                long now = System.currentTimeMillis();
+                if (now >= deadline || handle.isCancelled()) {
+                    break;
+                }
+                double progress = (double) (now - start) / Math.max(1, deadline - start);
+                temperature = startTemperature * Math.pow(endTemperature / startTemperature, progress);
+            }
+
+            int k1 = random.nextInt(numAssignments);
+            boolean applied;
+            int k2 = -1;
+            int previous = state.ids[k1];
+            if (random.nextBoolean()) {
+                k2 = random.nextInt(numAssignments);
+                applied = state.trySwap(k1, k2);
+            } else {
+                applied = state.tryReassign(k1, random.nextInt(numSoldiers));
+            }
+            if (!applied) {
+                continue;
+            }
+
+            double candidate = state.objective();
+            double delta = candidate - current;
+            if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                current = candidate;
+                if (current < localBest - 1e-9) {
+                    localBest = current;
+                    publish(state.ids, current, listener, handle);
+                }
+            } else if (k2 >= 0) {
+                state.swap(k1, k2);
+            } else {
+                state.reassign(k1, previous);
+            }
+        }
+    }
+
+    // Records a new global best and reports it, at most once per publish interval.
+    private void publish(int[] ids, double objective, Listener listener, GenerationHandle handle) {
+        synchronized (bestLock) {
+            if (objective >= bestObjective - 1e-9) {
+                return;
+            }
+            bestIds = ids.clone();
+            bestObjective = objective;
+            long now = System.currentTimeMillis();
+            if (!handle.isCancelled() && now - lastPublished >= PUBLISH_INTERVAL_MILLIS) {
+                lastPublished = now;
+                Schedule best = toSchedule(bestIds);
+                handle.deliver(() -> listener.onImproved(best, objective));
+            }
+        }
+    }
+
+    private Schedule toSchedule(int[] ids) {
+        return new Schedule(schedule.getProblem(), schedule.getAlgorithm(), schedule.getSlots(), schedule.getCellStart(), ids);
+    }
+
+    // Per-soldier totals kept up to date under moves so the objective is O(1) to read.
+    static class State {
+        final int[] ids;
+        private final int[] slotOf;
+        private final int[] postOf;
+        private final ScheduleProblem problem;
+        private final int[] slotStart;
+        private final int[] offset;
+        private final int[] length;
+        private final int minRest;
+        private final int[] cellStart;
+        private final int numPosts;
+        private final ScheduleConstraints constraints;
+        private final boolean[] night;
+        private final long[] totalMinutes;
+        private final long[] nightMinutes;
+        private final int[] totalHistogram;
+        private int maxTotal;
+        private double nightSum;
+        private double nightSumSquares;
+        private long backToBack;
+        private final int numSlots;
+
+        State(Schedule schedule, int[] ids) {
+            this.ids = ids;
+            TimeSlots slots = schedule.getSlots();
+            numPosts = schedule.getNumPosts();
+            int numSoldiers = schedule.getProblem().getNumSoldiers();
+            cellStart = schedule.getCellStart();
+            constraints = schedule.getProblem().getConstraints();
+            numSlots = slots.size();
+            slotStart = new int[numSlots + 1];
+            offset = new int[numSlots];
+            length = new int[numSlots];
+            minRest = schedule.getProblem().getMinRestMinutes();
+            night = new boolean[numSlots];
+            int horizon = 0;
+            for (int i = 0; i < numSlots; i++) {
+                slotStart[i] = cellStart[i * numPosts];
+                offset[i] = slots.getOffset(i);
+                length[i] = slots.getLength(i);
+                night[i] = !slots.isDay(i);
+                horizon += length[i];
+            }
+            slotStart[numSlots] = cellStart[numSlots * numPosts];
+            problem = schedule.getProblem();
+            slotOf = new int[ids.length];
+            postOf = new int[ids.length];
+            for (int cell = 0; cell < numSlots * numPosts; cell++) {
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    slotOf[k] = cell / numPosts;
+                    postOf[k] = cell % numPosts;
+                }
+            }
+
+            totalMinutes = new long[numSoldiers];
+            nightMinutes = new long[numSoldiers];
+            for (int k = 0; k < ids.length; k++) {
+                int slot = slotOf[k];
+                totalMinutes[ids[k]] += length[slot];
+                if (night[slot]) {
+                    nightMinutes[ids[k]] += length[slot];
+                }
+            }
+            long maxPossible = 0;
+            for (int s = 0; s < numSoldiers; s++) {
+                maxPossible = Math.max(maxPossible, totalMinutes[s]);
+                double hours = nightMinutes[s] / 60.0;
+                nightSum += hours;
+                nightSumSquares += hours * hours;
+            }
+            // Moves never create double bookings, so no total can grow past its start plus the horizon.
+            totalHistogram = new int[(int) maxPossible + horizon + 1];
+            for (int s = 0; s < numSoldiers; s++) {
+                totalHistogram[(int) totalMinutes[s]]++;
+                maxTotal = (int) Math.max(maxTotal, totalMinutes[s]);
+            }
+            for (int i = 0; i + 1 < numSlots; i++) {
+                for (int k = slotStart[i]; k < slotStart[i + 1]; k++) {
+                    if (countIn(i + 1, ids[k]) > 0 && firstIn(i, ids[k]) == k) {
+                        backToBack++;
+                    }
+                }
+            }
+        }
+
+        double objective() {
+            int n = totalMinutes.length;
+            if (n == 0) {
+                return 0;
+            }
+            double mean = nightSum / n;
+            double nightVariance = Math.max(0, nightSumSquares / n - mean * mean);
+            return NIGHT_VARIANCE_WEIGHT * nightVariance
+                    + MAX_HOURS_WEIGHT * maxTotal / 60.0
+                    + BACK_TO_BACK_WEIGHT * backToBack;
+        }
+
+        boolean trySwap(int k1, int k2) {
+            int slot1 = slotOf[k1];
+            int slot2 = slotOf[k2];
+            int s1 = ids[k1];
+            int s2 = ids[k2];
+            if (slot1 == slot2 || s1 == s2 || countIn(slot2, s1) > 0 || countIn(slot1, s2) > 0
+                    || !canFill(s1, k2) || !canFill(s2, k1)) {
+                return false;
+            }
+            swap(k1, k2);
+            if (restViolated(slot2, s1) || restViolated(slot1, s2)
+                    || !constraints.isSatisfied(ids, cellStart, slot1, numPosts)
+                    || !constraints.isSatisfied(ids, cellStart, slot2, numPosts)) {
+                swap(k1, k2);
+                return false;
+            }
+            return true;
+        }
+
+        boolean tryReassign(int k, int soldier) {
+            int slot = slotOf[k];
+            int previous = ids[k];
+            if (previous == soldier || countIn(slot, soldier) > 0 || !canFill(soldier, k)) {
+                return false;
+            }
+            reassign(k, soldier);
+            if (restViolated(slot, soldier) || !constraints.isSatisfied(ids, cellStart, slot, numPosts)) {
+                reassign(k, previous);
+                return false;
+            }
+            return true;
+        }
+
+        void swap(int k1, int k2) {
+            int s1 = ids[k1];
+            int s2 = ids[k2];
+            remove(k1);
+            remove(k2);
+            add(k1, s2);
+            add(k2, s1);
+        }
+
+        void reassign(int k, int soldier) {
+            remove(k);
+            add(k, soldier);
+        }
+
+        private void remove(int k) {
+            int slot = slotOf[k];
+            int soldier = ids[k];
+            ids[k] = -1;
+            if (countIn(slot, soldier) == 0) {
+                backToBack -= neighbours(slot, soldier);
+            }
+            changeTotals(soldier, slot, -1);
+        }
+
+        private void add(int k, int soldier) {
+            int slot = slotOf[k];
+            if (countIn(slot, soldier) == 0) {
+                backToBack += neighbours(slot, soldier);
+            }
+            ids[k] = soldier;
+            changeTotals(soldier, slot, 1);
+        }
+
+        private void changeTotals(int soldier, int slot, int sign) {
+            int before = (int) totalMinutes[soldier];
+            int after = before + sign * length[slot];
+            totalMinutes[soldier] = after;
+            totalHistogram[before]--;
+            totalHistogram[after]++;
+            if (after > maxTotal) {
+                maxTotal = after;
+            }
+            while (maxTotal > 0 && totalHistogram[maxTotal] == 0) {
+                maxTotal--;
+            }
+            if (night[slot]) {
+                double oldHours = nightMinutes[soldier] / 60.0;
+                nightMinutes[soldier] += sign * length[slot];
+                double newHours = nightMinutes[soldier] / 60.0;
+                nightSum += newHours - oldHours;
+                nightSumSquares += newHours * newHours - oldHours * oldHours;
+            }
+        }
+
+        // Qualified for the post of assignment k and not unavailable during its slot.
+        private boolean canFill(int soldier, int k) {
+            int slot = slotOf[k];
+            return problem.isQualified(soldier, postOf[k])
+                    && problem.getUnavailability().isFree(soldier, offset[slot], offset[slot] + length[slot]);
+        }
+
+        // True if the soldier works another slot that ends less than the minimum rest before this one
+        // starts, or starts less than the minimum rest after it ends.
+        private boolean restViolated(int slot, int soldier) {
+            if (minRest == 0) {
+                return false;
+            }
+            for (int i = slot - 1; i >= 0 && offset[i] + length[i] + minRest > offset[slot]; i--) {
+                if (countIn(i, soldier) > 0) {
+                    return true;
+                }
+            }
+            int end = offset[slot] + length[slot];
+            for (int i = slot + 1; i < numSlots && end + minRest > offset[i]; i++) {
+                if (countIn(i, soldier) > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int neighbours(int slot, int soldier) {
+            int count = 0;
+            if (slot > 0 && countIn(slot - 1, soldier) > 0) {
+                count++;
+            }
+            if (slot + 1 < numSlots && countIn(slot + 1, soldier) > 0) {
+                count++;
+            }
+            return count;
+        }
+
+        private int countIn(int slot, int soldier) {
+            int count = 0;
+            for (int k = slotStart[slot]; k < slotStart[slot + 1]; k++) {
+                if (ids[k] == soldier) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private int firstIn(int slot, int soldier) {
+            for (int k = slotStart[slot]; k < slotStart[slot + 1]; k++) {
+                if (ids[k] == soldier) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+    }
+}
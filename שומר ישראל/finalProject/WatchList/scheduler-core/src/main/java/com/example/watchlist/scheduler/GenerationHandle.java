@@ -0,0 +1,50 @@
+package com.example.watchlist.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+
+// Returned by every asynchronous generation, cancelling it drops pending work and suppresses further callbacks.
+// Running generations are handed the handle and stop at their next slot, so they free the pool too.
+public class GenerationHandle {
+    private final List<Future<?>> futures = new ArrayList<>();
+    private volatile boolean cancelled;
+
+    public synchronized void add(Future<?> future) {
+        if (cancelled) {
+            future.cancel(false);
+        } else {
+            futures.add(future);
+        }
+    }
+
+    public void cancel() {
+        synchronized (this) {
+            cancelled = true;
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+            futures.clear();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Called by running work at points where it can stop.
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+    }
+
+    // Runs a listener callback unless cancelled. Callbacks run through here hold off cancel, so none
+    // starts once cancel has returned.
+    public synchronized void deliver(Runnable callback) {
+        if (!cancelled) {
+            callback.run();
+        }
+    }
+}
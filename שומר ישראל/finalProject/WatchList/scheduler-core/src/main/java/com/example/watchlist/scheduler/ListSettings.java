@@ -0,0 +1,214 @@
+package com.example.watchlist.scheduler;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Reads list settings in the shape the server stores them and writes schedules back in that shape,
+// so the app and the command-line tool build the same problem from the same document.
+public class ListSettings {
+    private ListSettings() {
+    }
+
+    // A list document, or the addList payload it was created from, as a problem. Members in excluded
+    // are left off the roster; team data such as qualifications and unavailability is added by the caller.
+    public static ScheduleProblem problemOf(Map<String, Object> data, List<String> excluded) {
+        int[] times = parseTime((String) data.get("startHour"));
+        int[] dayTimes = parseDayTimes((String) data.get("dayStartHour"), (String) data.get("dayEndHour"));
+        int durationMinutes = ((Number) data.get("duration")).intValue() * 60;
+        int numPosts = ((Number) data.get("numPosts")).intValue();
+        List<String> soldiers = stringList(data.get("selectedSoldiers"));
+        soldiers.removeAll(excluded);
+        List<String> posts = new ArrayList<>();
+        Map<String, Integer> dayTimeSoldiers = new HashMap<>();
+        Map<String, Integer> nightTimeSoldiers = new HashMap<>();
+        for (int i = 1; i <= numPosts; i++) {
+            String postName = (String) data.get("post" + i + "Name");
+            int dayTime = ((Number) data.get("post" + i + "DayTime")).intValue();
+            int nightTime = ((Number) data.get("post" + i + "NightTime")).intValue();
+            posts.add(postName);
+            dayTimeSoldiers.put(postName, dayTime);
+            nightTimeSoldiers.put(postName, nightTime);
+        }
+        ScheduleProblem problem = new ScheduleProblem(soldiers, posts, dayTimeSoldiers, nightTimeSoldiers, times[0], times[1], durationMinutes, dayTimes[0], dayTimes[1], dayTimes[2], dayTimes[3]);
+        problem.setStartDate(parseStartDate((String) data.get("startDate")));
+        // Lists created before these settings existed have no minimum rest and no qualifications.
+        Number minRestHours = (Number) data.get("minRestHours");
+        if (minRestHours != null) {
+            problem.setMinRestMinutes(minRestHours.intValue() * 60);
+        }
+        for (int i = 1; i <= numPosts; i++) {
+            Number required = (Number) data.get("post" + i + "Qualifications");
+            if (required != null) {
+                problem.setPostQualifications(i - 1, required.longValue());
+            }
+        }
+        List<Map<String, Object>> rules = mapList(data.get("rules"));
+        if (rules != null) {
+            addRules(problem, rules);
+        }
+        List<Map<String, Object>> staffing = mapList(data.get("staffing"));
+        if (staffing != null) {
+            addStaffing(problem, staffing);
+        }
+        return problem;
+    }
+
+    // A copy of an array of names from a document, or null when it is missing.
+    private static List<String> stringList(Object value) {
+        if (value == null) {
+            return null;
+        }
+        List<String> strings = new ArrayList<>();
+        for (Object item : (List<?>) value) {
+            strings.add((String) item);
+        }
+        return strings;
+    }
+
+    // An array of objects from a document, or null when it is missing. Documents are parsed into
+    // maps keyed by field name, so the elements are checked where their fields are read.
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> mapList(Object value) {
+        return (List<Map<String, Object>>) value;
+    }
+
+    // Settings of count lists made from a saved template: the i-th starts i * everyDays days and
+    // i * offsetHours hours after firstStart, and is named baseName followed by its number.
+    public static List<Map<String, Object>> series(Map<String, Object> template, String baseName, LocalDateTime firstStart, int count, int everyDays, int offsetHours) {
+        List<Map<String, Object>> lists = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = firstStart.plusDays((long) i * everyDays).plusHours((long) i * offsetHours);
+            Map<String, Object> data = new HashMap<>(template);
+            data.put("listName", baseName + " " + (i + 1));
+            data.put("startDate", String.format(Locale.US, "%02d/%02d/%04d", start.getDayOfMonth(), start.getMonthValue(), start.getYear()));
+            data.put("startHour", String.format(Locale.US, "%02d:%02d", start.getHour(), start.getMinute()));
+            lists.add(data);
+        }
+        return lists;
+    }
+
+    // "mustPair" and "mustNotPair" apply to every two members of the rule, "maxPerSlot" to the whole group.
+    private static void addRules(ScheduleProblem problem, List<Map<String, Object>> rules) {
+        for (Map<String, Object> rule : rules) {
+            String type = (String) rule.get("type");
+            List<String> members = stringList(rule.get("members"));
+            if (type == null || members == null) {
+                continue;
+            }
+            if (type.equals("maxPerSlot")) {
+                Number limit = (Number) rule.get("limit");
+                problem.addMaxPerSlot(members, limit != null ? limit.intValue() : 1);
+                continue;
+            }
+            for (int a = 0; a < members.size(); a++) {
+                for (int b = a + 1; b < members.size(); b++) {
+                    if (type.equals("mustPair")) {
+                        problem.addMustPair(members.get(a), members.get(b));
+                    } else if (type.equals("mustNotPair")) {
+                        problem.addMustNotPair(members.get(a), members.get(b));
+                    }
+                }
+            }
+        }
+    }
+
+    // "days" is "all", "weekdays" (Sunday to Thursday) or "weekend" for an hour range, or "dates"
+    // for whole days from "fromDate" to "toDate". "post" is the post's index, -1 for all posts.
+    private static void addStaffing(ScheduleProblem problem, List<Map<String, Object>> staffing) {
+        DemandProfile profile = problem.getDemandProfile();
+        int weekend = 1 << (DayOfWeek.FRIDAY.getValue() - 1) | 1 << (DayOfWeek.SATURDAY.getValue() - 1);
+        for (Map<String, Object> rule : staffing) {
+            int post = ((Number) rule.get("post")).intValue();
+            int count = ((Number) rule.get("count")).intValue();
+            String days = (String) rule.get("days");
+            if ("dates".equals(days)) {
+                if (problem.getStartDate() == null) {
+                    continue;
+                }
+                long listStartDay = problem.getStartDate().toEpochDay();
+                long fromDay = parseStartDate((String) rule.get("fromDate")).toEpochDay() - listStartDay;
+                long toDay = parseStartDate((String) rule.get("toDate")).toEpochDay() + 1 - listStartDay;
+                profile.addPeriod(post, (int) (fromDay * 24 * 60) - problem.getStartMinuteOfDay(), (int) (toDay * 24 * 60) - problem.getStartMinuteOfDay(), count);
+                continue;
+            }
+            int[] from = parseTime((String) rule.get("from"));
+            int[] to = parseTime((String) rule.get("to"));
+            int mask = "weekdays".equals(days) ? DemandProfile.ALL_DAYS & ~weekend : "weekend".equals(days) ? weekend : DemandProfile.ALL_DAYS;
+            profile.addHours(post, from[0] * 60 + from[1], to[0] * 60 + to[1], mask, count);
+        }
+    }
+
+    // One day of the schedule as stored: a map per slot from post name to its cell text, plus "Time".
+    public static List<Map<String, String>> pageRows(Schedule schedule, int page) {
+        List<Map<String, String>> scheduleList = new ArrayList<>();
+        ScheduleProblem problem = schedule.getProblem();
+        for (String[] cells : schedule.dayRows(page)) {
+            Map<String, String> row = new HashMap<>();
+            for (int j = 0; j < schedule.getNumPosts(); j++) {
+                row.put(problem.getPost(j), cells[j + 1]);
+            }
+            row.put("Time", cells[0]);
+            scheduleList.add(row);
+        }
+        return scheduleList;
+    }
+
+    // Settings of the next blockHours of a list, starting where the list now ends, for extending
+    // a rolling list without building it again. The list must have a start date.
+    public static Map<String, Object> nextBlock(Map<String, Object> data, int blockHours) {
+        int[] time = parseTime((String) data.get("startHour"));
+        LocalDateTime start = parseStartDate((String) data.get("startDate")).atTime(time[0], time[1])
+                .plusHours(((Number) data.get("duration")).longValue());
+        Map<String, Object> block = new HashMap<>(data);
+        block.put("startDate", String.format(Locale.US, "%02d/%02d/%04d", start.getDayOfMonth(), start.getMonthValue(), start.getYear()));
+        block.put("startHour", String.format(Locale.US, "%02d:%02d", start.getHour(), start.getMinute()));
+        block.put("duration", blockHours);
+        return block;
+    }
+
+    // A block made by nextBlock as rows of the longer list it extends, so labels carry the date.
+    public static List<Map<String, String>> blockRows(Schedule block) {
+        List<Map<String, String>> scheduleList = new ArrayList<>();
+        ScheduleProblem problem = block.getProblem();
+        TimeSlots slots = block.getSlots();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Map<String, String> row = new HashMap<>();
+            for (int j = 0; j < block.getNumPosts(); j++) {
+                row.put(problem.getPost(j), block.cellText(slot, j));
+            }
+            row.put("Time", slots.label(slot, true));
+            scheduleList.add(row);
+        }
+        return scheduleList;
+    }
+
+    public static LocalDate parseStartDate(String startDate) {
+        if (startDate == null) {
+            return null;
+        }
+        String[] parts = startDate.split("/");
+        return LocalDate.of(Integer.parseInt(parts[2]), Integer.parseInt(parts[1]), Integer.parseInt(parts[0]));
+    }
+
+    public static int[] parseTime(String time) {
+        String[] parts = time.split(":");
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    private static int[] parseDayTimes(String dayStart, String dayEnd) {
+        int[] dayTimes = new int[4];
+        String[] dayStartParts = dayStart.split(":");
+        String[] dayEndParts = dayEnd.split(":");
+        dayTimes[0] = Integer.parseInt(dayStartParts[0]);
+        dayTimes[1] = Integer.parseInt(dayStartParts[1]);
+        dayTimes[2] = Integer.parseInt(dayEndParts[0]);
+        dayTimes[3] = Integer.parseInt(dayEndParts[1]);
+        return dayTimes;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.watchlist.scheduler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Work each member has done across a team's saved lists: minutes, night minutes and when their
+// last shift ended, in epoch minutes. One list's share is built from its schedule and the team's
+// ledger is kept as the sum of the shares, so a new list reads one ledger instead of every list.
+public class LoadLedger {
+    public static final long NO_SHIFT = Long.MIN_VALUE;
+
+    // {minutes, nightMinutes} per member
+    private final Map<String, long[]> loads = new HashMap<>();
+    // The ends added for each member, so a list dated before another sees only the shifts before it.
+    private final Map<String, TreeSet<Long>> ends = new HashMap<>();
+
+    public void add(String name, long minutes, long nightMinutes, long lastEnd) {
+        long[] load = loads.get(name);
+        if (load == null) {
+            load = new long[]{0, 0};
+            loads.put(name, load);
+            ends.put(name, new TreeSet<>());
+        }
+        load[0] += minutes;
+        load[1] += nightMinutes;
+        if (lastEnd != NO_SHIFT) {
+            ends.get(name).add(lastEnd);
+        }
+    }
+
+    public void addAll(LoadLedger other) {
+        for (Map.Entry<String, long[]> entry : other.loads.entrySet()) {
+            String name = entry.getKey();
+            long[] load = entry.getValue();
+            add(name, load[0], load[1], NO_SHIFT);
+            ends.get(name).addAll(other.ends.get(name));
+        }
+    }
+
+    public Set<String> getNames() {
+        return loads.keySet();
+    }
+
+    public long getMinutes(String name) {
+        long[] load = loads.get(name);
+        return load != null ? load[0] : 0;
+    }
+
+    public long getNightMinutes(String name) {
+        long[] load = loads.get(name);
+        return load != null ? load[1] : 0;
+    }
+
+    public long getLastEnd(String name) {
+        TreeSet<Long> memberEnds = ends.get(name);
+        return memberEnds != null && !memberEnds.isEmpty() ? memberEnds.last() : NO_SHIFT;
+    }
+
+    // The last end at or before time, in epoch minutes. Shifts of lists dated later do not count.
+    public long getLastEnd(String name, long time) {
+        TreeSet<Long> memberEnds = ends.get(name);
+        Long end = memberEnds != null ? memberEnds.floor(time) : null;
+        return end != null ? end : NO_SHIFT;
+    }
+
+    // The share of a generated schedule whose first slot starts at listStart, in epoch minutes.
+    public static LoadLedger of(Schedule schedule, long listStart) {
+        ScheduleMetrics metrics = ScheduleMetrics.of(schedule);
+        SoldierIndex soldiers = schedule.getProblem().getSoldiers();
+        LoadLedger ledger = new LoadLedger();
+        for (int s = 0; s < soldiers.size(); s++) {
+            int lastEnd = metrics.getLastShiftEndMinutes(s);
+            if (lastEnd != ScheduleMetrics.NO_SHIFT) {
+                ledger.add(soldiers.nameOf(s), metrics.getTotalMinutes(s), metrics.getNightMinutes(s), listStart + lastEnd);
+            }
+        }
+        return ledger;
+    }
+
+    // The share of stored rows {label, cell text per post}, one per slot of the list. Names
+    // typed in by hand count too, whether or not they are on the roster.
+    public static LoadLedger of(ScheduleProblem problem, Algorithm algorithm, List<String[]> rows, long listStart) {
+        TimeSlots slots = TimeSlots.forAlgorithm(problem, algorithm);
+        LoadLedger ledger = new LoadLedger();
+        for (int i = 0; i < rows.size() && i < slots.size(); i++) {
+            String[] row = rows.get(i);
+            int length = slots.getLength(i);
+            long end = listStart + slots.getOffset(i) + length;
+            for (int j = 1; j < row.length; j++) {
+                if (row[j] == null) {
+                    continue;
+                }
+                for (String part : row[j].split(",")) {
+                    String name = part.trim();
+                    if (!name.isEmpty()) {
+                        ledger.add(name, length, slots.isDay(i) ? 0 : length, end);
+                    }
+                }
+            }
+        }
+        return ledger;
+    }
+}
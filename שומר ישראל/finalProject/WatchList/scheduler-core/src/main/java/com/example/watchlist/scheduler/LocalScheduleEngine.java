@@ -0,0 +1,34 @@
+package com.example.watchlist.scheduler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongConsumer;
+
+// Generates on the shared scheduler pool of this process.
+public class LocalScheduleEngine implements ScheduleEngine {
+
+    @Override
+    public CompletableFuture<Schedule> generate(ScheduleProblem problem, Algorithm algorithm, GenerationHandle handle) {
+        return CompletableFuture.supplyAsync(() -> ScheduleGenerator.generate(problem, algorithm, problem.getRotationOrder(), handle), SchedulerPool.get());
+    }
+
+    // As generate, also handing the nanoseconds generating took to timed. The time is taken on the
+    // pool worker, so waiting for a free worker is not counted.
+    public CompletableFuture<Schedule> generate(ScheduleProblem problem, Algorithm algorithm, GenerationHandle handle, LongConsumer timed) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            Schedule schedule = ScheduleGenerator.generate(problem, algorithm, problem.getRotationOrder(), handle);
+            timed.accept(System.nanoTime() - start);
+            return schedule;
+        }, SchedulerPool.get());
+    }
+
+    // A rough count of the steps generating takes, every soldier weighed for every seat, so the
+    // time of one problem can be predicted from how fast earlier ones went.
+    public static long workOf(ScheduleProblem problem, Algorithm algorithm) {
+        long seats = 0;
+        for (int seat : problem.demandTable(TimeSlots.forAlgorithm(problem, algorithm))) {
+            seats += seat;
+        }
+        return seats * Math.max(1, problem.getNumSoldiers());
+    }
+}
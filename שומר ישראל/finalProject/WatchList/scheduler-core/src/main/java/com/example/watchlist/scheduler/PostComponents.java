@@ -0,0 +1,118 @@
+package com.example.watchlist.scheduler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Connected components of the post-soldier graph. A soldier is linked to every post they are
+// qualified for, and soldiers tied by a must-pair or max-per-slot rule are linked to each other.
+// Components share no soldier, so each can be scheduled on its own. Soldiers qualified for no
+// post belong to no component.
+class PostComponents {
+    private final int count;
+    private final int[] postComponent;
+    private final int[] soldierComponent;
+
+    private PostComponents(int count, int[] postComponent, int[] soldierComponent) {
+        this.count = count;
+        this.postComponent = postComponent;
+        this.soldierComponent = soldierComponent;
+    }
+
+    static PostComponents of(ScheduleProblem problem) {
+        int numSoldiers = problem.getNumSoldiers();
+        int numPosts = problem.getNumPosts();
+        int[] parent = new int[numSoldiers + numPosts];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+
+        // Posts with the same requirements are joined through the first of them, so each soldier
+        // is linked once per distinct requirement rather than once per post.
+        Map<Long, Integer> firstPost = new HashMap<>();
+        for (int j = 0; j < numPosts; j++) {
+            Integer first = firstPost.get(problem.getPostQualifications(j));
+            if (first == null) {
+                firstPost.put(problem.getPostQualifications(j), j);
+            } else {
+                union(parent, numSoldiers + j, numSoldiers + first);
+            }
+        }
+        long[] requirements = new long[firstPost.size()];
+        int[] representatives = new int[firstPost.size()];
+        int r = 0;
+        for (Map.Entry<Long, Integer> entry : firstPost.entrySet()) {
+            requirements[r] = entry.getKey();
+            representatives[r] = entry.getValue();
+            r++;
+        }
+        boolean[] eligible = new boolean[numSoldiers];
+        for (int s = 0; s < numSoldiers; s++) {
+            long held = problem.getSoldierQualifications(s);
+            for (int k = 0; k < requirements.length; k++) {
+                if ((requirements[k] & ~held) == 0) {
+                    union(parent, s, numSoldiers + representatives[k]);
+                    eligible[s] = true;
+                }
+            }
+        }
+
+        ScheduleConstraints constraints = problem.getConstraints();
+        for (int s = 0; s < numSoldiers; s++) {
+            for (int partner : constraints.partnersOf(s)) {
+                union(parent, s, partner);
+            }
+        }
+        for (int group = 0; group < constraints.numGroups(); group++) {
+            int[] members = constraints.groupMembers(group);
+            for (int k = 1; k < members.length; k++) {
+                union(parent, members[0], members[k]);
+            }
+        }
+
+        int[] componentOfRoot = new int[parent.length];
+        Arrays.fill(componentOfRoot, -1);
+        int count = 0;
+        int[] postComponent = new int[numPosts];
+        for (int j = 0; j < numPosts; j++) {
+            int root = find(parent, numSoldiers + j);
+            if (componentOfRoot[root] < 0) {
+                componentOfRoot[root] = count++;
+            }
+            postComponent[j] = componentOfRoot[root];
+        }
+        int[] soldierComponent = new int[numSoldiers];
+        for (int s = 0; s < numSoldiers; s++) {
+            soldierComponent[s] = eligible[s] ? componentOfRoot[find(parent, s)] : -1;
+        }
+        return new PostComponents(count, postComponent, soldierComponent);
+    }
+
+    int count() {
+        return count;
+    }
+
+    int componentOfPost(int post) {
+        return postComponent[post];
+    }
+
+    int componentOfSoldier(int soldier) {
+        return soldierComponent[soldier];
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[rootA] = rootB;
+        }
+    }
+}
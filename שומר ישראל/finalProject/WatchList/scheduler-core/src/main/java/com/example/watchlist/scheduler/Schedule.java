@@ -0,0 +1,111 @@
+package com.example.watchlist.scheduler;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Assignment matrix stored slot-major: cell (slot, post) holds the soldier ids
+// soldierIds[cellStart[c]] .. soldierIds[cellStart[c + 1] - 1] with c = slot * numPosts + post.
+public class Schedule {
+    private final ScheduleProblem problem;
+    private final Algorithm algorithm;
+    private final TimeSlots slots;
+    private final int[] cellStart;
+    private final int[] soldierIds;
+
+    public Schedule(ScheduleProblem problem, Algorithm algorithm, TimeSlots slots, int[] cellStart, int[] soldierIds) {
+        this.problem = problem;
+        this.algorithm = algorithm;
+        this.slots = slots;
+        this.cellStart = cellStart;
+        this.soldierIds = soldierIds;
+    }
+
+    public ScheduleProblem getProblem() {
+        return problem;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public TimeSlots getSlots() {
+        return slots;
+    }
+
+    public int getNumSlots() {
+        return slots.size();
+    }
+
+    public int getNumPosts() {
+        return problem.getNumPosts();
+    }
+
+    public int cellSize(int slot, int post) {
+        int c = slot * problem.getNumPosts() + post;
+        return cellStart[c + 1] - cellStart[c];
+    }
+
+    public int soldierAt(int slot, int post, int k) {
+        return soldierIds[cellStart[slot * problem.getNumPosts() + post] + k];
+    }
+
+    public int[] getCellStart() {
+        return cellStart;
+    }
+
+    public int[] getSoldierIds() {
+        return soldierIds;
+    }
+
+    public String cellText(int slot, int post) {
+        int c = slot * problem.getNumPosts() + post;
+        int from = cellStart[c];
+        int to = cellStart[c + 1];
+        if (from == to) {
+            return "";
+        }
+        SoldierIndex index = problem.getSoldiers();
+        if (to - from == 1) {
+            return index.nameOf(soldierIds[from]);
+        }
+        StringBuilder text = new StringBuilder(index.nameOf(soldierIds[from]));
+        for (int i = from + 1; i < to; i++) {
+            text.append(", ").append(index.nameOf(soldierIds[i]));
+        }
+        return text.toString();
+    }
+
+    // Rows of slots [fromSlot, toSlot) as {label, cell text per post}, built one at a time
+    // so a long list can be shown or stored page by page without holding every string.
+    public Iterable<String[]> rows(int fromSlot, int toSlot) {
+        int from = Math.max(0, fromSlot);
+        int to = Math.min(toSlot, slots.size());
+        return () -> new Iterator<String[]>() {
+            private int slot = from;
+
+            @Override
+            public boolean hasNext() {
+                return slot < to;
+            }
+
+            @Override
+            public String[] next() {
+                if (slot >= to) {
+                    throw new NoSuchElementException();
+                }
+                String[] row = new String[problem.getNumPosts() + 1];
+                row[0] = slots.label(slot);
+                for (int j = 0; j < problem.getNumPosts(); j++) {
+                    row[j + 1] = cellText(slot, j);
+                }
+                slot++;
+                return row;
+            }
+        };
+    }
+
+    // Rows of one day of the list.
+    public Iterable<String[]> dayRows(int day) {
+        return rows(slots.firstSlotOfDay(day), slots.firstSlotOfDay(day + 1));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.watchlist.scheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+// Generated schedules on disk, one file per key. The key is a SHA-256 of every generation input,
+// so an unchanged list finds its schedules again and lists with the same settings share them.
+// Reading an entry marks it as used; writing one drops the least recently used entries until
+// the directory fits in maxBytes.
+public class ScheduleCache {
+    // Part of every key, so entries written in an older layout are never read back.
+    private static final int FORMAT = 2;
+    private static final String SUFFIX = ".schedules";
+
+    private final File dir;
+    private final long maxBytes;
+
+    public ScheduleCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    // Variant names what is generated from the problem, for example which algorithms or how many candidates.
+    public static String key(ScheduleProblem problem, String variant) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT);
+            out.writeUTF(variant);
+            problem.writeCanonical(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray());
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // A seed taken from the key, so equal inputs also draw the same candidates.
+    public static long seedOf(String key) {
+        return Long.parseUnsignedLong(key.substring(0, 16), 16);
+    }
+
+    // The schedules stored under key, rebuilt on the given problem, or null when there are none.
+    public synchronized List<Schedule> get(String key, ScheduleProblem problem) {
+        File file = new File(dir, key + SUFFIX);
+        if (!file.isFile()) {
+            return null;
+        }
+        byte[] data = new byte[(int) file.length()];
+        List<Schedule> schedules;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(data);
+            schedules = ScheduleCodec.decodeSchedules(data, problem);
+        } catch (IOException e) {
+            file.delete();
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return schedules;
+    }
+
+    public synchronized void put(String key, List<Schedule> schedules) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        // Written aside and renamed, so a reader never sees half an entry.
+        File temp = new File(dir, key + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(ScheduleCodec.encodeSchedules(schedules));
+        }
+        File file = new File(dir, key + SUFFIX);
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Cannot store " + file);
+        }
+        evict(file);
+    }
+
+    // The entry just written is kept even when it alone is over the limit.
+    private void evict(File written) {
+        File[] files = dir.listFiles((parent, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i < files.length && total > maxBytes; i++) {
+            long length = files[i].length();
+            if (!files[i].equals(written) && files[i].delete()) {
+                total -= length;
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.watchlist.scheduler;
+
+public class ScheduleCandidate {
+    private final Schedule schedule;
+    private final long seed;
+    private final ScheduleMetrics metrics;
+    private final ScheduleValidator validation;
+
+    public ScheduleCandidate(Schedule schedule, long seed, ScheduleMetrics metrics, ScheduleValidator validation) {
+        this.schedule = schedule;
+        this.seed = seed;
+        this.metrics = metrics;
+        this.validation = validation;
+    }
+
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public ScheduleMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ScheduleValidator getValidation() {
+        return validation;
+    }
+
+    public double getScore() {
+        return metrics.getScore();
+    }
+}
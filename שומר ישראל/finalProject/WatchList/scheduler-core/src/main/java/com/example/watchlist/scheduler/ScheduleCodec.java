@@ -0,0 +1,178 @@
+package com.example.watchlist.scheduler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Problems and schedules as bytes, for the disk cache and for generating on another machine.
+// A problem is written with every generation input, the layout its cache key is hashed from;
+// schedules are written compactly and rebuilt on the problem they were generated for.
+public class ScheduleCodec {
+    // Leads every encoded problem, so one written in an older layout is refused rather than misread.
+    private static final int PROBLEM_FORMAT = 2;
+
+    private ScheduleCodec() {
+    }
+
+    public static byte[] encodeProblem(ScheduleProblem problem) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(PROBLEM_FORMAT);
+            problem.writeCanonical(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static ScheduleProblem decodeProblem(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int format = in.readInt();
+            if (format != PROBLEM_FORMAT) {
+                throw new IOException("Unknown problem format " + format);
+            }
+            ScheduleProblem problem = ScheduleProblem.readCanonical(in);
+            if (in.read() != -1) {
+                throw new IOException("Trailing bytes after the problem");
+            }
+            return problem;
+        } catch (RuntimeException e) {
+            throw new IOException("Bad problem", e);
+        }
+    }
+
+    // Per schedule: algorithm name, then cellStart and soldierIds as length-prefixed arrays of
+    // zigzag varint deltas. Cell starts grow by a seat or two and the rotation walks ids in order,
+    // so most values take one byte instead of four.
+    public static byte[] encodeSchedules(List<Schedule> schedules) {
+        VarIntOutput out = new VarIntOutput();
+        out.write(schedules.size());
+        for (Schedule schedule : schedules) {
+            byte[] name = schedule.getAlgorithm().name().getBytes(StandardCharsets.UTF_8);
+            out.write(name.length);
+            for (byte b : name) {
+                out.write(b);
+            }
+            out.writeDeltas(schedule.getCellStart());
+            out.writeDeltas(schedule.getSoldierIds());
+        }
+        return out.toByteArray();
+    }
+
+    // The schedules rebuilt on the problem they were generated for. Bytes that are truncated,
+    // foreign or do not fit the problem, down to a cell start running backwards or a soldier id
+    // outside the roster, throw IOException rather than a schedule that fails later.
+    public static List<Schedule> decodeSchedules(byte[] data, ScheduleProblem problem) throws IOException {
+        try {
+            VarIntInput in = new VarIntInput(data);
+            int count = in.read();
+            List<Schedule> schedules = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[in.read()];
+                for (int k = 0; k < name.length; k++) {
+                    name[k] = (byte) in.read();
+                }
+                Algorithm algorithm = Algorithm.valueOf(new String(name, StandardCharsets.UTF_8));
+                TimeSlots slots = TimeSlots.forAlgorithm(problem, algorithm);
+                int[] cellStart = in.readDeltas();
+                int[] soldierIds = in.readDeltas();
+                if (cellStart.length != slots.size() * problem.getNumPosts() + 1 || cellStart[0] != 0
+                        || cellStart[cellStart.length - 1] != soldierIds.length) {
+                    throw new IOException("Schedule does not fit the problem");
+                }
+                for (int c = 1; c < cellStart.length; c++) {
+                    if (cellStart[c] < cellStart[c - 1]) {
+                        throw new IOException("Cell " + c + " starts before the one before it");
+                    }
+                }
+                for (int id : soldierIds) {
+                    if (id < 0 || id >= problem.getNumSoldiers()) {
+                        throw new IOException("Soldier " + id + " is not on the roster");
+                    }
+                }
+                schedules.add(new Schedule(problem, algorithm, slots, cellStart, soldierIds));
+            }
+            if (in.remaining() != 0) {
+                throw new IOException("Trailing bytes after the schedules");
+            }
+            return schedules;
+        } catch (RuntimeException e) {
+            throw new IOException("Bad schedules", e);
+        }
+    }
+
+    private static class VarIntOutput {
+        private byte[] bytes = new byte[1 << 16];
+        private int size;
+
+        void write(int value) {
+            if (size + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            int v = (value << 1) ^ (value >> 31);
+            while ((v & ~0x7f) != 0) {
+                bytes[size++] = (byte) ((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        void writeDeltas(int[] values) {
+            write(values.length);
+            int previous = 0;
+            for (int value : values) {
+                write(value - previous);
+                previous = value;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    private static class VarIntInput {
+        private final byte[] bytes;
+        private int position;
+
+        VarIntInput(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int read() {
+            int v = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                v |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        int remaining() {
+            return bytes.length - position;
+        }
+
+        int[] readDeltas() {
+            int length = read();
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalStateException("Bad length " + length);
+            }
+            int[] values = new int[length];
+            int previous = 0;
+            for (int i = 0; i < length; i++) {
+                previous += read();
+                values[i] = previous;
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.watchlist.scheduler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// Rules between soldiers that every slot must satisfy:
+//   must-pair:     if either soldier is on a post, the other is on the same post in that slot
+//   must-not-pair: the two soldiers are never on the same post in the same slot
+//   max-per-slot:  at most limit soldiers of a group work in any one slot
+public class ScheduleConstraints {
+    private static final int[] NONE = new int[0];
+
+    private final int[][] partners;
+    private final int[][] rivals;
+    private final int[][] groupsOf;
+    private int[][] groupMembers = new int[0][];
+    private int[] groupLimit = new int[0];
+    private boolean empty = true;
+
+    public ScheduleConstraints(int numSoldiers) {
+        partners = new int[numSoldiers][];
+        rivals = new int[numSoldiers][];
+        groupsOf = new int[numSoldiers][];
+        Arrays.fill(partners, NONE);
+        Arrays.fill(rivals, NONE);
+        Arrays.fill(groupsOf, NONE);
+    }
+
+    public void addMustPair(int a, int b) {
+        if (a == b) {
+            return;
+        }
+        partners[a] = append(partners[a], b);
+        partners[b] = append(partners[b], a);
+        empty = false;
+    }
+
+    public void addMustNotPair(int a, int b) {
+        if (a == b) {
+            return;
+        }
+        rivals[a] = append(rivals[a], b);
+        rivals[b] = append(rivals[b], a);
+        empty = false;
+    }
+
+    public void addMaxPerSlot(int[] members, int limit) {
+        int group = groupLimit.length;
+        groupMembers = Arrays.copyOf(groupMembers, group + 1);
+        groupLimit = Arrays.copyOf(groupLimit, group + 1);
+        groupMembers[group] = members.clone();
+        groupLimit[group] = Math.max(0, limit);
+        for (int member : members) {
+            groupsOf[member] = append(groupsOf[member], group);
+        }
+        empty = false;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    public int[] partnersOf(int soldier) {
+        return partners[soldier];
+    }
+
+    public int[] rivalsOf(int soldier) {
+        return rivals[soldier];
+    }
+
+    public int[] groupsOf(int soldier) {
+        return groupsOf[soldier];
+    }
+
+    public int numGroups() {
+        return groupLimit.length;
+    }
+
+    public int[] groupMembers(int group) {
+        return groupMembers[group];
+    }
+
+    public int groupLimit(int group) {
+        return groupLimit[group];
+    }
+
+    void writeCanonical(DataOutput out) throws IOException {
+        writeLists(out, partners);
+        writeLists(out, rivals);
+        writeLists(out, groupMembers);
+        writeList(out, groupLimit);
+    }
+
+    // Replaces the rules with those written by writeCanonical for a roster of the same size.
+    void readCanonical(DataInput in) throws IOException {
+        int[][] readPartners = readLists(in);
+        int[][] readRivals = readLists(in);
+        if (readPartners.length != partners.length || readRivals.length != rivals.length) {
+            throw new IOException("Rules for " + readPartners.length + " soldiers, roster has " + partners.length);
+        }
+        System.arraycopy(readPartners, 0, partners, 0, partners.length);
+        System.arraycopy(readRivals, 0, rivals, 0, rivals.length);
+        int[][] members = readLists(in);
+        int[] limits = readList(in);
+        groupMembers = new int[0][];
+        groupLimit = new int[0];
+        Arrays.fill(groupsOf, NONE);
+        for (int group = 0; group < members.length; group++) {
+            addMaxPerSlot(members[group], limits[group]);
+        }
+        empty = members.length == 0;
+        for (int s = 0; s < partners.length; s++) {
+            empty &= partners[s].length == 0 && rivals[s].length == 0;
+        }
+    }
+
+    static void writeLists(DataOutput out, int[][] lists) throws IOException {
+        out.writeInt(lists.length);
+        for (int[] list : lists) {
+            writeList(out, list);
+        }
+    }
+
+    static void writeList(DataOutput out, int[] list) throws IOException {
+        out.writeInt(list.length);
+        for (int value : list) {
+            out.writeInt(value);
+        }
+    }
+
+    static int[][] readLists(DataInput in) throws IOException {
+        int[][] lists = new int[readLength(in, 4)][];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = readList(in);
+        }
+        return lists;
+    }
+
+    static int[] readList(DataInput in) throws IOException {
+        int[] list = new int[readLength(in, 4)];
+        for (int i = 0; i < list.length; i++) {
+            list[i] = in.readInt();
+        }
+        return list;
+    }
+
+    // A count read before items of at least itemBytes each, refused when the bytes left cannot hold
+    // them, so a bad count cannot ask for a huge array.
+    static int readLength(DataInput in, int itemBytes) throws IOException {
+        int length = in.readInt();
+        long left = in instanceof InputStream ? ((InputStream) in).available() : Long.MAX_VALUE;
+        if (length < 0 || (long) length * itemBytes > left) {
+            throw new IOException("Bad length " + length);
+        }
+        return length;
+    }
+
+    // Checks one slot of a CSR assignment; ids equal to -1 are ignored.
+    public boolean isSatisfied(int[] soldierIds, int[] cellStart, int slot, int numPosts) {
+        if (empty) {
+            return true;
+        }
+        int from = cellStart[slot * numPosts];
+        int to = cellStart[(slot + 1) * numPosts];
+        int[] groupCount = new int[groupLimit.length];
+        for (int post = 0; post < numPosts; post++) {
+            int cellFrom = cellStart[slot * numPosts + post];
+            int cellTo = cellStart[slot * numPosts + post + 1];
+            for (int k = cellFrom; k < cellTo; k++) {
+                int soldier = soldierIds[k];
+                if (soldier < 0) {
+                    continue;
+                }
+                for (int partner : partners[soldier]) {
+                    if (!contains(soldierIds, cellFrom, cellTo, partner)) {
+                        return false;
+                    }
+                }
+                for (int rival : rivals[soldier]) {
+                    if (contains(soldierIds, cellFrom, cellTo, rival)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        for (int k = from; k < to; k++) {
+            if (soldierIds[k] < 0) {
+                continue;
+            }
+            for (int group : groupsOf[soldierIds[k]]) {
+                if (++groupCount[group] > groupLimit[group]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] soldierIds, int from, int to, int soldier) {
+        for (int k = from; k < to; k++) {
+            if (soldierIds[k] == soldier) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] append(int[] values, int value) {
+        for (int existing : values) {
+            if (existing == value) {
+                return values;
+            }
+        }
+        int[] grown = Arrays.copyOf(values, values.length + 1);
+        grown[values.length] = value;
+        return grown;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.watchlist.scheduler;
+
+import java.util.concurrent.CompletableFuture;
+
+// Where a schedule is generated: in this process, or on a machine the problem is sent to.
+// Cancelling the returned future gives up on the schedule.
+public interface ScheduleEngine {
+
+    default CompletableFuture<Schedule> generate(ScheduleProblem problem, Algorithm algorithm) {
+        return generate(problem, algorithm, null);
+    }
+
+    // As above; cancelling handle, when given, also stops a generation that is already running.
+    CompletableFuture<Schedule> generate(ScheduleProblem problem, Algorithm algorithm, GenerationHandle handle);
+}
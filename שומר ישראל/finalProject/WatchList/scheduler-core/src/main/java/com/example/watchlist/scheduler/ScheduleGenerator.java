@@ -0,0 +1,509 @@
+package com.example.watchlist.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+public class ScheduleGenerator {
+
+    private ScheduleGenerator() {
+    }
+
+    public static Schedule generate(ScheduleProblem problem, Algorithm algorithm) {
+        return generate(problem, algorithm, problem.getRotationOrder());
+    }
+
+    // Fills every cell with the soldiers that have rested longest, in the given order on ties.
+    // A soldier is never placed twice in one slot or before their minimum rest has passed, a cell
+    // that nobody can fill is left short.
+    // Posts that share no soldier with the rest are solved as separate components in parallel on
+    // the scheduler pool, each rotating through its own soldiers in the given order.
+    // Lists longer than the problem's window are cut into windows of whole days solved in
+    // parallel. Each window starts the rotation where the seats before it would have left it, and
+    // the seats at a window start that break a soldier's rest are handed to the least loaded
+    // rested soldiers afterwards.
+    public static Schedule generate(ScheduleProblem problem, Algorithm algorithm, int[] order) {
+        return generate(problem, algorithm, order, null);
+    }
+
+    // As above, throwing CancellationException at the next slot once handle is cancelled.
+    public static Schedule generate(ScheduleProblem problem, Algorithm algorithm, int[] order, GenerationHandle handle) {
+        TimeSlots slots = TimeSlots.forAlgorithm(problem, algorithm);
+        int[] demand = problem.demandTable(slots);
+        PostComponents components = problem.hasQualifications() ? PostComponents.of(problem) : null;
+        int[][] columns = columns(problem, components);
+        int[] bounds = windows(problem, slots);
+        int numPosts = problem.getNumPosts();
+
+        // One part per window and component, each holding only its own slots and posts.
+        List<RecursiveTask<Part>> tasks = new ArrayList<>();
+        long seatsBefore = 0;
+        for (int w = 0; w + 1 < bounds.length; w++) {
+            int from = bounds[w];
+            int to = bounds[w + 1];
+            int[] windowOrder = rotate(order, seatsBefore);
+            for (int cell = from * numPosts; cell < to * numPosts; cell++) {
+                seatsBefore += demand[cell];
+            }
+            for (int c = 0; c < columns.length; c++) {
+                int[] posts = columns[c];
+                int[] partOrder = columns.length > 1 ? orderOf(windowOrder, components, c) : windowOrder;
+                tasks.add(new RecursiveTask<Part>() {
+                    @Override
+                    protected Part compute() {
+                        return solve(problem, slots, demand, posts, partOrder, from, to, handle);
+                    }
+                });
+            }
+        }
+        List<Part> parts = tasks.size() == 1 ? Collections.singletonList(tasks.get(0).invoke()) : invoke(tasks);
+        Schedule merged = merge(problem, algorithm, slots, bounds, columns, parts);
+        if (bounds.length <= 2) {
+            return merged;
+        }
+        return ScheduleRepair.reconcile(merged, Arrays.copyOfRange(bounds, 1, bounds.length - 1));
+    }
+
+    // Lists made from one template, in date order and on the same roster, generated together.
+    // Like the windows of one long list, each list starts the rotation where the seats of the lists
+    // before it would have left it, so they are solved in parallel and still share the work as one
+    // rotation would. Team history orders the first list. Afterwards, in order, a list whose
+    // first shifts break the rest of someone who worked late in an earlier list is generated again
+    // with that rest carried in.
+    public static List<Schedule> generateSeries(List<ScheduleProblem> problems, Algorithm algorithm, LoadLedger history) {
+        if (problems.isEmpty()) {
+            return new ArrayList<>();
+        }
+        ScheduleProblem first = problems.get(0);
+        if (history != null) {
+            first.setHistory(history, first.getStartEpochMinute());
+        }
+        int[] order = first.getRotationOrder();
+        List<RecursiveTask<Schedule>> tasks = new ArrayList<>();
+        int[][] orders = new int[problems.size()][];
+        long seatsBefore = 0;
+        for (int i = 0; i < problems.size(); i++) {
+            ScheduleProblem problem = problems.get(i);
+            int[] listOrder = rotate(order, seatsBefore);
+            orders[i] = listOrder;
+            for (int seats : problem.demandTable(TimeSlots.forAlgorithm(problem, algorithm))) {
+                seatsBefore += seats;
+            }
+            tasks.add(new RecursiveTask<Schedule>() {
+                @Override
+                protected Schedule compute() {
+                    return generate(problem, algorithm, listOrder);
+                }
+            });
+        }
+        List<Schedule> schedules = invoke(tasks);
+
+        LoadLedger worked = new LoadLedger();
+        if (history != null) {
+            worked.addAll(history);
+        }
+        for (int i = 0; i < schedules.size(); i++) {
+            ScheduleProblem problem = problems.get(i);
+            long start = problem.getStartEpochMinute();
+            if (i > 0 && problem.getMinRestMinutes() > 0 && breaksRest(schedules.get(i), worked, start)) {
+                problem.setHistory(worked, start);
+                schedules.set(i, generate(problem, algorithm, orders[i]));
+            }
+            worked.addAll(LoadLedger.of(schedules.get(i), start));
+        }
+        return schedules;
+    }
+
+    private static boolean breaksRest(Schedule schedule, LoadLedger worked, long start) {
+        int minRest = schedule.getProblem().getMinRestMinutes();
+        SoldierIndex soldiers = schedule.getProblem().getSoldiers();
+        TimeSlots slots = schedule.getSlots();
+        int numPosts = schedule.getNumPosts();
+        int[] cellStart = schedule.getCellStart();
+        int[] soldierIds = schedule.getSoldierIds();
+        for (int slot = 0; slot < slots.size() && slots.getOffset(slot) < minRest; slot++) {
+            for (int k = cellStart[slot * numPosts]; k < cellStart[(slot + 1) * numPosts]; k++) {
+                long lastEnd = worked.getLastEnd(soldiers.nameOf(soldierIds[k]), start);
+                if (lastEnd != LoadLedger.NO_SHIFT && lastEnd - start + minRest > slots.getOffset(slot)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Slot boundaries of the windows, from 0 to slots.size(). Slots longer than a day can leave a
+    // window without a slot of its own; it is left out.
+    private static int[] windows(ScheduleProblem problem, TimeSlots slots) {
+        int windowDays = problem.getWindowDays();
+        if (windowDays == 0 || slots.numDays() <= windowDays) {
+            return new int[]{0, slots.size()};
+        }
+        int[] bounds = new int[(slots.numDays() + windowDays - 1) / windowDays + 1];
+        int count = 1;
+        for (int w = 1; w + 1 < bounds.length; w++) {
+            int bound = slots.firstSlotOfDay(w * windowDays);
+            if (bound > bounds[count - 1] && bound < slots.size()) {
+                bounds[count++] = bound;
+            }
+        }
+        bounds[count++] = slots.size();
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static int[] rotate(int[] order, long by) {
+        if (order.length == 0) {
+            return order;
+        }
+        int shift = (int) (by % order.length);
+        int[] rotated = new int[order.length];
+        System.arraycopy(order, shift, rotated, 0, order.length - shift);
+        System.arraycopy(order, 0, rotated, order.length - shift, shift);
+        return rotated;
+    }
+
+    // The posts of each component in increasing order, or every post when there are no components.
+    private static int[][] columns(ScheduleProblem problem, PostComponents components) {
+        int numPosts = problem.getNumPosts();
+        if (components == null || components.count() < 2) {
+            return new int[][]{identityOrder(numPosts)};
+        }
+        int[] sizes = new int[components.count()];
+        for (int j = 0; j < numPosts; j++) {
+            sizes[components.componentOfPost(j)]++;
+        }
+        int[][] columns = new int[sizes.length][];
+        for (int c = 0; c < sizes.length; c++) {
+            columns[c] = new int[sizes[c]];
+            sizes[c] = 0;
+        }
+        for (int j = 0; j < numPosts; j++) {
+            int c = components.componentOfPost(j);
+            columns[c][sizes[c]++] = j;
+        }
+        return columns;
+    }
+
+    // The soldiers of one component, in the given order.
+    private static int[] orderOf(int[] order, PostComponents components, int component) {
+        int[] componentOrder = new int[order.length];
+        int size = 0;
+        for (int soldier : order) {
+            if (components.componentOfSoldier(soldier) == component) {
+                componentOrder[size++] = soldier;
+            }
+        }
+        return Arrays.copyOf(componentOrder, size);
+    }
+
+    private static <T> List<T> invoke(List<RecursiveTask<T>> tasks) {
+        if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            SchedulerPool.get().invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+        List<T> results = new ArrayList<>();
+        for (RecursiveTask<T> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    // The cells of some posts over a run of slots, laid out like a schedule's cells.
+    private static final class Part {
+        final int[] cellStart;
+        final int[] soldierIds;
+
+        Part(int[] cellStart, int[] soldierIds) {
+            this.cellStart = cellStart;
+            this.soldierIds = soldierIds;
+        }
+    }
+
+    // Every cell is taken from the part of its window and component. Parts are in window order,
+    // and by component within a window.
+    private static Schedule merge(ScheduleProblem problem, Algorithm algorithm, TimeSlots slots, int[] bounds, int[][] columns, List<Part> parts) {
+        if (parts.size() == 1) {
+            return new Schedule(problem, algorithm, slots, parts.get(0).cellStart, parts.get(0).soldierIds);
+        }
+        int numPosts = problem.getNumPosts();
+        int[] componentOf = new int[numPosts];
+        int[] columnOf = new int[numPosts];
+        for (int c = 0; c < columns.length; c++) {
+            for (int k = 0; k < columns[c].length; k++) {
+                componentOf[columns[c][k]] = c;
+                columnOf[columns[c][k]] = k;
+            }
+        }
+        int total = 0;
+        for (Part part : parts) {
+            total += part.soldierIds.length;
+        }
+        int[] cellStart = new int[slots.size() * numPosts + 1];
+        int[] soldierIds = new int[total];
+        int k = 0;
+        for (int w = 0; w + 1 < bounds.length; w++) {
+            for (int slot = bounds[w]; slot < bounds[w + 1]; slot++) {
+                for (int j = 0; j < numPosts; j++) {
+                    int c = componentOf[j];
+                    Part part = parts.get(w * columns.length + c);
+                    int cell = (slot - bounds[w]) * columns[c].length + columnOf[j];
+                    int from = part.cellStart[cell];
+                    int to = part.cellStart[cell + 1];
+                    System.arraycopy(part.soldierIds, from, soldierIds, k, to - from);
+                    k += to - from;
+                    cellStart[slot * numPosts + j + 1] = k;
+                }
+            }
+        }
+        return new Schedule(problem, algorithm, slots, cellStart, soldierIds);
+    }
+
+    // Solves posts over slots [fromSlot, toSlot) into a part whose cell (i, j) is slot fromSlot + i
+    // of posts[j].
+    private static Part solve(ScheduleProblem problem, TimeSlots slots, int[] demand, int[] posts, int[] order, int fromSlot, int toSlot, GenerationHandle handle) {
+        int numSlots = toSlot - fromSlot;
+        int numColumns = posts.length;
+        int minRest = problem.getMinRestMinutes();
+        int[] partDemand = partDemand(demand, problem.getNumPosts(), posts, fromSlot, toSlot);
+
+        int capacity = 0;
+        if (order.length > 0) {
+            for (int seats : partDemand) {
+                capacity += seats;
+            }
+        }
+
+        AvailabilityQueue queue = new AvailabilityQueue(problem.getNumSoldiers(), order, problem.carriedRest());
+        int[] cellStart = new int[numSlots * numColumns + 1];
+        int[] soldierIds = new int[capacity];
+        int total = 0;
+        boolean constrained = !problem.getConstraints().isEmpty();
+        boolean matched = constrained || problem.hasQualifications();
+        UnavailabilityIndex unavailability = problem.getUnavailability();
+        // Slots with the same demand row share a seat layout, so they share a matcher and a solver.
+        int[] layoutOf = matched ? layouts(partDemand, numSlots, numColumns) : new int[0];
+        int numLayouts = 0;
+        for (int layout : layoutOf) {
+            numLayouts = Math.max(numLayouts, layout + 1);
+        }
+        SlotMatcher[] matchers = new SlotMatcher[numLayouts];
+        ConstrainedSlotSolver[] solvers = new ConstrainedSlotSolver[numLayouts];
+        for (int i = 0; i < numSlots; i++) {
+            if (handle != null) {
+                handle.throwIfCancelled();
+            }
+            int start = slots.getOffset(fromSlot + i);
+            int end = start + Math.max(1, slots.getLength(fromSlot + i));
+            int availableAt = end + minRest;
+            if (matched) {
+                int layout = layoutOf[i];
+                if (matchers[layout] == null) {
+                    matchers[layout] = new SlotMatcher(problem, posts, partDemand, i * numColumns);
+                    solvers[layout] = constrained ? new ConstrainedSlotSolver(problem, posts, partDemand, i * numColumns) : null;
+                }
+                total = fillSlot(problem, numColumns, queue, matchers[layout], solvers[layout], i, start, end, availableAt, cellStart, soldierIds, total);
+                continue;
+            }
+            for (int j = 0; j < numColumns; j++) {
+                cellStart[i * numColumns + j] = total;
+                for (int d = 0; d < partDemand[i * numColumns + j]; d++) {
+                    int soldier = pollFree(queue, unavailability, start, end);
+                    if (soldier < 0) {
+                        break;
+                    }
+                    soldierIds[total++] = soldier;
+                    queue.offer(soldier, availableAt);
+                }
+            }
+        }
+        cellStart[numSlots * numColumns] = total;
+        if (total < capacity) {
+            soldierIds = Arrays.copyOf(soldierIds, total);
+        }
+        return new Part(cellStart, soldierIds);
+    }
+
+    // The demand of posts over slots [fromSlot, toSlot), in the part's layout. The whole table
+    // is its own part.
+    private static int[] partDemand(int[] demand, int numPosts, int[] posts, int fromSlot, int toSlot) {
+        if (posts.length == numPosts && fromSlot == 0 && toSlot * numPosts == demand.length) {
+            return demand;
+        }
+        int[] part = new int[(toSlot - fromSlot) * posts.length];
+        for (int i = 0; i < toSlot - fromSlot; i++) {
+            for (int j = 0; j < posts.length; j++) {
+                part[i * posts.length + j] = demand[(fromSlot + i) * numPosts + posts[j]];
+            }
+        }
+        return part;
+    }
+
+    // Offers rested soldiers to the matcher in rotation order until every seat is taken or nobody
+    // is left. Each round offers twice as many as the last, so a seat nobody qualifies for costs a
+    // logarithmic number of matching passes rather than one per soldier. Soldiers left unmatched
+    // go back into the queue with their place in the rotation unchanged.
+    // With pairing rules the matching only bounds how many seats can be filled. One more batch is
+    // offered so the solver has alternatives to soldiers a rule keeps out, then the solver decides.
+    private static int fillSlot(ScheduleProblem problem, int numPosts, AvailabilityQueue queue, SlotMatcher matcher, ConstrainedSlotSolver solver, int slot, int start, int end, int availableAt, int[] cellStart, int[] soldierIds, int total) {
+        matcher.reset();
+        int[] skipped = new int[16];
+        int numSkipped = 0;
+        int batch = matcher.unmatchedSeats();
+        boolean exhausted = false;
+        while (matcher.unmatchedSeats() > 0 && !exhausted) {
+            int offered = 0;
+            while (offered < batch) {
+                int soldier = pollFree(queue, problem.getUnavailability(), start, end);
+                if (soldier < 0) {
+                    exhausted = true;
+                    break;
+                }
+                if (matcher.offer(soldier, problem.getSoldierQualifications(soldier))) {
+                    offered++;
+                } else {
+                    if (numSkipped == skipped.length) {
+                        skipped = Arrays.copyOf(skipped, numSkipped * 2);
+                    }
+                    skipped[numSkipped++] = soldier;
+                }
+            }
+            matcher.match();
+            batch *= 2;
+        }
+
+        int upperBound = matcher.getNumSeats() - matcher.unmatchedSeats();
+        int[] solution = null;
+        boolean[] placed = null;
+        if (solver != null) {
+            for (int extra = 0; extra < matcher.getNumSeats() && !exhausted; ) {
+                int soldier = pollFree(queue, problem.getUnavailability(), start, end);
+                if (soldier < 0) {
+                    exhausted = true;
+                } else if (matcher.offer(soldier, problem.getSoldierQualifications(soldier))) {
+                    extra++;
+                } else {
+                    if (numSkipped == skipped.length) {
+                        skipped = Arrays.copyOf(skipped, numSkipped * 2);
+                    }
+                    skipped[numSkipped++] = soldier;
+                }
+            }
+            int[] candidates = new int[matcher.numCandidates()];
+            for (int c = 0; c < candidates.length; c++) {
+                candidates[c] = matcher.candidate(c);
+            }
+            solution = solver.solve(candidates, candidates.length, upperBound);
+            placed = new boolean[candidates.length];
+        }
+
+        int seat = 0;
+        for (int j = 0; j < numPosts; j++) {
+            cellStart[slot * numPosts + j] = total;
+            while (seat < matcher.getNumSeats() && matcher.seatPost(seat) == j) {
+                int soldier;
+                if (solution != null) {
+                    int c = solution[seat];
+                    soldier = c >= 0 ? matcher.candidate(c) : -1;
+                    if (c >= 0) {
+                        placed[c] = true;
+                    }
+                } else {
+                    soldier = matcher.soldierAt(seat);
+                }
+                seat++;
+                if (soldier >= 0) {
+                    soldierIds[total++] = soldier;
+                }
+            }
+        }
+        for (int c = 0; c < matcher.numCandidates(); c++) {
+            if (placed != null ? placed[c] : matcher.isMatched(c)) {
+                queue.offer(matcher.candidate(c), availableAt);
+            } else {
+                queue.restore(matcher.candidate(c));
+            }
+        }
+        for (int k = 0; k < numSkipped; k++) {
+            queue.restore(skipped[k]);
+        }
+        return total;
+    }
+
+    // Next soldier in rotation who is rested and not unavailable during [start, end). Anyone who is
+    // unavailable is pushed back to the end of their interval, so each is skipped once per interval.
+    private static int pollFree(AvailabilityQueue queue, UnavailabilityIndex unavailability, int start, int end) {
+        while (true) {
+            int soldier = queue.poll(start);
+            if (soldier < 0 || unavailability.isEmpty()) {
+                return soldier;
+            }
+            int blockedUntil = unavailability.blockedUntil(soldier, start, end);
+            if (blockedUntil < 0) {
+                return soldier;
+            }
+            queue.defer(soldier, blockedUntil);
+        }
+    }
+
+    // Numbers the distinct demand rows in order of first appearance.
+    private static int[] layouts(int[] demand, int numSlots, int numPosts) {
+        int[] layoutOf = new int[numSlots];
+        int[] firstSlot = new int[numSlots];
+        Map<Integer, List<Integer>> byHash = new HashMap<>();
+        int numLayouts = 0;
+        for (int i = 0; i < numSlots; i++) {
+            int hash = 1;
+            for (int j = 0; j < numPosts; j++) {
+                hash = 31 * hash + demand[i * numPosts + j];
+            }
+            List<Integer> bucket = byHash.get(hash);
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                byHash.put(hash, bucket);
+            }
+            int layout = -1;
+            for (int candidate : bucket) {
+                if (sameRow(demand, firstSlot[candidate] * numPosts, i * numPosts, numPosts)) {
+                    layout = candidate;
+                    break;
+                }
+            }
+            if (layout < 0) {
+                layout = numLayouts++;
+                firstSlot[layout] = i;
+                bucket.add(layout);
+            }
+            layoutOf[i] = layout;
+        }
+        return layoutOf;
+    }
+
+    private static boolean sameRow(int[] demand, int a, int b, int numPosts) {
+        for (int j = 0; j < numPosts; j++) {
+            if (demand[a + j] != demand[b + j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int[] identityOrder(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+}
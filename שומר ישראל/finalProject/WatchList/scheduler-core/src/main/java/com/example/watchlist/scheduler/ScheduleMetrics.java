@@ -0,0 +1,201 @@
+package com.example.watchlist.scheduler;
+
+import java.util.Arrays;
+
+// Per-soldier quality figures of a schedule, built in linear time from the assignment matrix:
+// one sweep in slot order for the time figures and one in post order for the rotation entropy.
+// A streak is a run of back-to-back shifts; the rest gap is the shortest break between two runs.
+public class ScheduleMetrics {
+    public static final int NO_GAP = -1;
+    public static final int NO_SHIFT = -1;
+
+    private final long[] totalMinutes;
+    private final long[] nightMinutes;
+    private final int[] longestStreak;
+    private final int[] minRestGap;
+    private final int[] lastShiftEnd;
+    private final double[] rotationEntropy;
+    private final double score;
+    private final int maxStreak;
+    private final int minGap;
+    private final double meanEntropy;
+
+    private ScheduleMetrics(long[] totalMinutes, long[] nightMinutes, int[] longestStreak, int[] minRestGap, int[] lastShiftEnd, double[] rotationEntropy, int[] numShifts) {
+        this.totalMinutes = totalMinutes;
+        this.nightMinutes = nightMinutes;
+        this.longestStreak = longestStreak;
+        this.minRestGap = minRestGap;
+        this.lastShiftEnd = lastShiftEnd;
+        this.rotationEntropy = rotationEntropy;
+        this.score = standardDeviation(totalMinutes) + standardDeviation(nightMinutes);
+        int streak = 0;
+        int gap = NO_GAP;
+        double entropy = 0;
+        int working = 0;
+        for (int s = 0; s < totalMinutes.length; s++) {
+            streak = Math.max(streak, longestStreak[s]);
+            if (minRestGap[s] != NO_GAP && (gap == NO_GAP || minRestGap[s] < gap)) {
+                gap = minRestGap[s];
+            }
+            if (numShifts[s] > 0) {
+                entropy += rotationEntropy[s];
+                working++;
+            }
+        }
+        this.maxStreak = streak;
+        this.minGap = gap;
+        this.meanEntropy = working == 0 ? 0 : entropy / working;
+    }
+
+    public static ScheduleMetrics of(Schedule schedule) {
+        int numSoldiers = schedule.getProblem().getNumSoldiers();
+        int numPosts = schedule.getNumPosts();
+        TimeSlots slots = schedule.getSlots();
+        int[] cellStart = schedule.getCellStart();
+        int[] soldierIds = schedule.getSoldierIds();
+
+        long[] total = new long[numSoldiers];
+        long[] night = new long[numSoldiers];
+        int[] longest = new int[numSoldiers];
+        int[] minGap = new int[numSoldiers];
+        int[] streak = new int[numSoldiers];
+        int[] lastEnd = new int[numSoldiers];
+        int[] numShifts = new int[numSoldiers];
+        Arrays.fill(minGap, NO_GAP);
+        Arrays.fill(lastEnd, NO_SHIFT);
+        for (int i = 0; i < slots.size(); i++) {
+            int start = slots.getOffset(i);
+            int length = slots.getLength(i);
+            boolean day = slots.isDay(i);
+            for (int k = cellStart[i * numPosts]; k < cellStart[(i + 1) * numPosts]; k++) {
+                int s = soldierIds[k];
+                total[s] += length;
+                if (!day) {
+                    night[s] += length;
+                }
+                if (numShifts[s] > 0 && start <= lastEnd[s]) {
+                    streak[s] += length;
+                } else {
+                    if (numShifts[s] > 0) {
+                        int gap = start - lastEnd[s];
+                        minGap[s] = minGap[s] == NO_GAP ? gap : Math.min(minGap[s], gap);
+                    }
+                    streak[s] = length;
+                }
+                longest[s] = Math.max(longest[s], streak[s]);
+                lastEnd[s] = start + length;
+                numShifts[s]++;
+            }
+        }
+
+        // Shannon entropy of each soldier's shifts over the posts, scaled to [0, 1] by log(numPosts).
+        // Counts for one post at a time, so memory stays per soldier rather than per soldier and post.
+        double[] entropy = new double[numSoldiers];
+        if (numPosts > 1) {
+            double[] countLogCount = new double[numSoldiers];
+            int[] count = new int[numSoldiers];
+            int[] touched = new int[numSoldiers];
+            for (int j = 0; j < numPosts; j++) {
+                int numTouched = 0;
+                for (int i = 0; i < slots.size(); i++) {
+                    int c = i * numPosts + j;
+                    for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                        int s = soldierIds[k];
+                        if (count[s]++ == 0) {
+                            touched[numTouched++] = s;
+                        }
+                    }
+                }
+                for (int t = 0; t < numTouched; t++) {
+                    int s = touched[t];
+                    countLogCount[s] += count[s] * Math.log(count[s]);
+                    count[s] = 0;
+                }
+            }
+            double maxEntropy = Math.log(numPosts);
+            for (int s = 0; s < numSoldiers; s++) {
+                if (numShifts[s] > 0) {
+                    entropy[s] = (Math.log(numShifts[s]) - countLogCount[s] / numShifts[s]) / maxEntropy;
+                }
+            }
+        }
+        return new ScheduleMetrics(total, night, longest, minGap, lastEnd, entropy, numShifts);
+    }
+
+    // Standard deviation of total minutes plus standard deviation of night minutes per soldier, lower is fairer.
+    public double getScore() {
+        return score;
+    }
+
+    public long getTotalMinutes(int soldier) {
+        return totalMinutes[soldier];
+    }
+
+    public long getNightMinutes(int soldier) {
+        return nightMinutes[soldier];
+    }
+
+    public int getLongestStreakMinutes(int soldier) {
+        return longestStreak[soldier];
+    }
+
+    // NO_GAP when the soldier never works twice with a break between.
+    public int getMinRestGapMinutes(int soldier) {
+        return minRestGap[soldier];
+    }
+
+    // Minutes from the list start to the end of the soldier's last shift, NO_SHIFT if they have none.
+    public int getLastShiftEndMinutes(int soldier) {
+        return lastShiftEnd[soldier];
+    }
+
+    public double getRotationEntropy(int soldier) {
+        return rotationEntropy[soldier];
+    }
+
+    public int getMaxStreakMinutes() {
+        return maxStreak;
+    }
+
+    public int getMinRestGapMinutes() {
+        return minGap;
+    }
+
+    // Mean over soldiers with at least one shift; 1 means everyone spreads evenly over the posts.
+    public double getMeanRotationEntropy() {
+        return meanEntropy;
+    }
+
+    public long getMaxTotalMinutes() {
+        long max = 0;
+        for (long minutes : totalMinutes) {
+            max = Math.max(max, minutes);
+        }
+        return max;
+    }
+
+    public long getMinTotalMinutes() {
+        if (totalMinutes.length == 0) {
+            return 0;
+        }
+        long min = Long.MAX_VALUE;
+        for (long minutes : totalMinutes) {
+            min = Math.min(min, minutes);
+        }
+        return min;
+    }
+
+    private static double standardDeviation(long[] values) {
+        if (values.length == 0) {
+            return 0;
+        }
+        double sum = 0;
+        double sumSquares = 0;
+        for (long value : values) {
+            sum += value;
+            sumSquares += (double) value * value;
+        }
+        double mean = sum / values.length;
+        return Math.sqrt(Math.max(0, sumSquares / values.length - mean * mean));
+    }
+}
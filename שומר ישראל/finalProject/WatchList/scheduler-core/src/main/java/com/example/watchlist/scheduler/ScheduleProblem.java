@@ -0,0 +1,372 @@
+package com.example.watchlist.scheduler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class ScheduleProblem {
+    private final SoldierIndex soldiers;
+    private final String[] posts;
+    private final int[] dayDemand;
+    private final int[] nightDemand;
+    private final int startMinuteOfDay;
+    private final int durationMinutes;
+    private final int dayStartMinuteOfDay;
+    private final int dayEndMinuteOfDay;
+    private int minRestMinutes;
+    private LocalDate startDate;
+    private int windowDays;
+    private int currentSlots;
+    private final long[] soldierQualifications;
+    private final long[] postQualifications;
+    private UnavailabilityIndex unavailability = UnavailabilityIndex.empty();
+    private final ScheduleConstraints constraints;
+    private final DemandProfile demandProfile = new DemandProfile();
+    // From the team's history: who starts the rotation, and when each soldier's last shift before
+    // the list ended, in minutes from the list start. Null without history.
+    private int[] rotationOrder;
+    private int[] carriedShiftEnd;
+
+    public ScheduleProblem(List<String> soldiers, List<String> posts, Map<String, Integer> dayTimeSoldiers, Map<String, Integer> nightTimeSoldiers, int startHour, int startMinute, int durationMinutes, int dayStartHour, int dayStartMinute, int dayEndHour, int dayEndMinute) {
+        this.soldiers = new SoldierIndex(soldiers);
+        this.posts = posts.toArray(new String[0]);
+        this.dayDemand = new int[this.posts.length];
+        this.nightDemand = new int[this.posts.length];
+        for (int j = 0; j < this.posts.length; j++) {
+            dayDemand[j] = dayTimeSoldiers.get(this.posts[j]);
+            nightDemand[j] = nightTimeSoldiers.get(this.posts[j]);
+        }
+        this.startMinuteOfDay = startHour * 60 + startMinute;
+        this.durationMinutes = durationMinutes;
+        this.dayStartMinuteOfDay = dayStartHour * 60 + dayStartMinute;
+        this.dayEndMinuteOfDay = dayEndHour * 60 + dayEndMinute;
+        this.soldierQualifications = new long[this.soldiers.size()];
+        this.postQualifications = new long[this.posts.length];
+        this.constraints = new ScheduleConstraints(this.soldiers.size());
+    }
+
+    public SoldierIndex getSoldiers() {
+        return soldiers;
+    }
+
+    public int getNumSoldiers() {
+        return soldiers.size();
+    }
+
+    public String getPost(int post) {
+        return posts[post];
+    }
+
+    public int getNumPosts() {
+        return posts.length;
+    }
+
+    public int getDayDemand(int post) {
+        return dayDemand[post];
+    }
+
+    public int getNightDemand(int post) {
+        return nightDemand[post];
+    }
+
+    public DemandProfile getDemandProfile() {
+        return demandProfile;
+    }
+
+    // Soldiers needed per cell, demand[slot * numPosts + post].
+    public int[] demandTable(TimeSlots slots) {
+        return demandProfile.compile(this, slots);
+    }
+
+    public int getStartMinuteOfDay() {
+        return startMinuteOfDay;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    // Calendar day of the list start, or null when only the time of day is known.
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    // Epoch minute of the list start in the device's time zone, taking today when the date is unknown.
+    public long getStartEpochMinute() {
+        LocalDate date = startDate != null ? startDate : LocalDate.now();
+        return date.atStartOfDay(ZoneId.systemDefault()).toEpochSecond() / 60 + startMinuteOfDay;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    // Days per time window for long lists, 0 to solve the whole list in one pass.
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    public void setWindowDays(int windowDays) {
+        this.windowDays = Math.max(0, windowDays);
+    }
+
+    // Slots the current algorithm splits the list into: the roster size, unless the list was built
+    // with another roster and its stored slots are kept.
+    public int getCurrentSlots() {
+        return currentSlots > 0 ? currentSlots : soldiers.size();
+    }
+
+    public void setCurrentSlots(int currentSlots) {
+        this.currentSlots = Math.max(0, currentSlots);
+    }
+
+    // Soldiers who worked least start the rotation, the busiest come last, ties in roster order.
+    // A shift that ended shortly before the list start still counts toward the minimum rest; shifts
+    // ending after it, on lists dated later, do not.
+    public void setHistory(LoadLedger history, long listStart) {
+        int n = soldiers.size();
+        Integer[] byLoad = new Integer[n];
+        long[] minutes = new long[n];
+        long[] nightMinutes = new long[n];
+        carriedShiftEnd = new int[n];
+        for (int s = 0; s < n; s++) {
+            byLoad[s] = s;
+            String name = soldiers.nameOf(s);
+            minutes[s] = history.getMinutes(name);
+            nightMinutes[s] = history.getNightMinutes(name);
+            long lastEnd = history.getLastEnd(name, listStart);
+            carriedShiftEnd[s] = lastEnd == LoadLedger.NO_SHIFT ? Integer.MIN_VALUE
+                    : (int) Math.max(Integer.MIN_VALUE + 1, lastEnd - listStart);
+        }
+        Arrays.sort(byLoad, (a, b) -> minutes[a] != minutes[b]
+                ? Long.compare(minutes[a], minutes[b])
+                : Long.compare(nightMinutes[a], nightMinutes[b]));
+        rotationOrder = new int[n];
+        for (int i = 0; i < n; i++) {
+            rotationOrder[i] = byLoad[i];
+        }
+    }
+
+    public int[] getRotationOrder() {
+        return rotationOrder != null ? rotationOrder.clone() : ScheduleGenerator.identityOrder(soldiers.size());
+    }
+
+    // Minute from the list start at which each soldier has rested since their last shift before
+    // the list, or null when nobody carries rest into the list.
+    int[] carriedRest() {
+        if (carriedShiftEnd == null || minRestMinutes == 0) {
+            return null;
+        }
+        int[] restedAt = new int[carriedShiftEnd.length];
+        boolean any = false;
+        for (int s = 0; s < restedAt.length; s++) {
+            if (carriedShiftEnd[s] != Integer.MIN_VALUE && carriedShiftEnd[s] + minRestMinutes > 0) {
+                restedAt[s] = carriedShiftEnd[s] + minRestMinutes;
+                any = true;
+            }
+        }
+        return any ? restedAt : null;
+    }
+
+    public int getMinRestMinutes() {
+        return minRestMinutes;
+    }
+
+    public void setMinRestMinutes(int minRestMinutes) {
+        this.minRestMinutes = Math.max(0, minRestMinutes);
+    }
+
+    public long getSoldierQualifications(int soldier) {
+        return soldierQualifications[soldier];
+    }
+
+    // Bit i of a mask is qualification i. Soldiers missing from the map hold none.
+    public void setSoldierQualifications(Map<String, Long> qualifications) {
+        for (int s = 0; s < soldierQualifications.length; s++) {
+            Long mask = qualifications.get(soldiers.nameOf(s));
+            soldierQualifications[s] = mask != null ? mask : 0L;
+        }
+    }
+
+    public long getPostQualifications(int post) {
+        return postQualifications[post];
+    }
+
+    public void setPostQualifications(int post, long required) {
+        postQualifications[post] = required;
+    }
+
+    public boolean hasQualifications() {
+        for (long required : postQualifications) {
+            if (required != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isQualified(int soldier, int post) {
+        return (postQualifications[post] & ~soldierQualifications[soldier]) == 0;
+    }
+
+    public UnavailabilityIndex getUnavailability() {
+        return unavailability;
+    }
+
+    // Intervals are {from, to} in minutes from the list start. Names not on the roster are ignored.
+    public void setUnavailability(Map<String, List<int[]>> intervals) {
+        unavailability = UnavailabilityIndex.empty();
+        addUnavailability(intervals);
+    }
+
+    // Adds to the intervals already set, in the same form.
+    public void addUnavailability(Map<String, List<int[]>> intervals) {
+        int count = 0;
+        for (List<int[]> list : intervals.values()) {
+            count += list.size();
+        }
+        int[] ids = new int[count];
+        int[] froms = new int[count];
+        int[] tos = new int[count];
+        int k = 0;
+        for (Map.Entry<String, List<int[]>> entry : intervals.entrySet()) {
+            int id = soldiers.idOf(entry.getKey());
+            if (id < 0) {
+                continue;
+            }
+            for (int[] interval : entry.getValue()) {
+                ids[k] = id;
+                froms[k] = interval[0];
+                tos[k] = interval[1];
+                k++;
+            }
+        }
+        unavailability = unavailability.with(soldiers.size(), Arrays.copyOf(ids, k), Arrays.copyOf(froms, k), Arrays.copyOf(tos, k));
+    }
+
+    public ScheduleConstraints getConstraints() {
+        return constraints;
+    }
+
+    // The rules below ignore soldiers who are not on the roster.
+    public void addMustPair(String a, String b) {
+        int idA = soldiers.idOf(a);
+        int idB = soldiers.idOf(b);
+        if (idA >= 0 && idB >= 0) {
+            constraints.addMustPair(idA, idB);
+        }
+    }
+
+    public void addMustNotPair(String a, String b) {
+        int idA = soldiers.idOf(a);
+        int idB = soldiers.idOf(b);
+        if (idA >= 0 && idB >= 0) {
+            constraints.addMustNotPair(idA, idB);
+        }
+    }
+
+    public void addMaxPerSlot(List<String> group, int limit) {
+        int[] members = new int[group.size()];
+        int count = 0;
+        for (String name : group) {
+            int id = soldiers.idOf(name);
+            if (id >= 0) {
+                members[count++] = id;
+            }
+        }
+        constraints.addMaxPerSlot(Arrays.copyOf(members, count), limit);
+    }
+
+    // Every input the generator reads, in a fixed order, so equal problems write equal bytes.
+    void writeCanonical(DataOutput out) throws IOException {
+        out.writeInt(soldiers.size());
+        for (String name : soldiers.getNames()) {
+            out.writeUTF(name);
+        }
+        out.writeInt(posts.length);
+        for (int j = 0; j < posts.length; j++) {
+            out.writeUTF(posts[j]);
+            out.writeInt(dayDemand[j]);
+            out.writeInt(nightDemand[j]);
+            out.writeLong(postQualifications[j]);
+        }
+        out.writeInt(startMinuteOfDay);
+        out.writeInt(durationMinutes);
+        out.writeInt(dayStartMinuteOfDay);
+        out.writeInt(dayEndMinuteOfDay);
+        out.writeInt(minRestMinutes);
+        out.writeLong(startDate != null ? startDate.toEpochDay() : Long.MIN_VALUE);
+        out.writeInt(windowDays);
+        out.writeInt(currentSlots);
+        for (long held : soldierQualifications) {
+            out.writeLong(held);
+        }
+        unavailability.writeCanonical(out);
+        constraints.writeCanonical(out);
+        demandProfile.writeCanonical(out);
+        ScheduleConstraints.writeList(out, getRotationOrder());
+        ScheduleConstraints.writeList(out, carriedShiftEnd != null ? carriedShiftEnd : new int[0]);
+    }
+
+    // The problem written by writeCanonical, with every input as it was.
+    static ScheduleProblem readCanonical(DataInput in) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (int s = ScheduleConstraints.readLength(in, 2); s > 0; s--) {
+            names.add(in.readUTF());
+        }
+        int numPosts = ScheduleConstraints.readLength(in, 18);
+        List<String> posts = new ArrayList<>();
+        Map<String, Integer> dayDemand = new HashMap<>();
+        Map<String, Integer> nightDemand = new HashMap<>();
+        long[] required = new long[numPosts];
+        for (int j = 0; j < numPosts; j++) {
+            String post = in.readUTF();
+            posts.add(post);
+            dayDemand.put(post, in.readInt());
+            nightDemand.put(post, in.readInt());
+            required[j] = in.readLong();
+        }
+        int start = in.readInt();
+        int duration = in.readInt();
+        int dayStart = in.readInt();
+        int dayEnd = in.readInt();
+        ScheduleProblem problem = new ScheduleProblem(names, posts, dayDemand, nightDemand, start / 60, start % 60, duration, dayStart / 60, dayStart % 60, dayEnd / 60, dayEnd % 60);
+        if (problem.getNumSoldiers() != names.size() || new HashSet<>(posts).size() != numPosts) {
+            throw new IOException("Duplicate names");
+        }
+        System.arraycopy(required, 0, problem.postQualifications, 0, numPosts);
+        problem.minRestMinutes = in.readInt();
+        long startDay = in.readLong();
+        problem.startDate = startDay != Long.MIN_VALUE ? LocalDate.ofEpochDay(startDay) : null;
+        problem.windowDays = in.readInt();
+        problem.currentSlots = in.readInt();
+        if (problem.currentSlots < 0 || problem.currentSlots > Math.max(duration, 0)) {
+            throw new IOException("Bad current slots " + problem.currentSlots);
+        }
+        for (int s = 0; s < names.size(); s++) {
+            problem.soldierQualifications[s] = in.readLong();
+        }
+        problem.unavailability = UnavailabilityIndex.readCanonical(in);
+        problem.constraints.readCanonical(in);
+        problem.demandProfile.readCanonical(in);
+        problem.rotationOrder = ScheduleConstraints.readList(in);
+        int[] carried = ScheduleConstraints.readList(in);
+        problem.carriedShiftEnd = carried.length > 0 ? carried : null;
+        if (problem.rotationOrder.length != names.size() || (problem.carriedShiftEnd != null && carried.length != names.size())) {
+            throw new IOException("History does not match the roster");
+        }
+        return problem;
+    }
+
+    public boolean isDay(int minuteOfDay) {
+        return minuteOfDay >= dayStartMinuteOfDay && minuteOfDay <= dayEndMinuteOfDay;
+    }
+}
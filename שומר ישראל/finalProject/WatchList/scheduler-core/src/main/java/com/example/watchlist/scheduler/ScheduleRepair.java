@@ -0,0 +1,259 @@
+package com.example.watchlist.scheduler;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeSet;
+
+// Patches a schedule after the roster changed instead of regenerating it. Only seats held by
+// members who left are reassigned; everyone else keeps their shifts. Replacements are the least
+// loaded soldiers who are free, rested, qualified, available and keep the slot's rules satisfied,
+// so newly added members, who start with no shifts, are picked first.
+// The current algorithm splits the list evenly among the roster it was built with; the problem's
+// current slots keep that split when the roster changes, so its stored rows still fit.
+public class ScheduleRepair {
+    private final Schedule schedule;
+    private final int[] changedSlots;
+    private final int unfilled;
+
+    private ScheduleRepair(Schedule schedule, int[] changedSlots, int unfilled) {
+        this.schedule = schedule;
+        this.changedSlots = changedSlots;
+        this.unfilled = unfilled;
+    }
+
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    // Slots whose assignment changed, in increasing order.
+    public int[] getChangedSlots() {
+        return changedSlots;
+    }
+
+    // Vacated seats nobody could take; those cells are left short.
+    public int getUnfilled() {
+        return unfilled;
+    }
+
+    public static ScheduleRepair repair(Schedule schedule, BitSet removed) {
+        int[] ids = schedule.getSoldierIds().clone();
+        for (int k = 0; k < ids.length; k++) {
+            if (removed.get(ids[k])) {
+                ids[k] = -1;
+            }
+        }
+        return fill(schedule.getProblem(), schedule.getAlgorithm(), schedule.getSlots(), schedule.getCellStart(), ids, removed);
+    }
+
+    // Rows are {label, cell text per post} as stored. Names that are no longer on the
+    // problem's roster are the vacated seats.
+    public static ScheduleRepair repair(ScheduleProblem problem, Algorithm algorithm, List<String[]> rows) {
+        TimeSlots slots = TimeSlots.forAlgorithm(problem, algorithm);
+        if (rows.size() != slots.size()) {
+            throw new IllegalArgumentException("Expected " + slots.size() + " rows but got " + rows.size());
+        }
+        int numPosts = problem.getNumPosts();
+        SoldierIndex index = problem.getSoldiers();
+        int[] cellStart = new int[slots.size() * numPosts + 1];
+        int[] ids = new int[16];
+        int total = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            String[] row = rows.get(i);
+            for (int j = 0; j < numPosts; j++) {
+                String text = j + 1 < row.length ? row[j + 1] : null;
+                if (text != null && !text.isEmpty()) {
+                    for (String name : text.split(", ")) {
+                        if (total == ids.length) {
+                            ids = Arrays.copyOf(ids, total * 2);
+                        }
+                        ids[total++] = index.idOf(name);
+                    }
+                }
+                cellStart[i * numPosts + j + 1] = total;
+            }
+        }
+        return fill(problem, algorithm, slots, cellStart, Arrays.copyOf(ids, total), new BitSet());
+    }
+
+    // Windows of a long list are solved apart, so a soldier who ends one window may open the next
+    // without rest. Those seats after each boundary slot are refilled like vacated ones.
+    static Schedule reconcile(Schedule schedule, int[] boundaries) {
+        int minRest = schedule.getProblem().getMinRestMinutes();
+        if (minRest == 0 || boundaries.length == 0) {
+            return schedule;
+        }
+        TimeSlots slots = schedule.getSlots();
+        int numPosts = schedule.getProblem().getNumPosts();
+        int[] cellStart = schedule.getCellStart();
+        int[] ids = schedule.getSoldierIds().clone();
+        int longest = 0;
+        for (int slot = 0; slot < slots.size(); slot++) {
+            longest = Math.max(longest, slots.getLength(slot));
+        }
+        int[] lastEnd = new int[schedule.getProblem().getNumSoldiers()];
+        boolean broken = false;
+        for (int boundary : boundaries) {
+            int boundaryStart = slots.getOffset(boundary);
+            Arrays.fill(lastEnd, Integer.MIN_VALUE);
+            int latest = Integer.MIN_VALUE;
+            for (int slot = boundary - 1; slot >= 0 && slots.getOffset(slot) + longest + minRest > boundaryStart; slot--) {
+                int end = slots.getOffset(slot) + slots.getLength(slot);
+                for (int k = cellStart[slot * numPosts]; k < cellStart[(slot + 1) * numPosts]; k++) {
+                    if (ids[k] >= 0) {
+                        lastEnd[ids[k]] = Math.max(lastEnd[ids[k]], end);
+                        latest = Math.max(latest, end);
+                    }
+                }
+            }
+            for (int slot = boundary; slot < slots.size() && slots.getOffset(slot) < latest + minRest; slot++) {
+                for (int k = cellStart[slot * numPosts]; k < cellStart[(slot + 1) * numPosts]; k++) {
+                    if (ids[k] >= 0 && lastEnd[ids[k]] != Integer.MIN_VALUE && lastEnd[ids[k]] + minRest > slots.getOffset(slot)) {
+                        ids[k] = -1;
+                        broken = true;
+                    }
+                }
+            }
+        }
+        if (!broken) {
+            return schedule;
+        }
+        return fill(schedule.getProblem(), schedule.getAlgorithm(), slots, cellStart, ids, new BitSet()).getSchedule();
+    }
+
+    // Work grows with the seats being changed: every cell is read once for the loads, and only the
+    // slots within the minimum rest of a vacant seat get an occupancy set. Soldiers are tried from
+    // the least loaded up, so the first who fits takes the seat.
+    private static ScheduleRepair fill(ScheduleProblem problem, Algorithm algorithm, TimeSlots slots, int[] cellStart, int[] ids, BitSet removed) {
+        int numSoldiers = problem.getNumSoldiers();
+        int numPosts = problem.getNumPosts();
+        int numSlots = slots.size();
+        int minRest = problem.getMinRestMinutes();
+        UnavailabilityIndex unavailability = problem.getUnavailability();
+        ScheduleConstraints constraints = problem.getConstraints();
+
+        long[] load = new long[numSoldiers];
+        int[] changed = new int[8];
+        int numChanged = 0;
+        int longest = 0;
+        for (int slot = 0; slot < numSlots; slot++) {
+            int length = slots.getLength(slot);
+            longest = Math.max(longest, length);
+            boolean vacant = false;
+            for (int k = cellStart[slot * numPosts]; k < cellStart[(slot + 1) * numPosts]; k++) {
+                if (ids[k] >= 0) {
+                    load[ids[k]] += length;
+                } else {
+                    vacant = true;
+                }
+            }
+            if (vacant) {
+                if (numChanged == changed.length) {
+                    changed = Arrays.copyOf(changed, numChanged * 2);
+                }
+                changed[numChanged++] = slot;
+            }
+        }
+        TreeSet<Integer> byLoad = new TreeSet<>((a, b) -> load[a] != load[b] ? Long.compare(load[a], load[b]) : Integer.compare(a, b));
+        for (int c = 0; c < numSoldiers; c++) {
+            if (!removed.get(c)) {
+                byLoad.add(c);
+            }
+        }
+
+        BitSet[] seated = new BitSet[numSlots];
+        int unfilled = 0;
+        for (int v = 0; v < numChanged; v++) {
+            int slot = changed[v];
+            int start = slots.getOffset(slot);
+            int end = start + slots.getLength(slot);
+            // Slots whose shifts leave less than the minimum rest before or after this one.
+            int from = slot;
+            while (minRest > 0 && from > 0 && slots.getOffset(from - 1) + longest + minRest > start) {
+                from--;
+            }
+            int to = slot + 1;
+            while (minRest > 0 && to < numSlots && slots.getOffset(to) < end + minRest) {
+                to++;
+            }
+            for (int near = from; near < to; near++) {
+                if (seated[near] == null) {
+                    seated[near] = seatedIn(near, cellStart, ids, numPosts, numSoldiers);
+                }
+            }
+            for (int post = 0; post < numPosts; post++) {
+                for (int k = cellStart[slot * numPosts + post]; k < cellStart[slot * numPosts + post + 1]; k++) {
+                    if (ids[k] >= 0) {
+                        continue;
+                    }
+                    boolean satisfiedBefore = constraints.isSatisfied(ids, cellStart, slot, numPosts);
+                    int best = -1;
+                    for (int c : byLoad) {
+                        if (seated[slot].get(c) || !problem.isQualified(c, post) || !unavailability.isFree(c, start, end)
+                                || !isRested(slots, slot, minRest, seated, from, to, c)) {
+                            continue;
+                        }
+                        ids[k] = c;
+                        boolean satisfied = !satisfiedBefore || constraints.isSatisfied(ids, cellStart, slot, numPosts);
+                        ids[k] = -1;
+                        if (satisfied) {
+                            best = c;
+                            break;
+                        }
+                    }
+                    if (best < 0) {
+                        unfilled++;
+                        continue;
+                    }
+                    ids[k] = best;
+                    seated[slot].set(best);
+                    byLoad.remove(best);
+                    load[best] += slots.getLength(slot);
+                    byLoad.add(best);
+                }
+            }
+        }
+
+        // Drop the seats nobody could take.
+        int[] compactStart = new int[cellStart.length];
+        int total = 0;
+        for (int c = 0; c + 1 < cellStart.length; c++) {
+            for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                if (ids[k] >= 0) {
+                    ids[total++] = ids[k];
+                }
+            }
+            compactStart[c + 1] = total;
+        }
+        Schedule repaired = new Schedule(problem, algorithm, slots, compactStart, Arrays.copyOf(ids, total));
+        return new ScheduleRepair(repaired, Arrays.copyOf(changed, numChanged), unfilled);
+    }
+
+    private static BitSet seatedIn(int slot, int[] cellStart, int[] ids, int numPosts, int numSoldiers) {
+        BitSet seated = new BitSet(numSoldiers);
+        for (int k = cellStart[slot * numPosts]; k < cellStart[(slot + 1) * numPosts]; k++) {
+            if (ids[k] >= 0) {
+                seated.set(ids[k]);
+            }
+        }
+        return seated;
+    }
+
+    // True when soldier has no shift in slots [from, to), other than slot, that ends less than the
+    // minimum rest before it or starts less than the minimum rest after it.
+    private static boolean isRested(TimeSlots slots, int slot, int minRest, BitSet[] seated, int from, int to, int soldier) {
+        if (minRest == 0) {
+            return true;
+        }
+        int start = slots.getOffset(slot);
+        int end = start + slots.getLength(slot);
+        for (int near = from; near < to; near++) {
+            if (near != slot && seated[near].get(soldier)
+                    && slots.getOffset(near) + slots.getLength(near) + minRest > start
+                    && slots.getOffset(near) < end + minRest) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.watchlist.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Checks a schedule, generated or typed in by hand, against its list: nobody may hold two seats
+// in one slot, every name must be on the roster and every cell should get the soldiers it needs.
+// One bitset of soldier ids is set and cleared slot by slot, so the check costs time in
+// proportion to the cells and seats, not to the roster.
+public class ScheduleValidator {
+    public enum IssueType {
+        DOUBLE_BOOKED, UNKNOWN_NAME, UNFILLED
+    }
+
+    public static class Issue {
+        private final IssueType type;
+        private final int slot;
+        private final int post;
+        private final String name;
+        private final int missing;
+
+        public Issue(IssueType type, int slot, int post, String name, int missing) {
+            this.type = type;
+            this.slot = slot;
+            this.post = post;
+            this.name = name;
+            this.missing = missing;
+        }
+
+        public IssueType getType() {
+            return type;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public int getPost() {
+            return post;
+        }
+
+        // The soldier for DOUBLE_BOOKED and UNKNOWN_NAME, null for UNFILLED.
+        public String getName() {
+            return name;
+        }
+
+        // Seats left empty for UNFILLED, 0 otherwise.
+        public int getMissing() {
+            return missing;
+        }
+    }
+
+    // Only the first issues are kept; the counts cover all of them.
+    public static final int MAX_ISSUES = 100;
+
+    private final List<Issue> issues = new ArrayList<>();
+    private int doubleBookings;
+    private int unknownNames;
+    private int unfilledSeats;
+
+    private ScheduleValidator() {
+    }
+
+    public List<Issue> getIssues() {
+        return issues;
+    }
+
+    public int getDoubleBookings() {
+        return doubleBookings;
+    }
+
+    public int getUnknownNames() {
+        return unknownNames;
+    }
+
+    public int getUnfilledSeats() {
+        return unfilledSeats;
+    }
+
+    // A schedule with short cells is still usable, only conflicts and strangers make it invalid.
+    public boolean isValid() {
+        return doubleBookings == 0 && unknownNames == 0;
+    }
+
+    public static ScheduleValidator validate(Schedule schedule) {
+        ScheduleProblem problem = schedule.getProblem();
+        TimeSlots slots = schedule.getSlots();
+        return check(problem, slots, problem.demandTable(slots), 0, slots.size(), schedule.getCellStart(), schedule.getSoldierIds(), null);
+    }
+
+    // Rows are {label, cell text per post} for the slots starting at fromSlot, as shown for editing.
+    // Names are split on commas and trimmed; rows past the end of the list are checked without demand.
+    public static ScheduleValidator validate(ScheduleProblem problem, Algorithm algorithm, int fromSlot, List<String[]> rows) {
+        TimeSlots slots = TimeSlots.forAlgorithm(problem, algorithm);
+        int numPosts = problem.getNumPosts();
+        SoldierIndex index = problem.getSoldiers();
+        int[] cellStart = new int[rows.size() * numPosts + 1];
+        int[] ids = new int[16];
+        String[] unknown = new String[16];
+        int total = 0;
+        for (int r = 0; r < rows.size(); r++) {
+            String[] row = rows.get(r);
+            for (int j = 0; j < numPosts; j++) {
+                String text = j + 1 < row.length ? row[j + 1] : null;
+                if (text != null) {
+                    for (String part : text.split(",")) {
+                        String name = part.trim();
+                        if (name.isEmpty()) {
+                            continue;
+                        }
+                        if (total == ids.length) {
+                            ids = Arrays.copyOf(ids, total * 2);
+                            unknown = Arrays.copyOf(unknown, total * 2);
+                        }
+                        ids[total] = index.idOf(name);
+                        unknown[total] = ids[total] < 0 ? name : null;
+                        total++;
+                    }
+                }
+                cellStart[r * numPosts + j + 1] = total;
+            }
+        }
+        return check(problem, slots, problem.demandTable(slots), fromSlot, rows.size(), cellStart, ids, unknown);
+    }
+
+    // cellStart and ids cover numRows slots starting at fromSlot; unknown names have id -1.
+    private static ScheduleValidator check(ScheduleProblem problem, TimeSlots slots, int[] demand, int fromSlot, int numRows, int[] cellStart, int[] ids, String[] unknown) {
+        ScheduleValidator validator = new ScheduleValidator();
+        int numPosts = problem.getNumPosts();
+        SoldierIndex index = problem.getSoldiers();
+        BitSet seated = new BitSet(problem.getNumSoldiers());
+        for (int r = 0; r < numRows; r++) {
+            int slot = fromSlot + r;
+            for (int j = 0; j < numPosts; j++) {
+                int cell = r * numPosts + j;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    if (ids[k] < 0) {
+                        validator.unknownNames++;
+                        validator.add(IssueType.UNKNOWN_NAME, slot, j, unknown[k], 0);
+                    } else if (seated.get(ids[k])) {
+                        validator.doubleBookings++;
+                        validator.add(IssueType.DOUBLE_BOOKED, slot, j, index.nameOf(ids[k]), 0);
+                    } else {
+                        seated.set(ids[k]);
+                    }
+                }
+                if (slot < slots.size()) {
+                    int missing = demand[slot * numPosts + j] - (cellStart[cell + 1] - cellStart[cell]);
+                    if (missing > 0) {
+                        validator.unfilledSeats += missing;
+                        validator.add(IssueType.UNFILLED, slot, j, null, missing);
+                    }
+                }
+            }
+            for (int k = cellStart[r * numPosts]; k < cellStart[(r + 1) * numPosts]; k++) {
+                if (ids[k] >= 0) {
+                    seated.clear(ids[k]);
+                }
+            }
+        }
+        return validator;
+    }
+
+    private void add(IssueType type, int slot, int post, String name, int missing) {
+        if (issues.size() < MAX_ISSUES) {
+            issues.add(new Issue(type, slot, post, name, missing));
+        }
+    }
+}
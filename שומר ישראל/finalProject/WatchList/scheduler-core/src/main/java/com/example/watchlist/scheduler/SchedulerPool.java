@@ -0,0 +1,18 @@
+package com.example.watchlist.scheduler;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Shared work-stealing pool for all generation work, sized to the available cores.
+public class SchedulerPool {
+    private static ForkJoinPool pool;
+
+    private SchedulerPool() {
+    }
+
+    public static synchronized ForkJoinPool get() {
+        if (pool == null) {
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return pool;
+    }
+}
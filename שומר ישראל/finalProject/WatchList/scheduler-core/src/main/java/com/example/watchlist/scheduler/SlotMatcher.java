@@ -0,0 +1,229 @@
+package com.example.watchlist.scheduler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Maximum bipartite matching between the seats of one slot and the soldiers offered for it
+// (Hopcroft-Karp). Every seat is one unit of a post's demand, a soldier is adjacent to a seat when
+// they hold all of the post's required qualifications. Adjacency rows are bitsets over the seats,
+// cached per qualification mask since all slots with the same demand share a seat layout.
+class SlotMatcher {
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final int numSeats;
+    private final int words;
+    private final int[] seatPost;
+    private final long[] seatRequirement;
+    private final Map<Long, long[]> adjacencyCache = new HashMap<>();
+
+    private int[] candidates = new int[16];
+    private long[][] adjacency = new long[16][];
+    private int[] matchLeft = new int[16];
+    private int[] dist = new int[16];
+    private int[] queue = new int[16];
+    private int numCandidates;
+    private final int[] matchRight;
+    private final long[] matchedSeats;
+    private final long[] visited;
+    private int numMatched;
+
+    // demand[row + j] is the number of seats of posts[j]; seats are numbered by j.
+    SlotMatcher(ScheduleProblem problem, int[] posts, int[] demand, int row) {
+        int total = 0;
+        for (int j = 0; j < posts.length; j++) {
+            total += demand[row + j];
+        }
+        numSeats = total;
+        words = (total + 63) >>> 6;
+        seatPost = new int[total];
+        seatRequirement = new long[total];
+        int seat = 0;
+        for (int j = 0; j < posts.length; j++) {
+            for (int d = 0; d < demand[row + j]; d++) {
+                seatPost[seat] = j;
+                seatRequirement[seat] = problem.getPostQualifications(posts[j]);
+                seat++;
+            }
+        }
+        matchRight = new int[total];
+        matchedSeats = new long[words];
+        visited = new long[words];
+    }
+
+    int getNumSeats() {
+        return numSeats;
+    }
+
+    int seatPost(int seat) {
+        return seatPost[seat];
+    }
+
+    void reset() {
+        numCandidates = 0;
+        numMatched = 0;
+        Arrays.fill(matchRight, -1);
+        Arrays.fill(matchedSeats, 0);
+    }
+
+    int unmatchedSeats() {
+        return numSeats - numMatched;
+    }
+
+    int numCandidates() {
+        return numCandidates;
+    }
+
+    int candidate(int index) {
+        return candidates[index];
+    }
+
+    boolean isMatched(int index) {
+        return matchLeft[index] >= 0;
+    }
+
+    // Soldier holding the seat, or -1 if it is still free.
+    int soldierAt(int seat) {
+        int index = matchRight[seat];
+        return index < 0 ? -1 : candidates[index];
+    }
+
+    // Adds a soldier and greedily gives them the first free seat they qualify for. Returns false,
+    // without adding, if they qualify for no seat in this slot.
+    boolean offer(int soldier, long qualifications) {
+        long[] row = adjacency(qualifications);
+        if (row == null) {
+            return false;
+        }
+        if (numCandidates == candidates.length) {
+            int capacity = numCandidates * 2;
+            candidates = Arrays.copyOf(candidates, capacity);
+            adjacency = Arrays.copyOf(adjacency, capacity);
+            matchLeft = Arrays.copyOf(matchLeft, capacity);
+            dist = Arrays.copyOf(dist, capacity);
+            queue = Arrays.copyOf(queue, capacity);
+        }
+        int u = numCandidates++;
+        candidates[u] = soldier;
+        adjacency[u] = row;
+        matchLeft[u] = -1;
+        for (int w = 0; w < words; w++) {
+            long free = row[w] & ~matchedSeats[w];
+            if (free != 0) {
+                link(u, (w << 6) + Long.numberOfTrailingZeros(free));
+                break;
+            }
+        }
+        return true;
+    }
+
+    // Grows the greedy matching to a maximum one with shortest augmenting paths.
+    void match() {
+        while (numMatched < numSeats && bfs()) {
+            Arrays.fill(visited, 0);
+            for (int u = 0; u < numCandidates; u++) {
+                if (matchLeft[u] < 0) {
+                    dfs(u);
+                }
+            }
+        }
+    }
+
+    private boolean bfs() {
+        int head = 0;
+        int tail = 0;
+        for (int u = 0; u < numCandidates; u++) {
+            if (matchLeft[u] < 0) {
+                dist[u] = 0;
+                queue[tail++] = u;
+            } else {
+                dist[u] = INF;
+            }
+        }
+        Arrays.fill(visited, 0);
+        boolean found = false;
+        while (head < tail) {
+            int u = queue[head++];
+            long[] row = adjacency[u];
+            for (int w = 0; w < words; w++) {
+                long bits = row[w] & ~visited[w];
+                visited[w] |= bits;
+                while (bits != 0) {
+                    int seat = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    int next = matchRight[seat];
+                    if (next < 0) {
+                        found = true;
+                    } else if (dist[next] == INF) {
+                        dist[next] = dist[u] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // Seats are marked visited as they are tried, a seat that failed once cannot help in this phase.
+    // A seat whose holder is not on the next layer is passed over without marking it, it may still
+    // be the way on for a candidate that is.
+    private boolean dfs(int u) {
+        long[] row = adjacency[u];
+        for (int w = 0; w < words; w++) {
+            long bits = row[w] & ~visited[w];
+            while (bits != 0) {
+                long lowest = bits & -bits;
+                bits &= bits - 1;
+                if ((visited[w] & lowest) != 0) {
+                    continue; // Tried deeper in this search
+                }
+                int seat = (w << 6) + Long.numberOfTrailingZeros(lowest);
+                int next = matchRight[seat];
+                if (next >= 0 && dist[next] != dist[u] + 1) {
+                    continue;
+                }
+                visited[w] |= lowest;
+                if (next < 0 || dfs(next)) {
+                    if (matchLeft[u] < 0) {
+                        numMatched++;
+                    } else {
+                        matchRight[matchLeft[u]] = -1;
+                    }
+                    matchLeft[u] = seat;
+                    matchRight[seat] = u;
+                    matchedSeats[w] |= lowest;
+                    return true;
+                }
+            }
+        }
+        dist[u] = INF;
+        return false;
+    }
+
+    private void link(int u, int seat) {
+        matchLeft[u] = seat;
+        matchRight[seat] = u;
+        matchedSeats[seat >>> 6] |= 1L << seat;
+        numMatched++;
+    }
+
+    private long[] adjacency(long qualifications) {
+        Long key = qualifications;
+        if (adjacencyCache.containsKey(key)) {
+            return adjacencyCache.get(key);
+        }
+        long[] row = new long[words];
+        boolean any = false;
+        for (int seat = 0; seat < numSeats; seat++) {
+            if ((seatRequirement[seat] & ~qualifications) == 0) {
+                row[seat >>> 6] |= 1L << seat;
+                any = true;
+            }
+        }
+        if (!any) {
+            row = null;
+        }
+        adjacencyCache.put(key, row);
+        return row;
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.watchlist.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Suggests who could take a seat while a schedule is edited by hand. Each soldier's shifts are kept
+// as a sorted slot list, so whether someone is free in a slot and how long they rest around it are
+// binary searches, and the roster is kept ordered by load, so a lookup walks the least loaded
+// soldiers first and stops once it has enough. Applied suggestions update the index in place.
+public class SwapIndex {
+    public enum Kind {
+        REPLACE, SWAP
+    }
+
+    public static class Suggestion {
+        private final Kind kind;
+        private final int slot;
+        private final int post;
+        private final String occupant;
+        private final String soldier;
+        private final int otherSlot;
+        private final int otherPost;
+        private final int loadChange;
+        private final int restMinutes;
+
+        public Suggestion(Kind kind, int slot, int post, String occupant, String soldier, int otherSlot, int otherPost, int loadChange, int restMinutes) {
+            this.kind = kind;
+            this.slot = slot;
+            this.post = post;
+            this.occupant = occupant;
+            this.soldier = soldier;
+            this.otherSlot = otherSlot;
+            this.otherPost = otherPost;
+            this.loadChange = loadChange;
+            this.restMinutes = restMinutes;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public int getPost() {
+            return post;
+        }
+
+        // Who gives up the seat, null when it was empty.
+        public String getOccupant() {
+            return occupant;
+        }
+
+        // Who takes the seat.
+        public String getSoldier() {
+            return soldier;
+        }
+
+        // The seat the occupant takes over in a SWAP, -1 for REPLACE.
+        public int getOtherSlot() {
+            return otherSlot;
+        }
+
+        public int getOtherPost() {
+            return otherPost;
+        }
+
+        // Minutes the soldier gains; the occupant loses as many.
+        public int getLoadChange() {
+            return loadChange;
+        }
+
+        // Shortest break next to a moved shift, NO_LIMIT when nobody works around it.
+        public int getRestMinutes() {
+            return restMinutes;
+        }
+    }
+
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+    // Seats looked at per swap lookup, nearest slots first.
+    private static final int MAX_SWAP_SEATS = 4096;
+
+    private final ScheduleProblem problem;
+    private final TimeSlots slots;
+    private final int numPosts;
+    private final int[] cellStart;
+    private final int[] ids;
+    private final int[][] shifts;
+    private final int[] numShifts;
+    private final long[] load;
+    // Soldiers by increasing load, and each soldier's place in it.
+    private final int[] byLoad;
+    private final int[] rank;
+
+    private SwapIndex(ScheduleProblem problem, TimeSlots slots, int[] cellStart, int[] ids) {
+        this.problem = problem;
+        this.slots = slots;
+        this.numPosts = problem.getNumPosts();
+        this.cellStart = cellStart;
+        this.ids = ids;
+        int numSoldiers = problem.getNumSoldiers();
+        int numSlots = (cellStart.length - 1) / numPosts;
+        numShifts = new int[numSoldiers];
+        load = new long[numSoldiers];
+        for (int slot = 0; slot < numSlots; slot++) {
+            for (int k = cellStart[slot * numPosts]; k < cellStart[(slot + 1) * numPosts]; k++) {
+                if (ids[k] >= 0) {
+                    numShifts[ids[k]]++;
+                    load[ids[k]] += slots.getLength(slot);
+                }
+            }
+        }
+        shifts = new int[numSoldiers][];
+        for (int s = 0; s < numSoldiers; s++) {
+            shifts[s] = new int[Math.max(4, numShifts[s])];
+            numShifts[s] = 0;
+        }
+        for (int slot = 0; slot < numSlots; slot++) {
+            for (int k = cellStart[slot * numPosts]; k < cellStart[(slot + 1) * numPosts]; k++) {
+                // A soldier typed twice into one slot is listed once.
+                int s = ids[k];
+                if (s >= 0 && (numShifts[s] == 0 || shifts[s][numShifts[s] - 1] != slot)) {
+                    shifts[s][numShifts[s]++] = slot;
+                }
+            }
+        }
+        Integer[] order = new Integer[numSoldiers];
+        for (int s = 0; s < numSoldiers; s++) {
+            order[s] = s;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(load[a], load[b]));
+        byLoad = new int[numSoldiers];
+        rank = new int[numSoldiers];
+        for (int i = 0; i < numSoldiers; i++) {
+            byLoad[i] = order[i];
+            rank[order[i]] = i;
+        }
+    }
+
+    public static SwapIndex of(Schedule schedule) {
+        return new SwapIndex(schedule.getProblem(), schedule.getSlots(), schedule.getCellStart(), schedule.getSoldierIds().clone());
+    }
+
+    // Rows are {label, cell text per post} from the first slot on, as stored. Names are split on
+    // commas and trimmed; names not on the roster hold their seat but are never suggested.
+    public static SwapIndex of(ScheduleProblem problem, Algorithm algorithm, List<String[]> rows) {
+        TimeSlots slots = TimeSlots.forAlgorithm(problem, algorithm);
+        int numPosts = problem.getNumPosts();
+        int numRows = Math.min(rows.size(), slots.size());
+        SoldierIndex index = problem.getSoldiers();
+        int[] cellStart = new int[numRows * numPosts + 1];
+        int[] ids = new int[16];
+        int total = 0;
+        for (int i = 0; i < numRows; i++) {
+            String[] row = rows.get(i);
+            for (int j = 0; j < numPosts; j++) {
+                String text = j + 1 < row.length ? row[j + 1] : null;
+                if (text != null) {
+                    for (String part : text.split(",")) {
+                        String name = part.trim();
+                        if (name.isEmpty()) {
+                            continue;
+                        }
+                        if (total == ids.length) {
+                            ids = Arrays.copyOf(ids, total * 2);
+                        }
+                        ids[total++] = index.idOf(name);
+                    }
+                }
+                cellStart[i * numPosts + j + 1] = total;
+            }
+        }
+        return new SwapIndex(problem, slots, cellStart, Arrays.copyOf(ids, total));
+    }
+
+    public int getNumSlots() {
+        return (cellStart.length - 1) / numPosts;
+    }
+
+    public long getLoadMinutes(String name) {
+        int s = problem.getSoldiers().idOf(name);
+        return s >= 0 ? load[s] : 0;
+    }
+
+    // Soldiers free in the slot who could take the occupant's seat, or fill it when occupant is
+    // null, least loaded first and then the longest rest. Slot rules are checked only for held seats.
+    public List<Suggestion> replacements(int slot, int post, String occupant, int limit) {
+        if (slot < 0 || slot >= getNumSlots() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int o = occupant != null ? problem.getSoldiers().idOf(occupant) : -1;
+        int seat = occupant != null ? seatOf(slot, post, o) : -1;
+        if (occupant != null && seat < 0) {
+            return Collections.emptyList();
+        }
+        int length = slots.getLength(slot);
+        List<Suggestion> found = new ArrayList<>();
+        long lastLoad = -1;
+        for (int i = 0; i < byLoad.length; i++) {
+            int c = byLoad[i];
+            // Once enough are found only ties in load may still rank higher on rest, and only a few.
+            if (found.size() >= limit && (load[c] > lastLoad || found.size() >= 2 * limit)) {
+                break;
+            }
+            if (c == o || !canTake(c, slot, post, -1)) {
+                continue;
+            }
+            if (seat >= 0 && !keepsRules(seat, slot, c)) {
+                continue;
+            }
+            found.add(new Suggestion(Kind.REPLACE, slot, post, occupant, problem.getSoldiers().nameOf(c), -1, -1, length, restAround(c, slot, -1)));
+            lastLoad = load[c];
+        }
+        Collections.sort(found, (a, b) -> {
+            long la = load[problem.getSoldiers().idOf(a.getSoldier())];
+            long lb = load[problem.getSoldiers().idOf(b.getSoldier())];
+            return la != lb ? Long.compare(la, lb) : Integer.compare(b.getRestMinutes(), a.getRestMinutes());
+        });
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    // Seats in [fromSlot, toSlot) whose holder could trade with the occupant: each takes the other's
+    // shift. Ranked by the smallest change in load, then the longest rest; the nearest slots are
+    // looked at first.
+    public List<Suggestion> swaps(int slot, int post, String occupant, int fromSlot, int toSlot, int limit) {
+        int o = problem.getSoldiers().idOf(occupant);
+        int seat = o >= 0 && slot >= 0 && slot < getNumSlots() ? seatOf(slot, post, o) : -1;
+        if (seat < 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        fromSlot = Math.max(0, fromSlot);
+        toSlot = Math.min(getNumSlots(), toSlot);
+        List<Suggestion> found = new ArrayList<>();
+        int scanned = 0;
+        for (int d = 1; scanned < MAX_SWAP_SEATS && (slot - d >= fromSlot || slot + d < toSlot); d++) {
+            for (int other : new int[]{slot - d, slot + d}) {
+                if (other < fromSlot || other >= toSlot) {
+                    continue;
+                }
+                for (int p = 0; p < numPosts; p++) {
+                    int cell = other * numPosts + p;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        scanned++;
+                        int t = ids[k];
+                        if (t < 0 || t == o || !canTake(t, slot, post, other) || !canTake(o, other, p, slot)) {
+                            continue;
+                        }
+                        ids[seat] = t;
+                        ids[k] = o;
+                        boolean rules = problem.getConstraints().isSatisfied(ids, cellStart, slot, numPosts)
+                                && problem.getConstraints().isSatisfied(ids, cellStart, other, numPosts);
+                        ids[seat] = o;
+                        ids[k] = t;
+                        if (rules) {
+                            int rest = Math.min(restAround(t, slot, other), restAround(o, other, slot));
+                            found.add(new Suggestion(Kind.SWAP, slot, post, occupant, problem.getSoldiers().nameOf(t), other, p,
+                                    slots.getLength(slot) - slots.getLength(other), rest));
+                        }
+                    }
+                }
+            }
+        }
+        Collections.sort(found, (a, b) -> Math.abs(a.getLoadChange()) != Math.abs(b.getLoadChange())
+                ? Integer.compare(Math.abs(a.getLoadChange()), Math.abs(b.getLoadChange()))
+                : Integer.compare(b.getRestMinutes(), a.getRestMinutes()));
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    // Records a suggestion the planner took, so later lookups see it.
+    public void apply(Suggestion suggestion) {
+        SoldierIndex index = problem.getSoldiers();
+        int soldier = index.idOf(suggestion.getSoldier());
+        int occupant = suggestion.getOccupant() != null ? index.idOf(suggestion.getOccupant()) : -1;
+        int seat = suggestion.getOccupant() != null ? seatOf(suggestion.getSlot(), suggestion.getPost(), occupant) : -1;
+        if (suggestion.getKind() == Kind.SWAP) {
+            int other = seatOf(suggestion.getOtherSlot(), suggestion.getOtherPost(), soldier);
+            ids[other] = occupant;
+            move(soldier, suggestion.getOtherSlot(), occupant);
+        }
+        if (seat >= 0) {
+            ids[seat] = soldier;
+        }
+        move(occupant, suggestion.getSlot(), soldier);
+    }
+
+    // Hands one shift in slot from one soldier to another; either may be -1.
+    private void move(int from, int slot, int to) {
+        int length = slots.getLength(slot);
+        if (from >= 0) {
+            int i = Arrays.binarySearch(shifts[from], 0, numShifts[from], slot);
+            if (i >= 0) {
+                System.arraycopy(shifts[from], i + 1, shifts[from], i, numShifts[from] - i - 1);
+                numShifts[from]--;
+            }
+            load[from] -= length;
+            reorder(from);
+        }
+        if (to >= 0) {
+            int i = Arrays.binarySearch(shifts[to], 0, numShifts[to], slot);
+            if (i < 0) {
+                int insert = -i - 1;
+                if (numShifts[to] == shifts[to].length) {
+                    shifts[to] = Arrays.copyOf(shifts[to], numShifts[to] * 2);
+                }
+                System.arraycopy(shifts[to], insert, shifts[to], insert + 1, numShifts[to] - insert);
+                shifts[to][insert] = slot;
+                numShifts[to]++;
+            }
+            load[to] += length;
+            reorder(to);
+        }
+    }
+
+    // Moves a soldier whose load changed to its place in byLoad.
+    private void reorder(int s) {
+        int i = rank[s];
+        while (i > 0 && load[byLoad[i - 1]] > load[s]) {
+            byLoad[i] = byLoad[i - 1];
+            rank[byLoad[i]] = i;
+            i--;
+        }
+        while (i + 1 < byLoad.length && load[byLoad[i + 1]] < load[s]) {
+            byLoad[i] = byLoad[i + 1];
+            rank[byLoad[i]] = i;
+            i++;
+        }
+        byLoad[i] = s;
+        rank[s] = i;
+    }
+
+    private int seatOf(int slot, int post, int soldier) {
+        int cell = slot * numPosts + post;
+        for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+            if (ids[k] == soldier) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private boolean keepsRules(int seat, int slot, int soldier) {
+        int held = ids[seat];
+        ids[seat] = soldier;
+        boolean satisfied = problem.getConstraints().isSatisfied(ids, cellStart, slot, numPosts);
+        ids[seat] = held;
+        return satisfied;
+    }
+
+    // Whether the soldier could work the slot at the post, as if their shift in ignored were gone.
+    private boolean canTake(int s, int slot, int post, int ignored) {
+        int start = slots.getOffset(slot);
+        int end = start + slots.getLength(slot);
+        if (Arrays.binarySearch(shifts[s], 0, numShifts[s], slot) >= 0 || !problem.isQualified(s, post)
+                || !problem.getUnavailability().isFree(s, start, end)) {
+            return false;
+        }
+        int minRest = problem.getMinRestMinutes();
+        return minRest == 0 || restAround(s, slot, ignored) >= minRest;
+    }
+
+    // Shortest break between the slot and the soldier's nearest shifts before and after it,
+    // skipping their shift in ignored.
+    private int restAround(int s, int slot, int ignored) {
+        int[] list = shifts[s];
+        int n = numShifts[s];
+        int insert = Arrays.binarySearch(list, 0, n, slot);
+        insert = insert >= 0 ? insert : -insert - 1;
+        int start = slots.getOffset(slot);
+        int end = start + slots.getLength(slot);
+        int rest = NO_LIMIT;
+        int before = insert - 1;
+        if (before >= 0 && list[before] == ignored) {
+            before--;
+        }
+        if (before >= 0) {
+            rest = start - (slots.getOffset(list[before]) + slots.getLength(list[before]));
+        }
+        int after = insert < n && list[insert] == slot ? insert + 1 : insert;
+        if (after < n && list[after] == ignored) {
+            after++;
+        }
+        if (after < n) {
+            rest = Math.min(rest, slots.getOffset(list[after]) - end);
+        }
+        return rest;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.watchlist.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Lists of teams that lend soldiers to each other, generated together so nobody is given two
+// shifts at once. A soldier is known by name on every roster, so the rosters are merged into one
+// global index. Two lists are linked when they share a soldier and their times, stretched by the
+// minimum rest, overlap. Linked lists form a group, solved list by list in the order they were
+// added: each list takes the shifts the lists before it gave its soldiers, widened by its own
+// minimum rest, as unavailability. Groups share nobody, so they are solved in parallel.
+public class TeamPool {
+    private final SoldierIndex soldiers = new SoldierIndex();
+    private final List<String> names = new ArrayList<>();
+    private final List<ScheduleProblem> problems = new ArrayList<>();
+    private final List<int[]> globalIds = new ArrayList<>();
+
+    // name identifies the list among all teams, such as "team/list".
+    public void add(String name, ScheduleProblem problem) {
+        SoldierIndex roster = problem.getSoldiers();
+        int[] ids = new int[roster.size()];
+        for (int s = 0; s < ids.length; s++) {
+            ids[s] = soldiers.intern(roster.nameOf(s));
+        }
+        names.add(name);
+        problems.add(problem);
+        globalIds.add(ids);
+    }
+
+    // Every soldier on any of the rosters.
+    public SoldierIndex getSoldiers() {
+        return soldiers;
+    }
+
+    // Indexes of the lists in each group, in the order added. Only lists sharing a soldier are
+    // compared, so teams that lend nobody cost nothing.
+    public List<int[]> groups() {
+        int n = problems.size();
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        List<List<Integer>> listsOf = new ArrayList<>();
+        for (int g = 0; g < soldiers.size(); g++) {
+            listsOf.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            for (int g : globalIds.get(i)) {
+                listsOf.get(g).add(i);
+            }
+        }
+        for (List<Integer> lists : listsOf) {
+            for (int a = 0; a < lists.size(); a++) {
+                for (int b = a + 1; b < lists.size(); b++) {
+                    int i = lists.get(a);
+                    int j = lists.get(b);
+                    if (find(parent, i) != find(parent, j) && overlap(problems.get(i), problems.get(j))) {
+                        parent[find(parent, i)] = find(parent, j);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> byRoot = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            if (!byRoot.containsKey(root)) {
+                byRoot.put(root, new ArrayList<>());
+            }
+            byRoot.get(root).add(i);
+        }
+        List<int[]> groups = new ArrayList<>();
+        for (List<Integer> members : byRoot.values()) {
+            int[] group = new int[members.size()];
+            for (int k = 0; k < group.length; k++) {
+                group[k] = members.get(k);
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static boolean overlap(ScheduleProblem a, ScheduleProblem b) {
+        long rest = Math.max(a.getMinRestMinutes(), b.getMinRestMinutes());
+        long startA = a.getStartEpochMinute();
+        long startB = b.getStartEpochMinute();
+        return startA < startB + b.getDurationMinutes() + rest && startB < startA + a.getDurationMinutes() + rest;
+    }
+
+    // Schedules by list name, in the order the lists were added. The time each list's soldiers are
+    // busy on other lists is added to that list's problem, so its schedule validates against it.
+    public Map<String, Schedule> generate(Algorithm algorithm) {
+        Schedule[] schedules = new Schedule[problems.size()];
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int[] group : groups()) {
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    for (int k = 0; k < group.length; k++) {
+                        int i = group[k];
+                        ScheduleProblem problem = problems.get(i);
+                        problem.addUnavailability(busyTime(problem, group, k, schedules));
+                        schedules[i] = ScheduleGenerator.generate(problem, algorithm);
+                    }
+                }
+            });
+        }
+        if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            SchedulerPool.get().invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+
+        Map<String, Schedule> result = new LinkedHashMap<>();
+        for (int i = 0; i < schedules.length; i++) {
+            result.put(names.get(i), schedules[i]);
+        }
+        return result;
+    }
+
+    // Shifts the lists before group[k] gave soldiers of its roster, in minutes from its start and
+    // widened by its minimum rest on both sides.
+    private Map<String, List<int[]>> busyTime(ScheduleProblem problem, int[] group, int k, Schedule[] schedules) {
+        long start = problem.getStartEpochMinute();
+        int rest = problem.getMinRestMinutes();
+        SoldierIndex roster = problem.getSoldiers();
+        Map<String, List<int[]>> busy = new HashMap<>();
+        for (int earlier = 0; earlier < k; earlier++) {
+            Schedule schedule = schedules[group[earlier]];
+            int[] ids = globalIds.get(group[earlier]);
+            long offset = schedule.getProblem().getStartEpochMinute() - start;
+            TimeSlots slots = schedule.getSlots();
+            int numPosts = schedule.getNumPosts();
+            int[] cellStart = schedule.getCellStart();
+            int[] soldierIds = schedule.getSoldierIds();
+            for (int slot = 0; slot < slots.size(); slot++) {
+                long from = offset + slots.getOffset(slot) - rest;
+                long to = offset + slots.getOffset(slot) + slots.getLength(slot) + rest;
+                if (to <= 0 || from >= problem.getDurationMinutes()) {
+                    continue;
+                }
+                for (int c = cellStart[slot * numPosts]; c < cellStart[(slot + 1) * numPosts]; c++) {
+                    String name = soldiers.nameOf(ids[soldierIds[c]]);
+                    if (roster.idOf(name) < 0) {
+                        continue;
+                    }
+                    if (!busy.containsKey(name)) {
+                        busy.put(name, new ArrayList<>());
+                    }
+                    busy.get(name).add(new int[]{(int) Math.max(from, -rest), (int) Math.min(to, problem.getDurationMinutes() + rest)});
+                }
+            }
+        }
+        return busy;
+    }
+}
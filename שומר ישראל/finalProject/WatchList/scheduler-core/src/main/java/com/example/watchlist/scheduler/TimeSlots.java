@@ -0,0 +1,124 @@
+package com.example.watchlist.scheduler;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Start offsets of every slot in a list, relative to the list's start time.
+// Lists may span many days; day d covers offsets [d * 24h, (d + 1) * 24h).
+public class TimeSlots {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final LocalDate startDate;
+    private final int startMinuteOfDay;
+    private final int durationMinutes;
+    private final int[] offsets;
+    private final boolean[] day;
+
+    private TimeSlots(LocalDate startDate, int startMinuteOfDay, int durationMinutes, int[] offsets, boolean[] day) {
+        this.startDate = startDate;
+        this.startMinuteOfDay = startMinuteOfDay;
+        this.durationMinutes = durationMinutes;
+        this.offsets = offsets;
+        this.day = day;
+    }
+
+    public static TimeSlots forAlgorithm(ScheduleProblem problem, Algorithm algorithm) {
+        int durationMinutes = problem.getDurationMinutes();
+        int numSlots;
+        float timeSlotDuration;
+        if (algorithm == Algorithm.BALANCED) {
+            timeSlotDuration = 60; // 1 hour in minutes
+            numSlots = durationMinutes / 60;
+        } else {
+            timeSlotDuration = (float) durationMinutes / problem.getCurrentSlots();
+            numSlots = timeSlotDuration > 0 ? (int) Math.ceil(durationMinutes / timeSlotDuration) : 0;
+        }
+
+        int[] offsets = new int[numSlots];
+        boolean[] day = new boolean[numSlots];
+        int start = problem.getStartMinuteOfDay();
+        for (int i = 0; i < numSlots; i++) {
+            offsets[i] = (int) (i * timeSlotDuration);
+            int total = start + offsets[i];
+            int hour = (total / 60) % 24;
+            int minute = total % 60;
+            if (algorithm == Algorithm.CURRENT) {
+                minute = roundUpToNearest5(minute);
+            }
+            day[i] = problem.isDay(hour * 60 + minute);
+        }
+        return new TimeSlots(problem.getStartDate(), start, durationMinutes, offsets, day);
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    public int getOffset(int slot) {
+        return offsets[slot];
+    }
+
+    public int getLength(int slot) {
+        int end = slot + 1 < offsets.length ? offsets[slot + 1] : durationMinutes;
+        return Math.max(0, end - offsets[slot]);
+    }
+
+    public boolean isDay(int slot) {
+        return day[slot];
+    }
+
+    public boolean isMultiDay() {
+        return durationMinutes > MINUTES_PER_DAY;
+    }
+
+    public int numDays() {
+        return Math.max(1, (durationMinutes + MINUTES_PER_DAY - 1) / MINUTES_PER_DAY);
+    }
+
+    // First slot starting on or after the given day of the list; size() past the last day.
+    public int firstSlotOfDay(int day) {
+        long target = (long) day * MINUTES_PER_DAY;
+        int low = 0;
+        int high = offsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (offsets[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Wall-clock start of a slot, or null when the list has no start date.
+    public LocalDateTime dateTime(int slot) {
+        if (startDate == null) {
+            return null;
+        }
+        return startDate.atStartOfDay().plusMinutes(startMinuteOfDay + offsets[slot]);
+    }
+
+    // Single-day lists keep the short HH:mm label; longer lists are prefixed with the date.
+    public String label(int slot) {
+        return label(slot, isMultiDay());
+    }
+
+    public String label(int slot, boolean dated) {
+        int total = startMinuteOfDay + offsets[slot];
+        int hour = (total / 60) % 24;
+        int minute = roundUpToNearest5(total % 60);
+        if (!dated) {
+            return String.format("%02d:%02d", hour, minute);
+        }
+        if (startDate == null) {
+            return String.format("Day %d %02d:%02d", total / MINUTES_PER_DAY + 1, hour, minute);
+        }
+        LocalDate date = startDate.plusDays(total / MINUTES_PER_DAY);
+        return String.format("%02d/%02d %02d:%02d", date.getDayOfMonth(), date.getMonthValue(), hour, minute);
+    }
+
+    private static int roundUpToNearest5(int minute) {
+        return (int) (Math.ceil(minute / 5.0) * 5) % 60;
+    }
+}
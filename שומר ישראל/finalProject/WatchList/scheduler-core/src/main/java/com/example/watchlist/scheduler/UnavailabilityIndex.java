@@ -0,0 +1,141 @@
+package com.example.watchlist.scheduler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Per-soldier unavailable intervals [from, to) in minutes from the list start, sorted and merged
+// into one flat array so a lookup is a binary search over that soldier's intervals.
+public class UnavailabilityIndex {
+    private static final UnavailabilityIndex EMPTY = new UnavailabilityIndex(0, new int[0], new int[0], new int[0]);
+
+    private final int[] soldierStart;
+    private final int[] from;
+    private final int[] to;
+
+    public UnavailabilityIndex(int numSoldiers, int[] soldiers, int[] froms, int[] tos) {
+        int n = soldiers.length;
+        Integer[] byStart = new Integer[n];
+        for (int k = 0; k < n; k++) {
+            byStart[k] = k;
+        }
+        Arrays.sort(byStart, (a, b) -> soldiers[a] != soldiers[b]
+                ? Integer.compare(soldiers[a], soldiers[b])
+                : Integer.compare(froms[a], froms[b]));
+
+        soldierStart = new int[numSoldiers + 1];
+        int[] mergedFrom = new int[n];
+        int[] mergedTo = new int[n];
+        int size = 0;
+        int previousSoldier = -1;
+        for (int k = 0; k < n; k++) {
+            int index = byStart[k];
+            int soldier = soldiers[index];
+            if (froms[index] >= tos[index]) {
+                continue;
+            }
+            if (soldier == previousSoldier && froms[index] <= mergedTo[size - 1]) {
+                mergedTo[size - 1] = Math.max(mergedTo[size - 1], tos[index]);
+                continue;
+            }
+            for (int s = previousSoldier + 1; s <= soldier; s++) {
+                soldierStart[s] = size;
+            }
+            previousSoldier = soldier;
+            mergedFrom[size] = froms[index];
+            mergedTo[size] = tos[index];
+            size++;
+        }
+        for (int s = previousSoldier + 1; s <= numSoldiers; s++) {
+            soldierStart[s] = size;
+        }
+        from = Arrays.copyOf(mergedFrom, size);
+        to = Arrays.copyOf(mergedTo, size);
+    }
+
+    private UnavailabilityIndex(int[] soldierStart, int[] from, int[] to) {
+        this.soldierStart = soldierStart;
+        this.from = from;
+        this.to = to;
+    }
+
+    // Intervals are merged and sorted, so equal availability always writes the same bytes.
+    void writeCanonical(DataOutput out) throws IOException {
+        ScheduleConstraints.writeList(out, soldierStart);
+        ScheduleConstraints.writeList(out, from);
+        ScheduleConstraints.writeList(out, to);
+    }
+
+    static UnavailabilityIndex readCanonical(DataInput in) throws IOException {
+        int[] soldierStart = ScheduleConstraints.readList(in);
+        int[] from = ScheduleConstraints.readList(in);
+        int[] to = ScheduleConstraints.readList(in);
+        if (from.length != to.length || (soldierStart.length > 0 && soldierStart[soldierStart.length - 1] != from.length)) {
+            throw new IOException("Bad unavailability");
+        }
+        return new UnavailabilityIndex(soldierStart, from, to);
+    }
+
+    // This index with more intervals, given as to the constructor.
+    UnavailabilityIndex with(int numSoldiers, int[] soldiers, int[] froms, int[] tos) {
+        int n = from.length;
+        int[] allSoldiers = new int[n + soldiers.length];
+        int[] allFroms = Arrays.copyOf(from, n + froms.length);
+        int[] allTos = Arrays.copyOf(to, n + tos.length);
+        for (int s = 0; s + 1 < soldierStart.length; s++) {
+            Arrays.fill(allSoldiers, soldierStart[s], soldierStart[s + 1], s);
+        }
+        System.arraycopy(soldiers, 0, allSoldiers, n, soldiers.length);
+        System.arraycopy(froms, 0, allFroms, n, froms.length);
+        System.arraycopy(tos, 0, allTos, n, tos.length);
+        return new UnavailabilityIndex(numSoldiers, allSoldiers, allFroms, allTos);
+    }
+
+    public static UnavailabilityIndex empty() {
+        return EMPTY;
+    }
+
+    public boolean isEmpty() {
+        return from.length == 0;
+    }
+
+    // End of the interval that overlaps [start, end), or -1 if the soldier is free for all of it.
+    public int blockedUntil(int soldier, int start, int end) {
+        if (soldier + 1 >= soldierStart.length) {
+            return -1;
+        }
+        int lo = soldierStart[soldier];
+        int hi = soldierStart[soldier + 1];
+        // First interval ending after start, the merged intervals are disjoint so it is the only candidate.
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (to[mid] <= start) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        if (lo < soldierStart[soldier + 1] && from[lo] < end) {
+            return to[lo];
+        }
+        return -1;
+    }
+
+    public boolean isFree(int soldier, int start, int end) {
+        return blockedUntil(soldier, start, end) < 0;
+    }
+
+    // Soldiers free for the whole of [start, end).
+    public BitSet freeDuring(int numSoldiers, int start, int end) {
+        BitSet free = new BitSet(numSoldiers);
+        free.set(0, numSoldiers);
+        for (int s = 0; s < numSoldiers && s + 1 < soldierStart.length; s++) {
+            if (blockedUntil(s, start, end) >= 0) {
+                free.clear(s);
+            }
+        }
+        return free;
+    }
+}
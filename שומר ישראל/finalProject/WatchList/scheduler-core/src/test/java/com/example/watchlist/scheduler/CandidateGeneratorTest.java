@@ -0,0 +1,116 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.watchlist.scheduler.TestProblems.problem;
+import static org.junit.Assert.*;
+
+public class CandidateGeneratorTest {
+
+    @Test
+    public void generate_keepsTheBestKInScoreOrder() throws InterruptedException {
+        ScheduleProblem problem = problem(24, 1, 2);
+        int numCandidates = 12;
+        int topK = 3;
+        List<ScheduleCandidate> accepted = new ArrayList<>();
+        List<ScheduleCandidate> evicted = new ArrayList<>();
+        List<ScheduleCandidate> best = new ArrayList<>();
+        AtomicInteger badRanks = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        new CandidateGenerator(problem, numCandidates, topK, 7).generate(new CandidateGenerator.Listener() {
+            @Override
+            public void onCandidateAccepted(ScheduleCandidate candidate, int rank, ScheduleCandidate pushedOut) {
+                if (rank < 0 || rank >= topK) {
+                    badRanks.incrementAndGet();
+                }
+                accepted.add(candidate);
+                if (pushedOut != null) {
+                    evicted.add(pushedOut);
+                }
+            }
+
+            @Override
+            public void onProgress(int completed, int total) {
+            }
+
+            @Override
+            public void onComplete(List<ScheduleCandidate> result) {
+                best.addAll(result);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(0, badRanks.get());
+        assertEquals(topK, best.size());
+        for (int i = 1; i < best.size(); i++) {
+            assertTrue(best.get(i - 1).getScore() <= best.get(i).getScore());
+        }
+        // Every accepted candidate is either still kept or was pushed out by better ones.
+        List<ScheduleCandidate> kept = new ArrayList<>(accepted);
+        kept.removeAll(evicted);
+        assertEquals(best.size(), kept.size());
+        assertTrue(kept.containsAll(best));
+        for (ScheduleCandidate candidate : evicted) {
+            assertTrue(candidate.getScore() >= best.get(topK - 1).getScore());
+        }
+
+        // The same scores as generating every candidate and sorting them.
+        List<Double> scores = new ArrayList<>();
+        for (int i = 0; i < numCandidates; i++) {
+            Algorithm algorithm = i % 2 == 0 ? Algorithm.CURRENT : Algorithm.BALANCED;
+            int[] order = i < 2 ? problem.getRotationOrder() : CandidateGenerator.permutation(problem.getNumSoldiers(), 7 + i);
+            Schedule schedule = ScheduleGenerator.generate(problem, algorithm, order);
+            scores.add(new ScheduleCandidate(schedule, 7 + i, ScheduleMetrics.of(schedule), ScheduleValidator.validate(schedule)).getScore());
+        }
+        Collections.sort(scores);
+        for (int i = 0; i < topK; i++) {
+            assertEquals(scores.get(i), best.get(i).getScore(), 1e-9);
+        }
+    }
+
+    @Test
+    public void generate_stopsCallingBackOnceCancelled() throws InterruptedException {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicInteger lateCallbacks = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        GenerationHandle handle = new CandidateGenerator(problem(24 * 7, 1, 2), 200, 3, 1).generate(new CandidateGenerator.Listener() {
+            @Override
+            public void onCandidateAccepted(ScheduleCandidate candidate, int rank, ScheduleCandidate evicted) {
+                check();
+            }
+
+            @Override
+            public void onProgress(int completed, int total) {
+                check();
+                started.countDown();
+            }
+
+            @Override
+            public void onComplete(List<ScheduleCandidate> best) {
+                check();
+                lateCallbacks.incrementAndGet();
+            }
+
+            private void check() {
+                if (cancelled.get()) {
+                    lateCallbacks.incrementAndGet();
+                }
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        handle.cancel();
+        cancelled.set(true);
+
+        assertTrue(SchedulerPool.get().awaitQuiescence(10, TimeUnit.SECONDS));
+        assertEquals(0, lateCallbacks.get());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class FairnessOptimizerTest {
+
+    @Test
+    public void optimize_spreadsAnUnfairScheduleAndScoresMatch() throws InterruptedException {
+        List<String> soldiers = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            soldiers.add("s" + i);
+        }
+        List<String> posts = new ArrayList<>();
+        Map<String, Integer> day = new HashMap<>();
+        Map<String, Integer> night = new HashMap<>();
+        for (int j = 0; j < 3; j++) {
+            posts.add("p" + j);
+            day.put("p" + j, 1);
+            night.put("p" + j, 1);
+        }
+        ScheduleProblem problem = new ScheduleProblem(soldiers, posts, day, night, 14, 0, 24 * 60, 6, 0, 18, 0);
+        Schedule generated = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        // Only the first three soldiers are ever on duty
+        int[] ids = generated.getSoldierIds().clone();
+        for (int k = 0; k < ids.length; k++) {
+            ids[k] = k % 3;
+        }
+        Schedule input = new Schedule(problem, Algorithm.BALANCED, generated.getSlots(), generated.getCellStart(), ids);
+        double initial = FairnessOptimizer.objective(input);
+
+        CountDownLatch done = new CountDownLatch(1);
+        final Schedule[] best = new Schedule[1];
+        final double[] reported = new double[1];
+        final boolean[] mismatch = new boolean[1];
+        new FairnessOptimizer(input, 300, 3, 1).optimize(new FairnessOptimizer.Listener() {
+            @Override
+            public void onImproved(Schedule schedule, double objective) {
+                if (Math.abs(objective - FairnessOptimizer.objective(schedule)) > 1e-6) {
+                    mismatch[0] = true;
+                }
+            }
+
+            @Override
+            public void onComplete(Schedule schedule, double objective) {
+                best[0] = schedule;
+                reported[0] = objective;
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(mismatch[0]);
+        assertTrue(reported[0] < initial);
+        assertEquals(reported[0], FairnessOptimizer.objective(best[0]), 1e-6);
+        assertEquals(input.getSoldierIds().length, best[0].getSoldierIds().length);
+    }
+
+    @Test
+    public void optimize_leavesAPoolWorkerForGeneration() throws InterruptedException, ExecutionException, TimeoutException {
+        assumeTrue(SchedulerPool.get().getParallelism() > 1);
+        assertEquals(SchedulerPool.get().getParallelism() - 1, FairnessOptimizer.maxRestarts());
+        ScheduleProblem problem = TestProblems.problem(24, 1, 1);
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        GenerationHandle optimizing = new FairnessOptimizer(schedule, 5000, 100, 1).optimize(new FairnessOptimizer.Listener() {
+            @Override
+            public void onImproved(Schedule schedule, double objective) {
+            }
+
+            @Override
+            public void onComplete(Schedule best, double objective) {
+            }
+        });
+        try {
+            Schedule generated = SchedulerPool.get().submit(() -> ScheduleGenerator.generate(problem, Algorithm.BALANCED)).get(2, TimeUnit.SECONDS);
+            assertArrayEquals(schedule.getSoldierIds(), generated.getSoldierIds());
+        } finally {
+            optimizing.cancel();
+        }
+    }
+}
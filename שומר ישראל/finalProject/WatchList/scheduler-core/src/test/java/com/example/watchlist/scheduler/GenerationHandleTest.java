@@ -0,0 +1,46 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.watchlist.scheduler.TestProblems.problem;
+import static org.junit.Assert.*;
+
+public class GenerationHandleTest {
+
+    @Test
+    public void cancel_cancelsAddedWorkAndWorkAddedLater() {
+        GenerationHandle handle = new GenerationHandle();
+        CompletableFuture<Void> before = new CompletableFuture<>();
+        handle.add(before);
+        handle.cancel();
+        assertTrue(handle.isCancelled());
+        assertTrue(before.isCancelled());
+
+        CompletableFuture<Void> after = new CompletableFuture<>();
+        handle.add(after);
+        assertTrue(after.isCancelled());
+    }
+
+    @Test
+    public void deliver_runsCallbacksOnlyUntilCancelled() {
+        GenerationHandle handle = new GenerationHandle();
+        AtomicInteger calls = new AtomicInteger();
+        handle.deliver(calls::incrementAndGet);
+        handle.cancel();
+        handle.deliver(calls::incrementAndGet);
+        assertEquals(1, calls.get());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void throwIfCancelled_stopsGeneration() {
+        GenerationHandle handle = new GenerationHandle();
+        ScheduleProblem problem = problem(24, 1, 1);
+        assertNotNull(ScheduleGenerator.generate(problem, Algorithm.BALANCED, problem.getRotationOrder(), handle));
+        handle.cancel();
+        ScheduleGenerator.generate(problem, Algorithm.BALANCED, problem.getRotationOrder(), handle);
+    }
+}
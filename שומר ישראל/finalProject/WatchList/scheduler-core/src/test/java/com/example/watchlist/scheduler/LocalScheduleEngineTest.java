@@ -0,0 +1,48 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.watchlist.scheduler.TestProblems.problem;
+import static org.junit.Assert.*;
+
+public class LocalScheduleEngineTest {
+
+    @Test
+    public void generate_timesTheGenerationOnThePool() {
+        ScheduleProblem problem = problem(24, 1, 2);
+        AtomicLong taken = new AtomicLong(-1);
+        Schedule timed = new LocalScheduleEngine().generate(problem, Algorithm.BALANCED, null, taken::set).join();
+        assertTrue(taken.get() > 0);
+        assertArrayEquals(ScheduleGenerator.generate(problem, Algorithm.BALANCED).getSoldierIds(), timed.getSoldierIds());
+    }
+
+    @Test
+    public void generate_stopsARunningGenerationOnceItsHandleIsCancelled() {
+        // 24 hourly slots, checked one by one; the handle is cancelled at the fifth.
+        ScheduleProblem problem = problem(24, 1, 1);
+        AtomicInteger checks = new AtomicInteger();
+        GenerationHandle handle = new GenerationHandle() {
+            @Override
+            public void throwIfCancelled() {
+                if (checks.incrementAndGet() == 5) {
+                    cancel();
+                }
+                super.throwIfCancelled();
+            }
+        };
+        CompletableFuture<Schedule> future = new LocalScheduleEngine().generate(problem, Algorithm.BALANCED, handle);
+        try {
+            future.join();
+            fail("Generation was not stopped");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+        assertEquals(5, checks.get());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.watchlist.scheduler.TestProblems.problem;
+import static org.junit.Assert.*;
+
+public class ScheduleCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void key_sharesEqualInputsOnly() {
+        String key = ScheduleCache.key(problem(4, 1, 1), "both");
+        assertEquals(key, ScheduleCache.key(problem(4, 1, 1), "both"));
+        assertNotEquals(key, ScheduleCache.key(problem(4, 1, 1), "candidates"));
+        ScheduleProblem rested = problem(4, 1, 1);
+        rested.setMinRestMinutes(60);
+        assertNotEquals(key, ScheduleCache.key(rested, "both"));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() throws IOException {
+        String key = ScheduleCache.key(problem(4, 1, 2), "both");
+        ScheduleProblem problem = problem(4, 1, 2);
+        Schedule current = ScheduleGenerator.generate(problem, Algorithm.CURRENT);
+        Schedule balanced = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        ScheduleCache cache = new ScheduleCache(folder.getRoot(), 1);
+        assertNull(cache.get(key, problem));
+        cache.put(key, Arrays.asList(current, balanced));
+        List<Schedule> cached = cache.get(key, problem);
+        assertEquals(2, cached.size());
+        assertEquals(Algorithm.BALANCED, cached.get(1).getAlgorithm());
+        assertArrayEquals(balanced.getCellStart(), cached.get(1).getCellStart());
+        assertArrayEquals(balanced.getSoldierIds(), cached.get(1).getSoldierIds());
+
+        // One byte of room: storing another entry drops the first one.
+        cache.put("other", Collections.singletonList(current));
+        assertNull(cache.get(key, problem));
+        assertNotNull(cache.get("other", problem));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.example.watchlist.scheduler.TestProblems.problem;
+import static org.junit.Assert.*;
+
+public class ScheduleCodecTest {
+
+    @Test
+    public void decodeProblem_keepsEveryInput() throws IOException {
+        ScheduleProblem problem = problem(30, 1, 2);
+        problem.setStartDate(LocalDate.of(2026, 3, 1));
+        problem.setMinRestMinutes(60);
+        problem.setCurrentSlots(3);
+        problem.setPostQualifications(1, 1L);
+        problem.setSoldierQualifications(Collections.singletonMap("b", 1L));
+        problem.setUnavailability(Collections.singletonMap("c", Collections.singletonList(new int[]{120, 300})));
+        problem.addMustNotPair("a", "d");
+        problem.addMaxPerSlot(Arrays.asList("a", "b", "c"), 2);
+        problem.getDemandProfile().addHours(0, 22 * 60, 2 * 60, DemandProfile.ALL_DAYS, 2);
+        LoadLedger history = new LoadLedger();
+        history.add("d", 600, 120, problem.getStartEpochMinute() - 30);
+        problem.setHistory(history, problem.getStartEpochMinute());
+
+        ScheduleProblem received = ScheduleCodec.decodeProblem(ScheduleCodec.encodeProblem(problem));
+        assertEquals(ScheduleCache.key(problem, "offload"), ScheduleCache.key(received, "offload"));
+        for (Algorithm algorithm : Algorithm.values()) {
+            Schedule local = ScheduleGenerator.generate(problem, algorithm);
+            Schedule remote = ScheduleGenerator.generate(received, algorithm);
+            assertArrayEquals(local.getCellStart(), remote.getCellStart());
+            assertArrayEquals(local.getSoldierIds(), remote.getSoldierIds());
+        }
+    }
+
+    @Test
+    public void decodeSchedules_returnsTheSameSchedules() throws IOException {
+        ScheduleProblem problem = problem(4, 1, 2);
+        for (Algorithm algorithm : Algorithm.values()) {
+            Schedule schedule = ScheduleGenerator.generate(problem, algorithm);
+            Schedule returned = ScheduleCodec.decodeSchedules(ScheduleCodec.encodeSchedules(Collections.singletonList(schedule)), problem).get(0);
+            assertEquals(algorithm, returned.getAlgorithm());
+            assertArrayEquals(schedule.getCellStart(), returned.getCellStart());
+            assertArrayEquals(schedule.getSoldierIds(), returned.getSoldierIds());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeProblem_rejectsOtherBytes() throws IOException {
+        ScheduleCodec.decodeProblem(new byte[]{0, 0, 0, 1, 0, 0});
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeProblem_rejectsALengthLongerThanTheBytesLeft() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        // The format of a real problem, then one with no soldiers or posts whose unavailability
+        // claims two billion entries.
+        out.write(ScheduleCodec.encodeProblem(problem(4, 1, 1)), 0, 4);
+        out.writeInt(0);
+        out.writeInt(0);
+        for (int field = 0; field < 5; field++) {
+            out.writeInt(0);
+        }
+        out.writeLong(Long.MIN_VALUE);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(Integer.MAX_VALUE);
+        ScheduleCodec.decodeProblem(bytes.toByteArray());
+    }
+
+    @Test
+    public void decodeSchedules_rejectsIdsOffTheRosterAndCellsRunningBackwards() throws IOException {
+        ScheduleProblem problem = problem(4, 1, 1);
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        int[] cellStart = schedule.getCellStart();
+
+        int[] offRoster = schedule.getSoldierIds().clone();
+        offRoster[0] = problem.getNumSoldiers();
+        assertUndecodable(new Schedule(problem, Algorithm.BALANCED, schedule.getSlots(), cellStart, offRoster), problem);
+
+        int[] backwards = cellStart.clone();
+        backwards[1] = cellStart[2] + 1;
+        assertUndecodable(new Schedule(problem, Algorithm.BALANCED, schedule.getSlots(), backwards, schedule.getSoldierIds()), problem);
+    }
+
+    private static void assertUndecodable(Schedule schedule, ScheduleProblem problem) {
+        try {
+            ScheduleCodec.decodeSchedules(ScheduleCodec.encodeSchedules(Collections.singletonList(schedule)), problem);
+            fail("Decoded a schedule that does not fit the problem");
+        } catch (IOException expected) {
+            // The offload engine generates locally instead
+        }
+    }
+}
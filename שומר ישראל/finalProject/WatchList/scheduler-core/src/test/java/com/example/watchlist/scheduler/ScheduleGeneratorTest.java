@@ -0,0 +1,426 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.watchlist.scheduler.TestProblems.demand;
+import static com.example.watchlist.scheduler.TestProblems.problem;
+import static org.junit.Assert.*;
+
+public class ScheduleGeneratorTest {
+
+    @Test
+    public void currentAlgorithm_rotatesThroughRoster() {
+        Schedule schedule = ScheduleGenerator.generate(problem(4, 1, 1), Algorithm.CURRENT);
+        assertEquals(4, schedule.getNumSlots());
+        assertEquals("a", schedule.cellText(0, 0));
+        assertEquals("b", schedule.cellText(0, 1));
+        assertEquals("c", schedule.cellText(1, 0));
+        assertEquals("d", schedule.cellText(1, 1));
+        assertEquals("a", schedule.cellText(2, 0));
+        assertEquals("21:00", schedule.getSlots().label(1));
+    }
+
+    @Test
+    public void balancedAlgorithm_usesHourSlotsAndNightDemand() {
+        Schedule schedule = ScheduleGenerator.generate(problem(3, 1, 2), Algorithm.BALANCED);
+        assertEquals(3, schedule.getNumSlots());
+        assertFalse(schedule.getSlots().isDay(0));
+        assertEquals("a, b", schedule.cellText(0, 0));
+        assertEquals("c, d", schedule.cellText(0, 1));
+        assertEquals("a, b", schedule.cellText(1, 0));
+        assertEquals(2, schedule.cellSize(2, 1));
+    }
+
+    @Test
+    public void emptyRoster_leavesCellsEmpty() {
+        ScheduleProblem empty = new ScheduleProblem(Collections.<String>emptyList(), Arrays.asList("gate"),
+                Collections.singletonMap("gate", 1), Collections.singletonMap("gate", 1),
+                8, 0, 120, 6, 0, 18, 0);
+        Schedule schedule = ScheduleGenerator.generate(empty, Algorithm.BALANCED);
+        assertEquals(2, schedule.getNumSlots());
+        assertEquals("", schedule.cellText(1, 0));
+    }
+
+    @Test
+    public void multiDayList_labelsSlotsWithDatesAndPagesByDay() {
+        ScheduleProblem problem = problem(72, 1, 1);
+        problem.setStartDate(LocalDate.of(2024, 12, 31));
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        TimeSlots slots = schedule.getSlots();
+        assertEquals(72, slots.size());
+        assertEquals(3, slots.numDays());
+        assertEquals("31/12 20:00", slots.label(0));
+        assertEquals("01/01 00:00", slots.label(4));
+        assertEquals(LocalDateTime.of(2025, 1, 2, 20, 0), slots.dateTime(48));
+        assertEquals(24, slots.firstSlotOfDay(1));
+        assertEquals(72, slots.firstSlotOfDay(3));
+
+        int rows = 0;
+        for (String[] row : schedule.dayRows(2)) {
+            assertEquals(slots.label(48 + rows), row[0]);
+            assertEquals(schedule.cellText(48 + rows, 1), row[2]);
+            rows++;
+        }
+        assertEquals(24, rows);
+    }
+
+    @Test
+    public void demandProfile_compilesHourWeekdayAndPeriodRules() {
+        ScheduleProblem problem = problem(48, 1, 1);
+        problem.setStartDate(LocalDate.of(2024, 6, 7)); // a Friday
+        DemandProfile profile = problem.getDemandProfile();
+        profile.addHours(DemandProfile.ALL_POSTS, 22 * 60, 2 * 60, DemandProfile.ALL_DAYS, 2);
+        profile.addHours(1, 0, 24 * 60, 1 << (DayOfWeek.SATURDAY.getValue() - 1), 0);
+        profile.addPeriod(0, 40 * 60, 42 * 60, 3);
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        int[] demand = problem.demandTable(schedule.getSlots());
+
+        assertEquals(1, demand[0]);      // Friday 20:00
+        assertEquals(2, demand[2 * 2]);  // Friday 22:00, wraps past midnight
+        assertEquals(2, demand[5 * 2]);  // Saturday 01:00
+        assertEquals(0, demand[5 * 2 + 1]);
+        assertEquals(1, demand[6 * 2]);  // Saturday 02:00
+        assertEquals(3, demand[40 * 2]); // Sunday 12:00, inside the period
+        assertEquals(1, demand[40 * 2 + 1]);
+        assertEquals(2, schedule.cellSize(2, 1));
+        assertEquals(0, schedule.cellSize(5, 1));
+        assertEquals(3, schedule.cellSize(40, 0));
+    }
+
+    @Test
+    public void demandAboveRoster_neverDoubleBooksASlot() {
+        Schedule schedule = ScheduleGenerator.generate(problem(2, 3, 3), Algorithm.BALANCED);
+        assertEquals("a, b, c", schedule.cellText(0, 0));
+        assertEquals("d", schedule.cellText(0, 1));
+        assertEquals("a, b, c", schedule.cellText(1, 0));
+    }
+
+    @Test
+    public void minimumRest_keepsSoldiersOffUntilRested() {
+        ScheduleProblem problem = problem(6, 1, 1);
+        problem.setMinRestMinutes(120);
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        // Two soldiers per hour with two hours of rest needs six, so every third hour is short.
+        assertEquals("a", schedule.cellText(0, 0));
+        assertEquals("c", schedule.cellText(1, 0));
+        assertEquals("", schedule.cellText(2, 0));
+        assertEquals("a", schedule.cellText(3, 0));
+        assertEquals("b", schedule.cellText(3, 1));
+    }
+
+    @Test
+    public void qualifications_augmentPastTheGreedyChoice() {
+        ScheduleProblem problem = new ScheduleProblem(Arrays.asList("a", "b"), Arrays.asList("gate", "tower"),
+                demand(1, "gate", "tower"), demand(1, "gate", "tower"), 8, 0, 60, 6, 0, 18, 0);
+        problem.setPostQualifications(1, 1L);
+        problem.setSoldierQualifications(Collections.singletonMap("a", 1L));
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        // a is offered first and greedily takes the gate, the matching moves them to the tower.
+        assertEquals("b", schedule.cellText(0, 0));
+        assertEquals("a", schedule.cellText(0, 1));
+    }
+
+    @Test(timeout = 10000)
+    public void qualifications_leaveSeatsNobodyQualifiesForEmpty() {
+        ScheduleProblem problem = problem(6, 2, 2);
+        problem.setPostQualifications(1, 1L);
+        problem.setSoldierQualifications(Collections.singletonMap("b", 1L));
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        for (int slot = 0; slot < schedule.getNumSlots(); slot++) {
+            assertEquals(2, schedule.cellSize(slot, 0));
+            assertEquals("b", schedule.cellText(slot, 1));
+        }
+    }
+
+    @Test
+    public void disjointPools_areSolvedAsSeparateComponents() {
+        ScheduleProblem problem = problem(4, 1, 1);
+        problem.setPostQualifications(0, 1L);
+        problem.setPostQualifications(1, 2L);
+        Map<String, Long> held = new HashMap<>();
+        held.put("a", 1L);
+        held.put("b", 2L);
+        held.put("c", 1L);
+        held.put("d", 2L);
+        problem.setSoldierQualifications(held);
+        PostComponents components = PostComponents.of(problem);
+        assertEquals(2, components.count());
+        assertEquals(components.componentOfPost(0), components.componentOfSoldier(2));
+
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        String[] gate = {"a", "c", "a", "c"};
+        String[] tower = {"b", "d", "b", "d"};
+        for (int i = 0; i < 4; i++) {
+            assertEquals(gate[i], schedule.cellText(i, 0));
+            assertEquals(tower[i], schedule.cellText(i, 1));
+        }
+
+        // A must-pair rule across the pools joins them into one component.
+        problem.addMustPair("a", "b");
+        assertEquals(1, PostComponents.of(problem).count());
+    }
+
+    @Test
+    public void timeWindows_matchOnePassAndReconcileRestAtBoundaries() {
+        ScheduleProblem whole = problem(72, 1, 1);
+        whole.setMinRestMinutes(60);
+        ScheduleProblem windowed = problem(72, 1, 1);
+        windowed.setMinRestMinutes(60);
+        windowed.setWindowDays(1);
+        Schedule expected = ScheduleGenerator.generate(whole, Algorithm.BALANCED);
+        Schedule schedule = ScheduleGenerator.generate(windowed, Algorithm.BALANCED);
+        for (int i = 0; i < 72; i++) {
+            assertEquals(expected.cellText(i, 0), schedule.cellText(i, 0));
+            assertEquals(expected.cellText(i, 1), schedule.cellText(i, 1));
+        }
+
+        // "a" ends the first window and opens the second, so the least loaded rested soldier takes over.
+        ScheduleProblem problem = problem(2, 1, 1);
+        problem.setMinRestMinutes(60);
+        TimeSlots slots = TimeSlots.forAlgorithm(problem, Algorithm.BALANCED);
+        Schedule joined = new Schedule(problem, Algorithm.BALANCED, slots, new int[]{0, 1, 2, 3, 4}, new int[]{0, 1, 0, 2});
+        Schedule reconciled = ScheduleRepair.reconcile(joined, new int[]{1});
+        assertEquals("a", reconciled.cellText(0, 0));
+        assertEquals("d", reconciled.cellText(1, 0));
+        assertEquals("c", reconciled.cellText(1, 1));
+    }
+
+    @Test
+    public void timeWindows_skipWindowsWithoutASlotOfTheirOwn() {
+        // Four soldiers split ten days into 60-hour slots, so most one-day windows hold no slot start.
+        ScheduleProblem whole = problem(240, 1, 1);
+        whole.setMinRestMinutes(60);
+        ScheduleProblem windowed = problem(240, 1, 1);
+        windowed.setMinRestMinutes(60);
+        windowed.setWindowDays(1);
+        Schedule expected = ScheduleGenerator.generate(whole, Algorithm.CURRENT);
+        Schedule schedule = ScheduleGenerator.generate(windowed, Algorithm.CURRENT);
+        assertEquals(4, schedule.getNumSlots());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expected.cellText(i, 0), schedule.cellText(i, 0));
+            assertEquals(expected.cellText(i, 1), schedule.cellText(i, 1));
+        }
+    }
+
+    @Test
+    public void history_startsWithTheLeastLoadedAndCarriesRestIntoTheList() {
+        LoadLedger history = new LoadLedger();
+        history.add("a", 600, 300, 0);
+        history.add("c", 300, 0, 0);
+        history.add("d", 0, 0, 970);
+        ScheduleProblem problem = problem(4, 1, 1);
+        problem.setMinRestMinutes(60);
+        problem.setHistory(history, 1000);
+        assertArrayEquals(new int[]{1, 3, 2, 0}, problem.getRotationOrder());
+
+        // "d" ended a shift 30 minutes before the list, so "c" covers the first slot in their place.
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        String[][] expected = {{"b", "c"}, {"d", "a"}, {"b", "c"}, {"d", "a"}};
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expected[i][0], schedule.cellText(i, 0));
+            assertEquals(expected[i][1], schedule.cellText(i, 1));
+        }
+
+        LoadLedger share = LoadLedger.of(schedule, 1000);
+        assertEquals(120, share.getMinutes("b"));
+        assertEquals(1240, share.getLastEnd("d"));
+        List<String[]> rows = new ArrayList<>();
+        for (String[] row : schedule.rows(0, 4)) {
+            rows.add(row);
+        }
+        LoadLedger stored = LoadLedger.of(problem, Algorithm.BALANCED, rows, 1000);
+        assertEquals(share.getNightMinutes("a"), stored.getNightMinutes("a"));
+        assertEquals(share.getLastEnd("c"), stored.getLastEnd("c"));
+    }
+
+    @Test
+    public void history_ignoresShiftsEndingAfterTheListStarts() {
+        // "a" works until near the end of this list and "b" a week later, on lists dated after it.
+        LoadLedger history = new LoadLedger();
+        history.add("a", 60, 0, 1000 + 23 * 60);
+        history.add("b", 60, 0, 1000 + 7 * 24 * 60);
+        history.add("b", 0, 0, 940);
+        assertEquals(940, history.getLastEnd("b", 1000));
+        assertEquals(LoadLedger.NO_SHIFT, history.getLastEnd("a", 1000));
+        ScheduleProblem problem = problem(24, 1, 1);
+        problem.setMinRestMinutes(240);
+        problem.setHistory(history, 1000);
+
+        LoadLedger before = new LoadLedger();
+        before.add("a", 60, 0, LoadLedger.NO_SHIFT);
+        before.add("b", 60, 0, 940);
+        ScheduleProblem expected = problem(24, 1, 1);
+        expected.setMinRestMinutes(240);
+        expected.setHistory(before, 1000);
+
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        Schedule expectedSchedule = ScheduleGenerator.generate(expected, Algorithm.BALANCED);
+        for (int i = 0; i < schedule.getNumSlots(); i++) {
+            assertEquals(expectedSchedule.cellText(i, 0), schedule.cellText(i, 0));
+            assertEquals(expectedSchedule.cellText(i, 1), schedule.cellText(i, 1));
+        }
+        ScheduleMetrics metrics = ScheduleMetrics.of(schedule);
+        assertTrue(metrics.getTotalMinutes(0) > 0);
+        assertTrue(metrics.getTotalMinutes(1) > 0);
+    }
+
+    @Test
+    public void series_continuesTheRotationAndKeepsRestAcrossLists() {
+        Map<String, Object> template = new HashMap<>();
+        template.put("startHour", "17:00");
+        template.put("dayStartHour", "06:00");
+        template.put("dayEndHour", "18:00");
+        template.put("duration", 3);
+        template.put("numPosts", 2);
+        template.put("selectedSoldiers", Arrays.asList("a", "b", "c", "d"));
+        template.put("minRestHours", 1);
+        for (int i = 1; i <= 2; i++) {
+            template.put("post" + i + "Name", i == 1 ? "gate" : "tower");
+            template.put("post" + i + "DayTime", 1);
+            template.put("post" + i + "NightTime", 1);
+        }
+        List<Map<String, Object>> lists = ListSettings.series(template, "March", LocalDateTime.of(2026, 3, 1, 17, 0), 2, 0, 3);
+        assertEquals("March 2", lists.get(1).get("listName"));
+        assertEquals("01/03/2026", lists.get(1).get("startDate"));
+        assertEquals("20:00", lists.get(1).get("startHour"));
+
+        List<ScheduleProblem> problems = new ArrayList<>();
+        for (Map<String, Object> data : lists) {
+            problems.add(ListSettings.problemOf(data, Collections.<String>emptyList()));
+        }
+        List<Schedule> series = ScheduleGenerator.generateSeries(problems, Algorithm.BALANCED, null);
+        assertEquals("a", series.get(0).cellText(2, 0));
+        assertEquals("c", series.get(1).cellText(0, 0));
+        assertEquals("d", series.get(1).cellText(0, 1));
+
+        // "c" misses 18:00 and works 19:00 instead, so the second list must not open with them.
+        problems.clear();
+        for (Map<String, Object> data : lists) {
+            problems.add(ListSettings.problemOf(data, Collections.<String>emptyList()));
+        }
+        problems.get(0).setUnavailability(Collections.singletonMap("c", Collections.singletonList(new int[]{60, 120})));
+        series = ScheduleGenerator.generateSeries(problems, Algorithm.BALANCED, null);
+        assertEquals("c", series.get(0).cellText(2, 0));
+        assertFalse(series.get(1).cellText(0, 0).contains("c"));
+        assertFalse(series.get(1).cellText(0, 1).contains("c"));
+    }
+
+    @Test
+    public void nextBlock_extendsTheListFromItsOwnLoad() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("startDate", "01/03/2026");
+        data.put("startHour", "20:00");
+        data.put("dayStartHour", "06:00");
+        data.put("dayEndHour", "18:00");
+        data.put("duration", 24);
+        data.put("numPosts", 2);
+        data.put("selectedSoldiers", Arrays.asList("a", "b", "c", "d", "e"));
+        data.put("minRestHours", 1);
+        for (int i = 1; i <= 2; i++) {
+            data.put("post" + i + "Name", i == 1 ? "gate" : "tower");
+            data.put("post" + i + "DayTime", 1);
+            data.put("post" + i + "NightTime", 1);
+        }
+        ScheduleProblem listProblem = ListSettings.problemOf(data, Collections.<String>emptyList());
+        Schedule list = ScheduleGenerator.generate(listProblem, Algorithm.BALANCED);
+        LoadLedger ledger = LoadLedger.of(list, listProblem.getStartEpochMinute());
+
+        Map<String, Object> blockData = ListSettings.nextBlock(data, 24);
+        assertEquals("02/03/2026", blockData.get("startDate"));
+        assertEquals("20:00", blockData.get("startHour"));
+        ScheduleProblem blockProblem = ListSettings.problemOf(blockData, Collections.<String>emptyList());
+        assertEquals(listProblem.getStartEpochMinute() + 24 * 60, blockProblem.getStartEpochMinute());
+        blockProblem.setHistory(ledger, blockProblem.getStartEpochMinute());
+        Schedule block = ScheduleGenerator.generate(blockProblem, Algorithm.BALANCED);
+
+        List<Map<String, String>> rows = ListSettings.blockRows(block);
+        assertEquals(24, rows.size());
+        assertEquals("02/03 20:00", rows.get(0).get("Time"));
+        // Whoever worked the last hour of the list rests into the block, and the load evens out.
+        for (int j = 0; j < 2; j++) {
+            for (String name : list.cellText(23, j).split(", ")) {
+                assertFalse(name.isEmpty());
+                assertFalse(block.cellText(0, 0).contains(name));
+                assertFalse(block.cellText(0, 1).contains(name));
+            }
+        }
+        ledger.addAll(LoadLedger.of(block, blockProblem.getStartEpochMinute()));
+        for (String name : Arrays.asList("a", "b", "c", "d", "e")) {
+            assertEquals(48 * 60 * 2 / 5, ledger.getMinutes(name), 60);
+        }
+    }
+
+    @Test
+    public void qualifications_keepUnqualifiedSoldiersInRotation() {
+        ScheduleProblem problem = problem(3, 1, 1);
+        problem.setPostQualifications(0, 1L);
+        problem.setSoldierQualifications(Collections.singletonMap("d", 1L));
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        assertEquals("d", schedule.cellText(0, 0));
+        assertEquals("a", schedule.cellText(0, 1));
+        assertEquals("d", schedule.cellText(1, 0));
+        assertEquals("b", schedule.cellText(1, 1));
+        assertEquals("c", schedule.cellText(2, 1));
+    }
+
+    @Test
+    public void unavailableSoldiers_areSkippedAndKeepTheirTurn() {
+        ScheduleProblem problem = problem(4, 1, 1);
+        Map<String, List<int[]>> unavailable = new HashMap<>();
+        unavailable.put("a", Arrays.asList(new int[]{0, 90}));
+        unavailable.put("c", Arrays.asList(new int[]{150, 160}, new int[]{155, 170}));
+        problem.setUnavailability(unavailable);
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        assertEquals("b", schedule.cellText(0, 0));
+        assertEquals("c", schedule.cellText(0, 1));
+        assertEquals("d", schedule.cellText(1, 0));
+        assertEquals("b", schedule.cellText(1, 1));
+        // a is back and first in line, c is away until 22:50 so the hour from 22:00 goes to d.
+        assertEquals("a", schedule.cellText(2, 0));
+        assertEquals("d", schedule.cellText(2, 1));
+        assertEquals("c", schedule.cellText(3, 0));
+        assertEquals("b", schedule.cellText(3, 1));
+    }
+
+    @Test
+    public void mustNotPair_keepsRivalsOnDifferentPosts() {
+        ScheduleProblem problem = problem(2, 2, 2);
+        problem.addMustNotPair("a", "b");
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        assertEquals("a, c", schedule.cellText(0, 0));
+        assertEquals("b, d", schedule.cellText(0, 1));
+    }
+
+    @Test
+    public void mustPair_placesPartnersOnTheSamePost() {
+        ScheduleProblem problem = problem(2, 2, 2);
+        problem.addMustPair("a", "d");
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        assertEquals("a, d", schedule.cellText(0, 0));
+        assertEquals("b, c", schedule.cellText(0, 1));
+    }
+
+    @Test
+    public void maxPerSlot_limitsAGroupWithinEachSlot() {
+        ScheduleProblem problem = problem(2, 1, 1);
+        problem.addMaxPerSlot(Arrays.asList("a", "b", "c"), 1);
+        Schedule schedule = ScheduleGenerator.generate(problem, Algorithm.BALANCED);
+        assertEquals("a", schedule.cellText(0, 0));
+        assertEquals("d", schedule.cellText(0, 1));
+        assertEquals("b", schedule.cellText(1, 0));
+        assertEquals("d", schedule.cellText(1, 1));
+        for (int slot = 0; slot < schedule.getNumSlots(); slot++) {
+            assertTrue(problem.getConstraints().isSatisfied(schedule.getSoldierIds(), schedule.getCellStart(), slot, 2));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import static com.example.watchlist.scheduler.TestProblems.problem;
+import static org.junit.Assert.*;
+
+public class ScheduleMetricsTest {
+
+    @Test
+    public void of_reportsLoadStreaksRestAndRotation() {
+        ScheduleProblem problem = problem(4, 1, 1);
+        TimeSlots slots = TimeSlots.forAlgorithm(problem, Algorithm.BALANCED);
+        // gate/tower per hour: a/b, a/c, c/d, b/a
+        Schedule schedule = new Schedule(problem, Algorithm.BALANCED, slots, new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8}, new int[]{0, 1, 0, 2, 2, 3, 1, 0});
+        ScheduleMetrics metrics = ScheduleMetrics.of(schedule);
+        assertEquals(180, metrics.getTotalMinutes(0));
+        assertEquals(180, metrics.getNightMinutes(0));
+        assertEquals(120, metrics.getLongestStreakMinutes(0));
+        assertEquals(60, metrics.getMinRestGapMinutes(0));
+        assertEquals(120, metrics.getMinRestGapMinutes(1));
+        assertEquals(ScheduleMetrics.NO_GAP, metrics.getMinRestGapMinutes(3));
+        assertEquals(120, metrics.getMaxStreakMinutes());
+        assertEquals(60, metrics.getMinRestGapMinutes());
+        assertEquals(1.0, metrics.getRotationEntropy(1), 1e-9);
+        assertEquals(0.0, metrics.getRotationEntropy(3), 1e-9);
+        assertEquals((Math.log(3) - 2 * Math.log(2) / 3) / Math.log(2), metrics.getRotationEntropy(0), 1e-9);
+        assertEquals(2 * Math.sqrt(1800), metrics.getScore(), 1e-9);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.watchlist.scheduler.TestProblems.demand;
+import static com.example.watchlist.scheduler.TestProblems.problem;
+import static org.junit.Assert.*;
+
+public class ScheduleRepairTest {
+
+    @Test
+    public void repair_refillsOnlyTheSeatsOfRemovedMembers() {
+        Schedule original = ScheduleGenerator.generate(problem(4, 1, 1), Algorithm.BALANCED);
+        List<String[]> rows = new ArrayList<>();
+        for (String[] row : original.rows(0, original.getNumSlots())) {
+            rows.add(row);
+        }
+        Map<String, Integer> demand = demand(1, "gate", "tower");
+        ScheduleProblem changed = new ScheduleProblem(Arrays.asList("a", "b", "c", "e"), Arrays.asList("gate", "tower"),
+                demand, demand, 20, 0, 4 * 60, 6, 0, 18, 0);
+        ScheduleRepair repair = ScheduleRepair.repair(changed, Algorithm.BALANCED, rows);
+        Schedule repaired = repair.getSchedule();
+        assertEquals(0, repair.getUnfilled());
+        assertArrayEquals(new int[]{1, 3}, repair.getChangedSlots());
+        for (int i = 0; i < repaired.getNumSlots(); i++) {
+            for (int j = 0; j < repaired.getNumPosts(); j++) {
+                String before = original.cellText(i, j);
+                assertEquals(before.equals("d") ? "e" : before, repaired.cellText(i, j));
+            }
+        }
+
+        BitSet removed = new BitSet();
+        removed.set(changed.getSoldiers().idOf("a"));
+        Schedule withoutA = ScheduleRepair.repair(repaired, removed).getSchedule();
+        assertEquals("c", withoutA.cellText(0, 0));
+        assertEquals("b", withoutA.cellText(0, 1));
+        assertEquals("e", withoutA.cellText(2, 0));
+    }
+
+    @Test
+    public void repair_keepsTheSlotsOfACurrentListAndRefillsOnlyTheVacatedSeats() {
+        Schedule original = ScheduleGenerator.generate(problem(4, 1, 1), Algorithm.CURRENT);
+        List<String[]> rows = new ArrayList<>();
+        for (String[] row : original.rows(0, original.getNumSlots())) {
+            rows.add(row);
+        }
+        // The four hours stay split four ways although "b" left.
+        Map<String, Integer> demand = demand(1, "gate", "tower");
+        ScheduleProblem changed = new ScheduleProblem(Arrays.asList("a", "c", "d"), Arrays.asList("gate", "tower"),
+                demand, demand, 20, 0, 4 * 60, 6, 0, 18, 0);
+        changed.setCurrentSlots(original.getNumSlots());
+        ScheduleRepair repair = ScheduleRepair.repair(changed, Algorithm.CURRENT, rows);
+        Schedule repaired = repair.getSchedule();
+        assertEquals(4, repaired.getNumSlots());
+        assertEquals(0, repair.getUnfilled());
+        int vacated = 0;
+        for (int i = 0; i < repaired.getNumSlots(); i++) {
+            assertEquals(original.getSlots().label(i), repaired.getSlots().label(i));
+            for (int j = 0; j < repaired.getNumPosts(); j++) {
+                String before = original.cellText(i, j);
+                if (before.equals("b")) {
+                    vacated++;
+                    assertFalse(repaired.cellText(i, j).equals("b"));
+                } else {
+                    assertEquals(before, repaired.cellText(i, j));
+                }
+            }
+        }
+        assertEquals(vacated, repair.getChangedSlots().length);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.example.watchlist.scheduler.TestProblems.problem;
+import static org.junit.Assert.*;
+
+public class ScheduleValidatorTest {
+
+    @Test
+    public void validate_reportsDoubleBookingsUnknownNamesAndShortCells() {
+        // Six seats per slot for four soldiers: nobody is placed twice, two seats stay empty.
+        ScheduleProblem problem = problem(4, 3, 3);
+        ScheduleValidator generated = ScheduleValidator.validate(ScheduleGenerator.generate(problem, Algorithm.BALANCED));
+        assertTrue(generated.isValid());
+        assertEquals(8, generated.getUnfilledSeats());
+
+        List<String[]> rows = Arrays.asList(
+                new String[]{"20:00", "a, b, c", "d, a"},
+                new String[]{"21:00", "b,c , zed", "d"});
+        ScheduleValidator edited = ScheduleValidator.validate(problem, Algorithm.BALANCED, 1, rows);
+        assertFalse(edited.isValid());
+        assertEquals(1, edited.getDoubleBookings());
+        assertEquals(1, edited.getUnknownNames());
+        assertEquals(3, edited.getUnfilledSeats());
+        ScheduleValidator.Issue first = edited.getIssues().get(0);
+        assertEquals(ScheduleValidator.IssueType.DOUBLE_BOOKED, first.getType());
+        assertEquals("a", first.getName());
+        assertEquals(1, first.getSlot());
+        assertEquals(1, first.getPost());
+        assertEquals(ScheduleValidator.IssueType.UNFILLED, edited.getIssues().get(1).getType());
+        assertEquals("zed", edited.getIssues().get(2).getName());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.example.watchlist.scheduler.TestProblems.problem;
+import static org.junit.Assert.*;
+
+public class SwapIndexTest {
+
+    private static final List<String[]> ROWS = Arrays.asList(
+            new String[]{"20:00", "a", "b"},
+            new String[]{"21:00", "c", "d"},
+            new String[]{"22:00", "a", "b"},
+            new String[]{"23:00", "c", ""});
+
+    @Test
+    public void replacements_suggestFreeSoldiersLeastLoadedFirst() {
+        SwapIndex index = SwapIndex.of(problem(4, 1, 1), Algorithm.BALANCED, ROWS);
+        List<SwapIndex.Suggestion> replacements = index.replacements(0, 0, "a", 3);
+        assertEquals(2, replacements.size());
+        assertEquals("d", replacements.get(0).getSoldier());
+        assertEquals("c", replacements.get(1).getSoldier());
+    }
+
+    @Test
+    public void replacements_respectMinimumRest() {
+        // Both free soldiers worked the hour before, so an hour of rest rules them out.
+        ScheduleProblem problem = problem(4, 1, 1);
+        problem.setMinRestMinutes(60);
+        assertTrue(SwapIndex.of(problem, Algorithm.BALANCED, ROWS).replacements(2, 0, "a", 3).isEmpty());
+    }
+
+    @Test
+    public void swaps_suggestSeatsInOtherSlots() {
+        SwapIndex index = SwapIndex.of(problem(4, 1, 1), Algorithm.BALANCED, ROWS);
+        List<SwapIndex.Suggestion> swaps = index.swaps(0, 0, "a", 0, 4, 5);
+        assertEquals(3, swaps.size());
+        assertEquals("c", swaps.get(0).getSoldier());
+        assertEquals(1, swaps.get(0).getOtherSlot());
+    }
+
+    @Test
+    public void apply_followsTheEdit() {
+        SwapIndex index = SwapIndex.of(problem(4, 1, 1), Algorithm.BALANCED, ROWS);
+        index.apply(index.replacements(0, 0, "a", 3).get(0));
+        assertEquals(60, index.getLoadMinutes("a"));
+        assertEquals(120, index.getLoadMinutes("d"));
+        assertEquals("a", index.replacements(0, 0, "d", 3).get(0).getSoldier());
+    }
+}
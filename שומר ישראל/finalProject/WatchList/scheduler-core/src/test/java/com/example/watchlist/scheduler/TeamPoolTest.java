@@ -0,0 +1,66 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.watchlist.scheduler.TestProblems.demand;
+import static org.junit.Assert.*;
+
+public class TeamPoolTest {
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 1);
+
+    private static TeamPool pool() {
+        TeamPool pool = new TeamPool();
+        pool.add("A/night", teamList(DATE, 20, "a", "b", "c", "d", "e"));
+        pool.add("B/day", teamList(DATE, 8, "c", "d", "f", "g", "h"));
+        pool.add("B/later", teamList(DATE.plusDays(5), 8, "c", "d", "f", "g", "h"));
+        pool.add("C/night", teamList(DATE, 20, "x", "y", "z"));
+        return pool;
+    }
+
+    @Test
+    public void groups_linkOnlyListsSharingSoldiersAtOverlappingTimes() {
+        TeamPool pool = pool();
+        assertEquals(11, pool.getSoldiers().size());
+        List<int[]> groups = pool.groups();
+        assertEquals(3, groups.size());
+        assertArrayEquals(new int[]{0, 1}, groups.get(0));
+        assertArrayEquals(new int[]{2}, groups.get(1));
+        assertArrayEquals(new int[]{3}, groups.get(2));
+    }
+
+    @Test
+    public void generate_neverBooksALentSoldierTwice() {
+        Map<String, Schedule> schedules = pool().generate(Algorithm.BALANCED);
+        assertEquals(Arrays.asList("A/night", "B/day", "B/later", "C/night"), new ArrayList<>(schedules.keySet()));
+        Map<String, List<long[]>> shifts = new HashMap<>();
+        for (Schedule schedule : schedules.values()) {
+            long start = schedule.getProblem().getStartEpochMinute();
+            TimeSlots slots = schedule.getSlots();
+            for (int slot = 0; slot < slots.size(); slot++) {
+                for (int j = 0; j < schedule.getNumPosts(); j++) {
+                    assertEquals(1, schedule.cellSize(slot, j));
+                    String name = schedule.getProblem().getSoldiers().nameOf(schedule.soldierAt(slot, j, 0));
+                    long from = start + slots.getOffset(slot);
+                    for (long[] shift : shifts.getOrDefault(name, Collections.<long[]>emptyList())) {
+                        assertFalse(name + " is booked twice", from < shift[1] && shift[0] < from + slots.getLength(slot));
+                    }
+                    shifts.computeIfAbsent(name, k -> new ArrayList<>()).add(new long[]{from, from + slots.getLength(slot)});
+                }
+            }
+        }
+    }
+
+    private static ScheduleProblem teamList(LocalDate date, int startHour, String... soldiers) {
+        ScheduleProblem problem = new ScheduleProblem(Arrays.asList(soldiers), Arrays.asList("gate", "tower"), demand(1, "gate", "tower"), demand(1, "gate", "tower"), startHour, 0, 24 * 60, 6, 0, 18, 0);
+        problem.setStartDate(date);
+        return problem;
+    }
+}
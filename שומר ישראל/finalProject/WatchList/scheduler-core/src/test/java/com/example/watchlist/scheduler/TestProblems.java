@@ -0,0 +1,34 @@
+package com.example.watchlist.scheduler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Problems shared by the scheduler tests: soldiers a to d on a gate and a tower, from 20:00 with
+// day time from 06:00 to 18:00.
+final class TestProblems {
+
+    private TestProblems() {
+    }
+
+    static ScheduleProblem problem(int durationHours, int dayTime, int nightTime) {
+        List<String> soldiers = Arrays.asList("a", "b", "c", "d");
+        List<String> posts = Arrays.asList("gate", "tower");
+        Map<String, Integer> day = new HashMap<>();
+        Map<String, Integer> night = new HashMap<>();
+        for (String post : posts) {
+            day.put(post, dayTime);
+            night.put(post, nightTime);
+        }
+        return new ScheduleProblem(soldiers, posts, day, night, 20, 0, durationHours * 60, 6, 0, 18, 0);
+    }
+
+    static Map<String, Integer> demand(int count, String... posts) {
+        Map<String, Integer> demand = new HashMap<>();
+        for (String post : posts) {
+            demand.put(post, count);
+        }
+        return demand;
+    }
+}
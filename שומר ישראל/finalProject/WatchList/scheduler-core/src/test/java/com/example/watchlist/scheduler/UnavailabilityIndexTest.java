@@ -0,0 +1,22 @@
+package com.example.watchlist.scheduler;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class UnavailabilityIndexTest {
+
+    @Test
+    public void blockedUntil_mergesOverlapsAndAnswersRanges() {
+        UnavailabilityIndex index = new UnavailabilityIndex(3, new int[]{1, 1, 1, 2}, new int[]{50, 10, 30, 0}, new int[]{60, 40, 45, 5});
+        assertEquals(45, index.blockedUntil(1, 40, 41));
+        assertEquals(-1, index.blockedUntil(1, 45, 50));
+        assertEquals(60, index.blockedUntil(1, 45, 51));
+        assertTrue(index.isFree(0, 0, 100));
+        BitSet free = index.freeDuring(3, 0, 20);
+        assertEquals(1, free.cardinality());
+        assertTrue(free.get(0));
+    }
+}
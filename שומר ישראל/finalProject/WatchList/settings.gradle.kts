@@ -21,4 +21,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "WatchList"
 include(":app")
+include(":scheduler-core")
+include(":scheduler-benchmarks")
+include(":scheduler-cli")
  
\ No newline at end of file